@@ -0,0 +1,159 @@
+package com.gft.cache.benchmarks;
+
+import com.gft.cache.Cache;
+import com.gft.cache.simulator.Policy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput and latency of every {@link Cache} implementation under a workload that evicts.
+ * <p>
+ * The key space is {@link #KEY_SPACE_FACTOR} times the cache size, so a skewed distribution
+ * gives a realistic hit ratio and a uniform one keeps the eviction path busy. Keys are drawn
+ * before the measurement into a shared array of canonical {@code Long}s, each key being its own
+ * value, so no operation allocates. Every cache starts full, warmed with the same key stream it
+ * is measured with.
+ * <p>
+ * Build with {@code mvn package} and run e.g.
+ * <pre>
+ * java -jar benchmarks/target/benchmarks.jar CacheBenchmark -p policy=lru,tinylfu -p distribution=ZIPFIAN
+ * </pre>
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CacheBenchmark {
+
+    static final int KEY_SPACE_FACTOR = 4;
+
+    /**
+     * Number of precomputed keys, a power of two so threads wrap around with a mask.
+     */
+    static final int KEY_COUNT = 1 << 20;
+
+    @State(Scope.Benchmark)
+    public static class CacheState {
+
+        @Param({"lru", "segmented-lru", "buffered-lru", "long-lru", "clock-lru", "lfu", "lfu-aged", "tinylfu", "arc", "sampled-lru", "sampled-lfu"})
+        String policy;
+
+        @Param({"10000"})
+        int maximumSize;
+
+        @Param({"ZIPFIAN", "UNIFORM"})
+        KeyDistribution distribution;
+
+        Cache<Long, Long> cache;
+
+        Long[] keys;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            int items = KEY_SPACE_FACTOR * maximumSize;
+            Long[] canonical = new Long[items + 1];
+            for (int i = 1; i <= items; i++) {
+                canonical[i] = (long) i;
+            }
+            keys = new Long[KEY_COUNT];
+            long[] generated = distribution.generate(items, KEY_COUNT, 42);
+            for (int i = 0; i < KEY_COUNT; i++) {
+                keys[i] = canonical[(int) generated[i]];
+            }
+            cache = Policy.named(policy).get(0).create(maximumSize);
+            for (Long key : keys) {
+                if (cache.get(key) == null) {
+                    cache.put(key, key);
+                }
+            }
+        }
+    }
+
+    /**
+     * Each thread walks the shared key array from its own random offset.
+     */
+    @State(Scope.Thread)
+    public static class ThreadState {
+
+        int index = ThreadLocalRandom.current().nextInt(KEY_COUNT);
+
+        Long next(Long[] keys) {
+            return keys[index++ & (KEY_COUNT - 1)];
+        }
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Long get(CacheState state, ThreadState thread) {
+        return state.cache.get(thread.next(state.keys));
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void put(CacheState state, ThreadState thread) {
+        Long key = thread.next(state.keys);
+        state.cache.put(key, key);
+    }
+
+    /**
+     * Cache-aside: read, and store the value on a miss.
+     */
+    @Benchmark
+    @Threads(4)
+    public Long getOrPut(CacheState state, ThreadState thread) {
+        Long key = thread.next(state.keys);
+        Long value = state.cache.get(key);
+        if (value == null) {
+            state.cache.put(key, key);
+            value = key;
+        }
+        return value;
+    }
+
+    @Benchmark
+    @Group("read3Write1")
+    @GroupThreads(3)
+    public Long read3Write1Get(CacheState state, ThreadState thread) {
+        return state.cache.get(thread.next(state.keys));
+    }
+
+    @Benchmark
+    @Group("read3Write1")
+    @GroupThreads(1)
+    public void read3Write1Put(CacheState state, ThreadState thread) {
+        Long key = thread.next(state.keys);
+        state.cache.put(key, key);
+    }
+
+    @Benchmark
+    @Group("read10Write1")
+    @GroupThreads(10)
+    public Long read10Write1Get(CacheState state, ThreadState thread) {
+        return state.cache.get(thread.next(state.keys));
+    }
+
+    @Benchmark
+    @Group("read10Write1")
+    @GroupThreads(1)
+    public void read10Write1Put(CacheState state, ThreadState thread) {
+        Long key = thread.next(state.keys);
+        state.cache.put(key, key);
+    }
+}
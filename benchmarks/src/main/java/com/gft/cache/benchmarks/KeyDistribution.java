@@ -0,0 +1,39 @@
+package com.gft.cache.benchmarks;
+
+import com.gft.cache.simulator.ZipfianTrace;
+
+import java.util.SplittableRandom;
+
+/**
+ * How the benchmark keys are spread over the key space. Keys run from 1 to {@code items}.
+ */
+public enum KeyDistribution {
+
+    /**
+     * A few hot keys and a long tail, with the exponent YCSB uses by default.
+     */
+    ZIPFIAN {
+        long[] generate(int items, int count, long seed) {
+            long[] keys = new long[count];
+            int[] next = new int[1];
+            new ZipfianTrace(items, 0.99, count, seed).replay(key -> keys[next[0]++] = key);
+            return keys;
+        }
+    },
+
+    /**
+     * Every key equally likely, the worst case for any eviction policy.
+     */
+    UNIFORM {
+        long[] generate(int items, int count, long seed) {
+            SplittableRandom random = new SplittableRandom(seed);
+            long[] keys = new long[count];
+            for (int i = 0; i < count; i++) {
+                keys[i] = 1 + random.nextInt(items);
+            }
+            return keys;
+        }
+    };
+
+    abstract long[] generate(int items, int count, long seed);
+}
@@ -0,0 +1,32 @@
+package com.gft.cache;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Cache of {@link CompletableFuture}s. A miss starts one load and every caller asking for the key
+ * while it runs gets the same future, nobody blocks.
+ */
+public interface AsyncCache<K, V> {
+
+    /**
+     * Returns the cached future, loading it with the cache's {@link AsyncCacheLoader} on a miss.
+     */
+    CompletableFuture<V> get(K key);
+
+    /**
+     * Returns the cached future, loading it with {@code loader} on a miss.
+     */
+    CompletableFuture<V> get(K key, Function<? super K, ? extends CompletableFuture<V>> loader);
+
+    /**
+     * @return the cached future or null, never loads
+     */
+    CompletableFuture<V> getIfPresent(K key);
+
+    void put(K key, V value);
+
+    void evict(K key);
+
+    int size();
+}
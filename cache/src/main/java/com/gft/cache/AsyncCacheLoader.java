@@ -0,0 +1,17 @@
+package com.gft.cache;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Computes the value of a key for an {@link AsyncCache} without blocking the caller.
+ */
+@FunctionalInterface
+public interface AsyncCacheLoader<K, V> {
+
+    /**
+     * @param executor the cache's executor, to run blocking work on
+     * @return future of the value; a null value or a failure is not cached
+     */
+    CompletableFuture<V> asyncLoad(K key, Executor executor);
+}
@@ -0,0 +1,44 @@
+package com.gft.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Created by e-papz on 7/26/2016.
+ */
+public interface Cache<K,V> {
+
+    void put(K key,V value);
+
+    V get(K key);
+
+    void evict(K key);
+
+    public int size();
+
+    /**
+     * @return the cached values of the keys, missing keys are left out
+     */
+    default Map<K, V> getAll(Iterable<? extends K> keys) {
+        Map<K, V> result = new LinkedHashMap<K, V>();
+        for (K key : keys) {
+            V value = get(key);
+            if (value != null) {
+                result.put(key, value);
+            }
+        }
+        return result;
+    }
+
+    default void putAll(Map<? extends K, ? extends V> entries) {
+        for (Map.Entry<? extends K, ? extends V> entry : entries.entrySet()) {
+            put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    default void evictAll(Iterable<? extends K> keys) {
+        for (K key : keys) {
+            evict(key);
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package com.gft.cache;
+
+import com.gft.cache.expiry.Ticker;
+import com.gft.cache.lfu.LFUCache;
+import com.gft.cache.lru.LRUCache;
+import com.gft.cache.stats.ConcurrentStatsCounter;
+import com.gft.cache.stats.StatsCounter;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects the options shared by {@link LFUCache} and {@link LRUCache}.
+ */
+public class CacheBuilder<K, V> {
+
+    private int maximumSize = -1;
+
+    private long maximumWeight = -1;
+
+    private Weigher<? super K, ? super V> weigher;
+
+    private int agingPeriod;
+
+    private long expireAfterWriteNanos = -1;
+
+    private long expireAfterAccessNanos = -1;
+
+    private Ticker ticker = Ticker.SYSTEM;
+
+    private RemovalListener<? super K, ? super V> removalListener;
+
+    private Executor executor = ForkJoinPool.commonPool();
+
+    private CacheWriter<? super K, ? super V> writer;
+
+    private boolean recordStats;
+
+    public static <K, V> CacheBuilder<K, V> newBuilder() {
+        return new CacheBuilder<K, V>();
+    }
+
+    public CacheBuilder<K, V> maximumSize(int maximumSize) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("maximumSize must be positive but was " + maximumSize);
+        }
+        this.maximumSize = maximumSize;
+        return this;
+    }
+
+    /**
+     * Bounds the total weight of the entries instead of their number, requires a {@link #weigher(Weigher)}.
+     */
+    public CacheBuilder<K, V> maximumWeight(long maximumWeight) {
+        if (maximumWeight < 0) {
+            throw new IllegalArgumentException("maximumWeight must not be negative but was " + maximumWeight);
+        }
+        this.maximumWeight = maximumWeight;
+        return this;
+    }
+
+    public CacheBuilder<K, V> weigher(Weigher<? super K, ? super V> weigher) {
+        if (weigher == null) {
+            throw new NullPointerException("weigher");
+        }
+        this.weigher = weigher;
+        return this;
+    }
+
+    /**
+     * Halves every frequency after the given number of hits, only used by {@link LFUCache}.
+     */
+    public CacheBuilder<K, V> agingPeriod(int agingPeriod) {
+        if (agingPeriod < 0) {
+            throw new IllegalArgumentException("agingPeriod must not be negative but was " + agingPeriod);
+        }
+        this.agingPeriod = agingPeriod;
+        return this;
+    }
+
+    /**
+     * Entries expire once the duration passed since they were created or their value was replaced.
+     */
+    public CacheBuilder<K, V> expireAfterWrite(long duration, TimeUnit unit) {
+        this.expireAfterWriteNanos = toNanos(duration, unit);
+        return this;
+    }
+
+    /**
+     * Entries expire once the duration passed since they were last written or read.
+     */
+    public CacheBuilder<K, V> expireAfterAccess(long duration, TimeUnit unit) {
+        this.expireAfterAccessNanos = toNanos(duration, unit);
+        return this;
+    }
+
+    public CacheBuilder<K, V> ticker(Ticker ticker) {
+        if (ticker == null) {
+            throw new NullPointerException("ticker");
+        }
+        this.ticker = ticker;
+        return this;
+    }
+
+    /**
+     * Reports every removal together with its {@link RemovalCause}, see {@link #executor(Executor)}.
+     */
+    public CacheBuilder<K, V> removalListener(RemovalListener<? super K, ? super V> removalListener) {
+        if (removalListener == null) {
+            throw new NullPointerException("removalListener");
+        }
+        this.removalListener = removalListener;
+        return this;
+    }
+
+    /**
+     * Runs the removal listener, {@link ForkJoinPool#commonPool()} by default. A direct executor
+     * such as {@code Runnable::run} delivers on the calling thread once the cache released its lock.
+     */
+    public CacheBuilder<K, V> executor(Executor executor) {
+        if (executor == null) {
+            throw new NullPointerException("executor");
+        }
+        this.executor = executor;
+        return this;
+    }
+
+    /**
+     * Writes every put and explicit removal through to the store behind the cache.
+     */
+    public CacheBuilder<K, V> writer(CacheWriter<? super K, ? super V> writer) {
+        if (writer == null) {
+            throw new NullPointerException("writer");
+        }
+        this.writer = writer;
+        return this;
+    }
+
+    /**
+     * Counts hits, misses, loads and evictions and measures the latency of every operation.
+     * Off by default, it costs two clock reads per operation.
+     */
+    public CacheBuilder<K, V> recordStats() {
+        this.recordStats = true;
+        return this;
+    }
+
+    public LFUCache<K, V> buildLFU() {
+        return new LFUCache<K, V>(this);
+    }
+
+    public LRUCache<K, V> buildLRU() {
+        return new LRUCache<K, V>(this);
+    }
+
+    /**
+     * @return the maximum weight, or the maximum size when entries are not weighed
+     */
+    public long getMaximumWeight() {
+        if (weigher == null) {
+            if (maximumWeight >= 0) {
+                throw new IllegalStateException("maximumWeight requires a weigher");
+            }
+            if (maximumSize < 0) {
+                throw new IllegalStateException("maximumSize was not set");
+            }
+            return maximumSize;
+        }
+        if (maximumSize >= 0) {
+            throw new IllegalStateException("maximumSize cannot be combined with a weigher");
+        }
+        if (maximumWeight < 0) {
+            throw new IllegalStateException("weigher requires a maximumWeight");
+        }
+        return maximumWeight;
+    }
+
+    /**
+     * @return the configured weigher or one counting every entry as 1
+     */
+    @SuppressWarnings("unchecked")
+    public Weigher<K, V> getWeigher() {
+        return weigher == null ? Weigher.<K, V>singleton() : (Weigher<K, V>) weigher;
+    }
+
+    /**
+     * @return the expected number of entries to size hash tables with
+     */
+    public int getInitialCapacity() {
+        return maximumSize >= 0 ? maximumSize : 16;
+    }
+
+    public int getAgingPeriod() {
+        return agingPeriod;
+    }
+
+    /**
+     * @return the duration in nanoseconds or -1 when entries do not expire after write
+     */
+    public long getExpireAfterWriteNanos() {
+        return expireAfterWriteNanos;
+    }
+
+    /**
+     * @return the duration in nanoseconds or -1 when entries do not expire after access
+     */
+    public long getExpireAfterAccessNanos() {
+        return expireAfterAccessNanos;
+    }
+
+    public Ticker getTicker() {
+        return ticker;
+    }
+
+    /**
+     * @return a notifier for the configured removal listener, one dropping every removal when none is set
+     */
+    public RemovalNotifier<K, V> getRemovalNotifier() {
+        return new RemovalNotifier<K, V>(removalListener, executor);
+    }
+
+    /**
+     * @return the configured writer or one ignoring every change
+     */
+    @SuppressWarnings("unchecked")
+    public CacheWriter<K, V> getWriter() {
+        return writer == null ? CacheWriter.<K, V>disabled() : (CacheWriter<K, V>) writer;
+    }
+
+    /**
+     * @return fresh per-key locks ordering the calls to the configured writer, disabled when none is set
+     */
+    public WriteLocks getWriteLocks() {
+        return new WriteLocks(writer != null);
+    }
+
+    /**
+     * @return a fresh counter when statistics are recorded, one dropping everything otherwise
+     */
+    public StatsCounter getStatsCounter() {
+        return recordStats ? new ConcurrentStatsCounter() : StatsCounter.disabled();
+    }
+
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    private static long toNanos(long duration, TimeUnit unit) {
+        if (duration < 0) {
+            throw new IllegalArgumentException("duration must not be negative but was " + duration);
+        }
+        return unit.toNanos(duration);
+    }
+}
@@ -0,0 +1,33 @@
+package com.gft.cache;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Computes the value of a key missing from a {@link LoadingCache}.
+ */
+@FunctionalInterface
+public interface CacheLoader<K, V> {
+
+    /**
+     * @return the value, or null when there is none; null is not cached
+     */
+    V load(K key) throws Exception;
+
+    /**
+     * Loads several keys at once, override it when the backing store has a batch call.
+     *
+     * @return the values found, keys without a value may be left out
+     */
+    default Map<K, V> loadAll(Set<? extends K> keys) throws Exception {
+        Map<K, V> result = new HashMap<K, V>();
+        for (K key : keys) {
+            V value = load(key);
+            if (value != null) {
+                result.put(key, value);
+            }
+        }
+        return result;
+    }
+}
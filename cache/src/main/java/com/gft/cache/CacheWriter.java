@@ -0,0 +1,52 @@
+package com.gft.cache;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Propagates the writes and explicit removals of a cache to the store behind it.
+ * Evictions and expirations are not propagated, the store keeps those entries.
+ * <p>
+ * The caches call the writer on the calling thread before taking their lock, holding only the
+ * {@link WriteLocks} of the keys, so the store sees the changes of a key in the order the cache
+ * applied them and a plain synchronous store is a valid write-through. A failing writer aborts the
+ * cache operation. Wrap a slow store in a {@link com.gft.cache.writer.WriteBehindWriter} to take it
+ * off the calling thread.
+ */
+public interface CacheWriter<K, V> {
+
+    void write(K key, V value);
+
+    void delete(K key);
+
+    /**
+     * Writes several entries at once, override it when the store has a batch call.
+     */
+    default void writeAll(Map<? extends K, ? extends V> entries) {
+        for (Map.Entry<? extends K, ? extends V> entry : entries.entrySet()) {
+            write(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Deletes several keys at once, override it when the store has a batch call.
+     */
+    default void deleteAll(Collection<? extends K> keys) {
+        for (K key : keys) {
+            delete(key);
+        }
+    }
+
+    /**
+     * @return writer ignoring every change, for caches without a store behind them
+     */
+    static <K, V> CacheWriter<K, V> disabled() {
+        return new CacheWriter<K, V>() {
+            public void write(K key, V value) {
+            }
+
+            public void delete(K key) {
+            }
+        };
+    }
+}
@@ -0,0 +1,34 @@
+package com.gft.cache;
+
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Cache that loads missing values itself. Threads missing the same key at the same time
+ * share a single load instead of all going to the backing store.
+ */
+public interface LoadingCache<K, V> extends Cache<K, V> {
+
+    /**
+     * Returns the cached value, loading it with the cache's {@link CacheLoader} on a miss.
+     */
+    V get(K key);
+
+    /**
+     * Returns the cached value, loading it with {@code loader} on a miss.
+     */
+    V get(K key, Function<? super K, ? extends V> loader);
+
+    /**
+     * @return the cached value or null, never loads
+     */
+    V getIfPresent(K key);
+
+    /**
+     * Returns the cached values, loading all the missing ones with a single
+     * {@link CacheLoader#loadAll(java.util.Set)} call.
+     *
+     * @return the values of the keys, keys the loader has no value for are left out
+     */
+    Map<K, V> getAll(Iterable<? extends K> keys);
+}
@@ -0,0 +1,34 @@
+package com.gft.cache;
+
+/**
+ * Why an entry left the cache.
+ */
+public enum RemovalCause {
+
+    /**
+     * Removed by {@link Cache#evict(Object)} or {@link Cache#evictAll(Iterable)}.
+     */
+    EXPLICIT,
+
+    /**
+     * The value was overwritten by a put for the same key.
+     */
+    REPLACED,
+
+    /**
+     * The entry outlived its expire after write or expire after access duration.
+     */
+    EXPIRED,
+
+    /**
+     * Evicted to keep the cache within its maximum size or weight.
+     */
+    SIZE;
+
+    /**
+     * @return whether the cache removed the entry on its own rather than on request
+     */
+    public boolean wasEvicted() {
+        return this == EXPIRED || this == SIZE;
+    }
+}
@@ -0,0 +1,12 @@
+package com.gft.cache;
+
+/**
+ * Is told about every entry leaving the cache. Invoked on the executor configured with
+ * {@link CacheBuilder#executor(java.util.concurrent.Executor)} after the cache released its
+ * locks, so a slow listener delays neither readers nor writers.
+ */
+@FunctionalInterface
+public interface RemovalListener<K, V> {
+
+    void onRemoval(K key, V value, RemovalCause cause);
+}
@@ -0,0 +1,84 @@
+package com.gft.cache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Collects removals while a cache holds its lock and hands them to the {@link RemovalListener}
+ * once the lock is released.
+ * <p>
+ * {@link #record(Object, Object, RemovalCause)} and {@link #takePending()} must be called under
+ * the cache's lock, {@link #dispatch(List)} after releasing it. Each batch is delivered in order
+ * by one task on the executor.
+ */
+public class RemovalNotifier<K, V> {
+
+    private final RemovalListener<? super K, ? super V> listener;
+
+    private final Executor executor;
+
+    private List<Notification<K, V>> pending = Collections.emptyList();
+
+    /**
+     * @param listener the listener or null to drop every notification
+     */
+    public RemovalNotifier(RemovalListener<? super K, ? super V> listener, Executor executor) {
+        this.listener = listener;
+        this.executor = executor;
+    }
+
+    public void record(K key, V value, RemovalCause cause) {
+        if (listener == null) {
+            return;
+        }
+        if (pending.isEmpty()) {
+            pending = new ArrayList<Notification<K, V>>();
+        }
+        pending.add(new Notification<K, V>(key, value, cause));
+    }
+
+    /**
+     * @return the removals recorded since the last call, to be passed to {@link #dispatch(List)}
+     */
+    public List<Notification<K, V>> takePending() {
+        List<Notification<K, V>> notifications = pending;
+        pending = Collections.emptyList();
+        return notifications;
+    }
+
+    public void dispatch(final List<Notification<K, V>> notifications) {
+        if (notifications.isEmpty()) {
+            return;
+        }
+        executor.execute(() -> {
+            RuntimeException failure = null;
+            for (Notification<K, V> notification : notifications) {
+                try {
+                    listener.onRemoval(notification.key, notification.value, notification.cause);
+                } catch (RuntimeException e) {
+                    // the rest of the batch is still delivered
+                    if (failure == null) {
+                        failure = e;
+                    }
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        });
+    }
+
+    public static final class Notification<K, V> {
+        private final K key;
+        private final V value;
+        private final RemovalCause cause;
+
+        Notification(K key, V value, RemovalCause cause) {
+            this.key = key;
+            this.value = value;
+            this.cause = cause;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.gft.cache;
+
+/**
+ * Computes how much of the cache capacity an entry takes, for example its approximate size in bytes.
+ * The weight of an entry is computed once, when it is written.
+ */
+public interface Weigher<K, V> {
+
+    /**
+     * @return the weight of the entry, never negative
+     */
+    int weigh(K key, V value);
+
+    /**
+     * @return weigher counting every entry as 1, turning a weight bound into an entry count bound
+     */
+    static <K, V> Weigher<K, V> singleton() {
+        return (key, value) -> 1;
+    }
+}
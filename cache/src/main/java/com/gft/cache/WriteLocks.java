@@ -0,0 +1,76 @@
+package com.gft.cache;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Striped per-key locks ordering the calls a cache makes to its {@link CacheWriter}.
+ * <p>
+ * A cache holds the lock of a key from the call to the writer until it applied the change under
+ * its own lock, so the writer runs outside the cache's lock and the store still sees the changes
+ * of a key in the order the cache applied them. Batches take the stripes of all their keys in
+ * ascending order, so they never deadlock with each other or with single keys. Caches without a
+ * writer get a disabled instance that takes no lock at all.
+ */
+public class WriteLocks {
+
+    private static final int STRIPES = 64;
+
+    private final ReentrantLock[] stripes;
+
+    /**
+     * @param enabled false for a cache without a writer, every call is then a no-op
+     */
+    public WriteLocks(boolean enabled) {
+        if (enabled) {
+            stripes = new ReentrantLock[STRIPES];
+            for (int i = 0; i < STRIPES; i++) {
+                stripes[i] = new ReentrantLock();
+            }
+        } else {
+            stripes = null;
+        }
+    }
+
+    public void lock(Object key) {
+        if (stripes != null) {
+            stripes[stripe(key)].lock();
+        }
+    }
+
+    public void unlock(Object key) {
+        if (stripes != null) {
+            stripes[stripe(key)].unlock();
+        }
+    }
+
+    /**
+     * Locks the stripes of all the keys, lowest stripe first.
+     *
+     * @return the locked stripes as a bit mask for {@link #unlockAll(long)}
+     */
+    public long lockAll(Iterable<?> keys) {
+        if (stripes == null) {
+            return 0L;
+        }
+        long mask = 0L;
+        for (Object key : keys) {
+            mask |= 1L << stripe(key);
+        }
+        for (long remaining = mask; remaining != 0; remaining &= remaining - 1) {
+            stripes[Long.numberOfTrailingZeros(remaining)].lock();
+        }
+        return mask;
+    }
+
+    public void unlockAll(long mask) {
+        for (long remaining = mask; remaining != 0; remaining &= remaining - 1) {
+            stripes[Long.numberOfTrailingZeros(remaining)].unlock();
+        }
+    }
+
+    private static int stripe(Object key) {
+        int h = key.hashCode();
+        h ^= h >>> 16;
+        return h & (STRIPES - 1);
+    }
+}
@@ -0,0 +1,214 @@
+package com.gft.cache.arc;
+
+import com.gft.cache.Cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Thread safe cache using the Adaptive Replacement Cache policy of Megiddo and Modha.
+ * <p>
+ * Entries seen once live in the recency list {@code t1}, entries seen again move to the
+ * frequency list {@code t2}. The keys evicted from either list are remembered, without their
+ * values, in the ghost lists {@code b1} and {@code b2}. A miss on a key from {@code b1} means
+ * the recency list was too short and grows its target size, a miss on a key from {@code b2}
+ * shrinks it in favour of the frequency list. That way the cache follows workloads swinging
+ * between recency and frequency friendly phases without any tuning.
+ * <p>
+ * Every list is insertion ordered, the least recently used key comes first.
+ */
+public class ARCCache<K, V> implements Cache<K, V> {
+
+    private final int maxSize;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final LinkedHashMap<K, V> t1 = new LinkedHashMap<K, V>();
+
+    private final LinkedHashMap<K, V> t2 = new LinkedHashMap<K, V>();
+
+    private final LinkedHashSet<K> b1 = new LinkedHashSet<K>();
+
+    private final LinkedHashSet<K> b2 = new LinkedHashSet<K>();
+
+    // target size of t1
+    private int p;
+
+    public ARCCache(final int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive but was " + maxSize);
+        }
+        this.maxSize = maxSize;
+    }
+
+    public void put(K key, V value) {
+        lock.lock();
+        try {
+            putEntry(key, value);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public V get(K key) {
+        lock.lock();
+        try {
+            return getEntry(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void evict(K key) {
+        lock.lock();
+        try {
+            if (t1.remove(key) == null) {
+                t2.remove(key);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Map<K, V> getAll(Iterable<? extends K> keys) {
+        lock.lock();
+        try {
+            Map<K, V> result = new LinkedHashMap<K, V>();
+            for (K key : keys) {
+                V value = getEntry(key);
+                if (value != null) {
+                    result.put(key, value);
+                }
+            }
+            return result;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void putAll(Map<? extends K, ? extends V> entries) {
+        lock.lock();
+        try {
+            for (Map.Entry<? extends K, ? extends V> entry : entries.entrySet()) {
+                putEntry(entry.getKey(), entry.getValue());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void evictAll(Iterable<? extends K> keys) {
+        lock.lock();
+        try {
+            for (K key : keys) {
+                evict(key);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return t1.size() + t2.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return how many of the entries the policy currently wants to keep for recency, the rest is for frequency
+     */
+    public int recencyTarget() {
+        lock.lock();
+        try {
+            return p;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private V getEntry(K key) {
+        V value = t1.remove(key);
+        if (value == null) {
+            value = t2.remove(key);
+            if (value == null) {
+                return null;
+            }
+        }
+        // a hit in either list makes the key frequent
+        t2.put(key, value);
+        return value;
+    }
+
+    private void putEntry(K key, V value) {
+        if (t1.remove(key) != null || t2.remove(key) != null) {
+            t2.put(key, value);
+            return;
+        }
+        if (b1.contains(key)) {
+            p = Math.min(maxSize, p + Math.max(b2.size() / b1.size(), 1));
+            replace(false);
+            b1.remove(key);
+            t2.put(key, value);
+            return;
+        }
+        if (b2.contains(key)) {
+            p = Math.max(0, p - Math.max(b1.size() / b2.size(), 1));
+            replace(true);
+            b2.remove(key);
+            t2.put(key, value);
+            return;
+        }
+
+        int recencySize = t1.size() + b1.size();
+        if (recencySize >= maxSize) {
+            if (t1.size() < maxSize) {
+                removeEldest(b1);
+                replace(false);
+            } else {
+                // b1 is empty, drop the eldest entry without remembering it
+                removeEldest(t1.keySet());
+            }
+        } else {
+            int total = recencySize + t2.size() + b2.size();
+            if (total >= maxSize) {
+                if (total >= 2 * maxSize) {
+                    removeEldest(b2);
+                }
+                replace(false);
+            }
+        }
+        t1.put(key, value);
+    }
+
+    /**
+     * Makes room for one entry, moving the eldest entry of {@code t1} or {@code t2} to its ghost list.
+     *
+     * @param hitInB2 whether the entry about to be added was found in {@code b2}
+     */
+    private void replace(boolean hitInB2) {
+        if (t1.size() + t2.size() < maxSize) {
+            // explicit evictions left room
+            return;
+        }
+        if (!t1.isEmpty() && (t1.size() > p || (hitInB2 && t1.size() == p))) {
+            b1.add(removeEldest(t1.keySet()));
+        } else if (!t2.isEmpty()) {
+            b2.add(removeEldest(t2.keySet()));
+        } else {
+            b1.add(removeEldest(t1.keySet()));
+        }
+    }
+
+    private static <K> K removeEldest(Iterable<K> keys) {
+        Iterator<K> eldest = keys.iterator();
+        K key = eldest.next();
+        eldest.remove();
+        return key;
+    }
+}
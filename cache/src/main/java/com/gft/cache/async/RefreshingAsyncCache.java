@@ -0,0 +1,208 @@
+package com.gft.cache.async;
+
+import com.gft.cache.AsyncCache;
+import com.gft.cache.AsyncCacheLoader;
+import com.gft.cache.Cache;
+import com.gft.cache.expiry.Ticker;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Thread safe {@link AsyncCache} keeping its futures in any {@link Cache}.
+ * <p>
+ * With refresh-after-write, the first hit on a value older than the refresh interval reloads it
+ * in the background with the {@link AsyncCacheLoader}; callers keep getting the old value until
+ * the new one is ready, and a failed refresh keeps the old value as well. A refresh only replaces
+ * the entry it was started for, never a value put or evicted meanwhile.
+ * <p>
+ * Callers get a dependent copy of the cached future, completing or cancelling it does not touch
+ * the cache. A loader returning null instead of a future counts as having no value.
+ */
+public class RefreshingAsyncCache<K, V> implements AsyncCache<K, V> {
+
+    private final Cache<K, CompletableFuture<V>> cache;
+
+    private final AsyncCacheLoader<? super K, V> cacheLoader;
+
+    private final Executor executor;
+
+    private final long refreshAfterWriteNanos;
+
+    private final Ticker ticker;
+
+    /**
+     * Never holds a mapping: every write of a key runs inside {@code compute} on it, so writes of the
+     * same key are serialized and a compare-and-replace against the cache is atomic.
+     */
+    private final ConcurrentHashMap<K, Boolean> writes = new ConcurrentHashMap<K, Boolean>();
+
+    /**
+     * @param refreshAfterWrite duration after which a hit reloads the value, 0 disables refreshing
+     */
+    public RefreshingAsyncCache(Cache<K, CompletableFuture<V>> cache, AsyncCacheLoader<? super K, V> cacheLoader,
+                                Executor executor, long refreshAfterWrite, TimeUnit unit) {
+        this(cache, cacheLoader, executor, refreshAfterWrite, unit, Ticker.SYSTEM);
+    }
+
+    public RefreshingAsyncCache(Cache<K, CompletableFuture<V>> cache, AsyncCacheLoader<? super K, V> cacheLoader,
+                                Executor executor, long refreshAfterWrite, TimeUnit unit, Ticker ticker) {
+        if (refreshAfterWrite < 0) {
+            throw new IllegalArgumentException("refreshAfterWrite must not be negative but was " + refreshAfterWrite);
+        }
+        this.cache = cache;
+        this.cacheLoader = cacheLoader;
+        this.executor = executor;
+        this.refreshAfterWriteNanos = unit.toNanos(refreshAfterWrite);
+        this.ticker = ticker;
+    }
+
+    public CompletableFuture<V> get(K key) {
+        return get(key, k -> cacheLoader.asyncLoad(k, executor));
+    }
+
+    public CompletableFuture<V> get(K key, Function<? super K, ? extends CompletableFuture<V>> loader) {
+        CompletableFuture<V> cached = cache.get(key);
+        if (cached != null) {
+            if (cached instanceof EntryFuture) {
+                refreshIfStale(key, (EntryFuture<V>) cached);
+            }
+            return copy(cached);
+        }
+
+        EntryFuture<V> future = new EntryFuture<V>(ticker.read());
+        // another miss or a put may have published a future since the lookup
+        cached = write(key, () -> {
+            CompletableFuture<V> current = cache.get(key);
+            if (current == null) {
+                cache.put(key, future);
+            }
+            return current;
+        });
+        if (cached != null) {
+            return copy(cached);
+        }
+
+        CompletableFuture<V> load;
+        try {
+            load = loader.apply(key);
+            if (load == null) {
+                load = CompletableFuture.completedFuture(null);
+            }
+        } catch (RuntimeException e) {
+            load = new CompletableFuture<V>();
+            load.completeExceptionally(e);
+        }
+        load.whenComplete((value, error) -> {
+            if (error != null || value == null) {
+                removeIfSame(key, future);
+            }
+            if (error != null) {
+                future.completeExceptionally(error);
+            } else {
+                future.complete(value);
+            }
+        });
+        return copy(future);
+    }
+
+    public CompletableFuture<V> getIfPresent(K key) {
+        CompletableFuture<V> cached = cache.get(key);
+        return cached == null ? null : copy(cached);
+    }
+
+    public void put(K key, V value) {
+        EntryFuture<V> future = new EntryFuture<V>(ticker.read());
+        future.complete(value);
+        write(key, () -> {
+            cache.put(key, future);
+            return null;
+        });
+    }
+
+    public void evict(K key) {
+        write(key, () -> {
+            cache.evict(key);
+            return null;
+        });
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    private void refreshIfStale(K key, EntryFuture<V> cached) {
+        if (refreshAfterWriteNanos == 0 || !cached.isDone() || cached.isCompletedExceptionally()
+                || ticker.read() - cached.writeTime < refreshAfterWriteNanos
+                || !cached.refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        CompletableFuture<V> reload;
+        try {
+            reload = cacheLoader.asyncLoad(key, executor);
+        } catch (RuntimeException e) {
+            reload = null;
+        }
+        if (reload == null) {
+            cached.refreshing.set(false);
+            return;
+        }
+        reload.whenComplete((value, error) -> {
+            if (error != null || value == null) {
+                // keep serving the old value, the next hit tries again
+                cached.refreshing.set(false);
+                return;
+            }
+            EntryFuture<V> refreshed = new EntryFuture<V>(ticker.read());
+            refreshed.complete(value);
+            write(key, () -> {
+                if (cache.get(key) == cached) {
+                    cache.put(key, refreshed);
+                }
+                return null;
+            });
+        });
+    }
+
+    private void removeIfSame(K key, CompletableFuture<V> future) {
+        write(key, () -> {
+            if (cache.get(key) == future) {
+                cache.evict(key);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Runs a write of the key, no other write of that key runs at the same time.
+     */
+    private <T> T write(K key, Supplier<T> write) {
+        AtomicReference<T> result = new AtomicReference<T>();
+        writes.compute(key, (k, unused) -> {
+            result.set(write.get());
+            return null;
+        });
+        return result.get();
+    }
+
+    private static <V> CompletableFuture<V> copy(CompletableFuture<V> future) {
+        return future.thenApply(Function.identity());
+    }
+
+    private static final class EntryFuture<V> extends CompletableFuture<V> {
+
+        private final long writeTime;
+
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+
+        EntryFuture(long writeTime) {
+            this.writeTime = writeTime;
+        }
+    }
+}
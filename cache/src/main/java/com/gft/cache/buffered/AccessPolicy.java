@@ -0,0 +1,25 @@
+package com.gft.cache.buffered;
+
+/**
+ * Eviction order replayed by a {@link BufferedCache}.
+ * <p>
+ * Implementations are not thread safe, the cache only calls them while holding its eviction lock.
+ */
+public interface AccessPolicy<K> {
+
+    void recordInsert(K key);
+
+    /**
+     * Called for buffered reads and for updates of present keys. The key may already be gone.
+     */
+    void recordAccess(K key);
+
+    void recordRemoval(K key);
+
+    /**
+     * Removes the next victim from the policy.
+     *
+     * @return the key to evict, or null when the policy is empty
+     */
+    K evict();
+}
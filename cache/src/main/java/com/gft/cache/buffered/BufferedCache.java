@@ -0,0 +1,132 @@
+package com.gft.cache.buffered;
+
+import com.gft.cache.Cache;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Thread safe cache whose reads never take the policy lock.
+ * <p>
+ * A hit is a plain {@link ConcurrentHashMap} lookup followed by recording the key in a
+ * {@link ReadBuffer}. Whoever wins the {@code tryLock} on the eviction lock replays the
+ * buffered reads into the {@link AccessPolicy} in one batch. Writes always take the
+ * eviction lock, drain the buffer and keep the policy in step with the map.
+ * Because the buffer is lossy the policy only sees a sample of the reads under heavy load.
+ */
+public class BufferedCache<K, V> implements Cache<K, V> {
+
+    private final int maxSize;
+
+    private final ConcurrentHashMap<K, V> data;
+
+    private final AccessPolicy<K> policy;
+
+    private final ReadBuffer<K> readBuffer = new ReadBuffer<K>();
+
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    public BufferedCache(int maxSize, AccessPolicy<K> policy) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive but was " + maxSize);
+        }
+        this.maxSize = maxSize;
+        this.policy = policy;
+        this.data = new ConcurrentHashMap<K, V>(maxSize);
+    }
+
+    public void put(K key, V value) {
+        evictionLock.lock();
+        try {
+            drainReadBuffer();
+            putLocked(key, value);
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    public void putAll(Map<? extends K, ? extends V> entries) {
+        evictionLock.lock();
+        try {
+            drainReadBuffer();
+            for (Map.Entry<? extends K, ? extends V> entry : entries.entrySet()) {
+                putLocked(entry.getKey(), entry.getValue());
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    public V get(K key) {
+        V value = data.get(key);
+        if (value != null && readBuffer.offer(key) != ReadBuffer.SUCCESS) {
+            tryDrainReadBuffer();
+        }
+        return value;
+    }
+
+    public void evict(K key) {
+        evictionLock.lock();
+        try {
+            drainReadBuffer();
+            evictLocked(key);
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    public void evictAll(Iterable<? extends K> keys) {
+        evictionLock.lock();
+        try {
+            drainReadBuffer();
+            for (K key : keys) {
+                evictLocked(key);
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    public int size() {
+        return data.size();
+    }
+
+    private void putLocked(K key, V value) {
+        if (data.containsKey(key)) {
+            data.put(key, value);
+            policy.recordAccess(key);
+            return;
+        }
+        // make room first, otherwise a frequency based policy would pick the newcomer
+        while (data.size() >= maxSize) {
+            K victim = policy.evict();
+            if (victim == null) {
+                break;
+            }
+            data.remove(victim);
+        }
+        data.put(key, value);
+        policy.recordInsert(key);
+    }
+
+    private void evictLocked(K key) {
+        if (data.remove(key) != null) {
+            policy.recordRemoval(key);
+        }
+    }
+
+    private void tryDrainReadBuffer() {
+        if (evictionLock.tryLock()) {
+            try {
+                drainReadBuffer();
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+    }
+
+    private void drainReadBuffer() {
+        readBuffer.drainTo(policy::recordAccess);
+    }
+}
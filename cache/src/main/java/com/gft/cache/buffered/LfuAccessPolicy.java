@@ -0,0 +1,46 @@
+package com.gft.cache.buffered;
+
+import com.gft.cache.lfu.FrequencyList;
+import com.gft.cache.lfu.ValueHolder;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Least frequently used order kept in the same O(1) frequency list as {@link com.gft.cache.lfu.LFUCache}.
+ */
+public class LfuAccessPolicy<K> implements AccessPolicy<K> {
+
+    private final Map<K, ValueHolder<K, Void>> holders = new HashMap<K, ValueHolder<K, Void>>();
+
+    private final FrequencyList<K, Void> frequencyList = new FrequencyList<K, Void>();
+
+    public void recordInsert(K key) {
+        ValueHolder<K, Void> holder = new ValueHolder<K, Void>(key, null);
+        holders.put(key, holder);
+        frequencyList.addToFrequencyList(holder);
+    }
+
+    public void recordAccess(K key) {
+        ValueHolder<K, Void> holder = holders.get(key);
+        if (holder != null) {
+            frequencyList.moveToNextFrequency(holder);
+        }
+    }
+
+    public void recordRemoval(K key) {
+        ValueHolder<K, Void> holder = holders.remove(key);
+        if (holder != null) {
+            frequencyList.remove(holder);
+        }
+    }
+
+    public K evict() {
+        if (holders.isEmpty()) {
+            return null;
+        }
+        K key = frequencyList.pollLeastUsed().getKey();
+        holders.remove(key);
+        return key;
+    }
+}
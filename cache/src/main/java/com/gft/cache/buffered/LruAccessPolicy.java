@@ -0,0 +1,34 @@
+package com.gft.cache.buffered;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * Least recently used order kept in an access-ordered LinkedHashMap.
+ */
+public class LruAccessPolicy<K> implements AccessPolicy<K> {
+
+    private final LinkedHashMap<K, Boolean> order = new LinkedHashMap<K, Boolean>(16, 0.75f, true);
+
+    public void recordInsert(K key) {
+        order.put(key, Boolean.TRUE);
+    }
+
+    public void recordAccess(K key) {
+        order.get(key);
+    }
+
+    public void recordRemoval(K key) {
+        order.remove(key);
+    }
+
+    public K evict() {
+        Iterator<K> iterator = order.keySet().iterator();
+        if (!iterator.hasNext()) {
+            return null;
+        }
+        K eldest = iterator.next();
+        iterator.remove();
+        return eldest;
+    }
+}
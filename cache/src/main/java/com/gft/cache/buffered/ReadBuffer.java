@@ -0,0 +1,113 @@
+package com.gft.cache.buffered;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Striped, lossy buffer of recorded reads.
+ * <p>
+ * Any number of threads may {@link #offer(Object)} concurrently; each one writes
+ * into the ring buffer of the stripe chosen by its thread id. When the stripe is
+ * still full or another thread wins the race for the slot the element is simply
+ * dropped, readers never wait. Only a single thread at a time (the one holding
+ * the owning cache's eviction lock) may call {@link #drainTo(Consumer)}.
+ */
+public class ReadBuffer<E> {
+
+    public static final int SUCCESS = 0;
+
+    public static final int FULL = 1;
+
+    public static final int FAILED = -1;
+
+    static final int BUFFER_SIZE = 16;
+
+    private static final int BUFFER_MASK = BUFFER_SIZE - 1;
+
+    private final Stripe<E>[] stripes;
+
+    private final int stripeMask;
+
+    public ReadBuffer() {
+        this(4 * Runtime.getRuntime().availableProcessors());
+    }
+
+    @SuppressWarnings("unchecked")
+    public ReadBuffer(int concurrencyLevel) {
+        int stripeCount = 1;
+        while (stripeCount < concurrencyLevel) {
+            stripeCount <<= 1;
+        }
+        stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe<E>();
+        }
+        stripeMask = stripeCount - 1;
+    }
+
+    /**
+     * Records the element.
+     *
+     * @return {@link #SUCCESS} when recorded, {@link #FULL} when recorded but the stripe is now full
+     * and should be drained, and {@link #FAILED} when the element was dropped because the stripe was
+     * still full or the slot was taken by a concurrent writer
+     */
+    public int offer(E e) {
+        return stripes[stripeIndex()].offer(e);
+    }
+
+    /**
+     * Hands every recorded element to the consumer. Must not be called concurrently.
+     */
+    public void drainTo(Consumer<? super E> consumer) {
+        for (Stripe<E> stripe : stripes) {
+            stripe.drainTo(consumer);
+        }
+    }
+
+    private int stripeIndex() {
+        long id = Thread.currentThread().getId();
+        int h = (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & stripeMask;
+    }
+
+    private static final class Stripe<E> {
+
+        private final AtomicReferenceArray<E> buffer = new AtomicReferenceArray<E>(BUFFER_SIZE);
+
+        private final AtomicLong writeCounter = new AtomicLong();
+
+        private volatile long readCounter;
+
+        int offer(E e) {
+            long head = readCounter;
+            long tail = writeCounter.get();
+            if (tail - head >= BUFFER_SIZE) {
+                return FAILED;
+            }
+            if (!writeCounter.compareAndSet(tail, tail + 1)) {
+                return FAILED;
+            }
+            buffer.lazySet((int) (tail & BUFFER_MASK), e);
+            return tail + 1 - head >= BUFFER_SIZE ? FULL : SUCCESS;
+        }
+
+        void drainTo(Consumer<? super E> consumer) {
+            long head = readCounter;
+            long tail = writeCounter.get();
+            while (head < tail) {
+                int index = (int) (head & BUFFER_MASK);
+                E e = buffer.get(index);
+                if (e == null) {
+                    // the writer claimed the slot but has not published the element yet
+                    break;
+                }
+                buffer.lazySet(index, null);
+                consumer.accept(e);
+                head++;
+            }
+            readCounter = head;
+        }
+    }
+}
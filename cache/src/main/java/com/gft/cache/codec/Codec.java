@@ -0,0 +1,11 @@
+package com.gft.cache.codec;
+
+/**
+ * Turns keys or values into bytes for caches keeping them outside the Java heap.
+ */
+public interface Codec<T> {
+
+    byte[] encode(T value);
+
+    T decode(byte[] bytes);
+}
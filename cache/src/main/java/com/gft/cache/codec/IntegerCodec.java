@@ -0,0 +1,17 @@
+package com.gft.cache.codec;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Integers as 4 big-endian bytes.
+ */
+public class IntegerCodec implements Codec<Integer> {
+
+    public byte[] encode(Integer value) {
+        return ByteBuffer.allocate(4).putInt(value).array();
+    }
+
+    public Integer decode(byte[] bytes) {
+        return ByteBuffer.wrap(bytes).getInt();
+    }
+}
@@ -0,0 +1,17 @@
+package com.gft.cache.codec;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Longs as 8 big-endian bytes.
+ */
+public class LongCodec implements Codec<Long> {
+
+    public byte[] encode(Long value) {
+        return ByteBuffer.allocate(8).putLong(value).array();
+    }
+
+    public Long decode(byte[] bytes) {
+        return ByteBuffer.wrap(bytes).getLong();
+    }
+}
@@ -0,0 +1,17 @@
+package com.gft.cache.codec;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * UTF-8 encoded strings.
+ */
+public class StringCodec implements Codec<String> {
+
+    public byte[] encode(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    public String decode(byte[] bytes) {
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
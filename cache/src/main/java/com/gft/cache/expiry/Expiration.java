@@ -0,0 +1,52 @@
+package com.gft.cache.expiry;
+
+/**
+ * Computes entry deadlines from the expire-after-write and expire-after-access durations.
+ */
+public final class Expiration {
+
+    private final long afterWriteNanos;
+
+    private final long afterAccessNanos;
+
+    /**
+     * @param afterWriteNanos  duration or -1 when disabled
+     * @param afterAccessNanos duration or -1 when disabled
+     */
+    public Expiration(long afterWriteNanos, long afterAccessNanos) {
+        this.afterWriteNanos = afterWriteNanos;
+        this.afterAccessNanos = afterAccessNanos;
+    }
+
+    public boolean isEnabled() {
+        return afterWriteNanos >= 0 || afterAccessNanos >= 0;
+    }
+
+    public boolean isRefreshedOnAccess() {
+        return afterAccessNanos >= 0;
+    }
+
+    public long deadlineAfterWrite(long now) {
+        return deadline(now, now);
+    }
+
+    public long deadlineAfterAccess(long writeTime, long now) {
+        return deadline(writeTime, now);
+    }
+
+    public static boolean isExpired(long deadline, long now) {
+        return deadline - now <= 0;
+    }
+
+    private long deadline(long writeTime, long accessTime) {
+        if (afterAccessNanos < 0) {
+            return writeTime + afterWriteNanos;
+        }
+        if (afterWriteNanos < 0) {
+            return accessTime + afterAccessNanos;
+        }
+        long byWrite = writeTime + afterWriteNanos;
+        long byAccess = accessTime + afterAccessNanos;
+        return byWrite - byAccess < 0 ? byWrite : byAccess;
+    }
+}
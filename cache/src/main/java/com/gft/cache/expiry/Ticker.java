@@ -0,0 +1,16 @@
+package com.gft.cache.expiry;
+
+/**
+ * Source of nanosecond time for expiry, replaceable in tests.
+ */
+public interface Ticker {
+
+    Ticker SYSTEM = System::nanoTime;
+
+    /**
+     * Always 0, for timings that are switched off.
+     */
+    Ticker DISABLED = () -> 0L;
+
+    long read();
+}
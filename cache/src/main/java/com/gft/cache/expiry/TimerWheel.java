@@ -0,0 +1,168 @@
+package com.gft.cache.expiry;
+
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel reclaiming expired entries in amortized O(1).
+ * <p>
+ * Entries are hashed into buckets by their deadline: the first wheel has 64 buckets of ~1 second,
+ * the next ones cover ~1 minute, ~1 hour and ~1 day per bucket, the last one catches everything
+ * further away. {@link #advance(long, Consumer)} only visits the buckets whose time has come;
+ * entries found there that are not due yet, because they were scheduled on a coarser wheel or
+ * their deadline moved forward, are simply rescheduled. Deadlines may therefore be pushed back
+ * without touching the wheel.
+ * <p>
+ * Not thread safe, the owning cache has to guard every call with its own lock.
+ */
+public class TimerWheel<N extends TimerWheel.Node> {
+
+    private static final int[] BUCKETS = {64, 64, 32, 4, 1};
+
+    private static final long[] SPANS = {
+            1L << 30, // ~1.07 seconds
+            1L << 36, // ~1.14 minutes
+            1L << 42, // ~1.22 hours
+            1L << 47, // ~1.63 days
+            1L << 49, // ~6.5 days
+    };
+
+    private static final int[] SHIFT = {30, 36, 42, 47, 49};
+
+    private final Node[][] wheel;
+
+    private final long origin;
+
+    private long time;
+
+    public TimerWheel(long now) {
+        origin = now;
+        wheel = new Node[BUCKETS.length][];
+        for (int i = 0; i < wheel.length; i++) {
+            wheel[i] = new Node[BUCKETS[i]];
+            for (int j = 0; j < wheel[i].length; j++) {
+                wheel[i][j] = new Sentinel();
+            }
+        }
+    }
+
+    /**
+     * Links the node by its current {@link Node#getExpiresAt() deadline}.
+     */
+    public void schedule(N entry) {
+        Node node = entry;
+        Node sentinel = findBucket(node.getExpiresAt() - origin);
+        Node last = sentinel.prevInTimer;
+        node.prevInTimer = last;
+        node.nextInTimer = sentinel;
+        last.nextInTimer = node;
+        sentinel.prevInTimer = node;
+    }
+
+    public void reschedule(N entry) {
+        deschedule(entry);
+        schedule(entry);
+    }
+
+    public void deschedule(N entry) {
+        Node node = entry;
+        if (node.nextInTimer != null) {
+            unlink(node);
+        }
+    }
+
+    /**
+     * Moves the wheel to {@code now} and hands every node whose deadline passed, already
+     * unlinked, to {@code onExpired}.
+     */
+    @SuppressWarnings("unchecked")
+    public void advance(long now, Consumer<? super N> onExpired) {
+        long previous = time;
+        time = now - origin;
+        for (int i = 0; i < SHIFT.length; i++) {
+            long previousTicks = previous >>> SHIFT[i];
+            long currentTicks = time >>> SHIFT[i];
+            long delta = currentTicks - previousTicks;
+            if (delta <= 0) {
+                break;
+            }
+            expire(i, previousTicks, delta, (Consumer<Node>) onExpired);
+        }
+    }
+
+    private void expire(int level, long previousTicks, long delta, Consumer<Node> onExpired) {
+        Node[] buckets = wheel[level];
+        int mask = buckets.length - 1;
+        int steps = (int) Math.min(1 + delta, buckets.length);
+        int start = (int) (previousTicks & mask);
+        for (int i = start; i < start + steps; i++) {
+            Node sentinel = buckets[i & mask];
+            Node node = sentinel.nextInTimer;
+            sentinel.prevInTimer = sentinel;
+            sentinel.nextInTimer = sentinel;
+            while (node != sentinel) {
+                Node next = node.nextInTimer;
+                node.prevInTimer = null;
+                node.nextInTimer = null;
+                if (node.getExpiresAt() - origin <= time) {
+                    onExpired.accept(node);
+                } else {
+                    Node target = findBucket(node.getExpiresAt() - origin);
+                    Node last = target.prevInTimer;
+                    node.prevInTimer = last;
+                    node.nextInTimer = target;
+                    last.nextInTimer = node;
+                    target.prevInTimer = node;
+                }
+                node = next;
+            }
+        }
+    }
+
+    private Node findBucket(long deadline) {
+        long duration = Math.max(0, deadline - time);
+        int last = BUCKETS.length - 1;
+        for (int i = 0; i < last; i++) {
+            if (duration < SPANS[i + 1]) {
+                long ticks = Math.max(deadline, time) >>> SHIFT[i];
+                return wheel[i][(int) (ticks & (BUCKETS[i] - 1))];
+            }
+        }
+        return wheel[last][0];
+    }
+
+    private static void unlink(Node node) {
+        node.prevInTimer.nextInTimer = node.nextInTimer;
+        node.nextInTimer.prevInTimer = node.prevInTimer;
+        node.prevInTimer = null;
+        node.nextInTimer = null;
+    }
+
+    /**
+     * Entry that can be scheduled on a {@link TimerWheel}. The deadline may be moved by any
+     * thread, the links are owned by the wheel.
+     */
+    public abstract static class Node {
+
+        private volatile long expiresAt;
+
+        private Node prevInTimer;
+
+        private Node nextInTimer;
+
+        public long getExpiresAt() {
+            return expiresAt;
+        }
+
+        public void setExpiresAt(long expiresAt) {
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private static final class Sentinel extends Node {
+        Sentinel() {
+            Node self = this;
+            self.prevInTimer = this;
+            self.nextInTimer = this;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.gft.cache.lfu;
+
+
+/**
+ * Node of the {@link FrequencyList} holding every entry that was used exactly {@code frequency} times.
+ * The entries are linked through the {@link ValueHolder}s themselves, oldest first, so adding,
+ * removing and polling never allocate.
+ */
+public class Frequency<K, V> {
+
+    private int frequency;
+    private ValueHolder<K, V> head;
+    private ValueHolder<K, V> tail;
+    private Frequency<K, V> nextFrequency;
+    private Frequency<K, V> prevFrequency;
+
+    public Frequency(int frequency, Frequency<K, V> prevFrequency, Frequency<K, V> nextFrequency) {
+        this.frequency = frequency;
+        this.prevFrequency = prevFrequency;
+
+        this.nextFrequency = nextFrequency;
+
+        if (prevFrequency != null) {
+            prevFrequency.setNextFrequency(this);
+        }
+        if (nextFrequency != null) {
+            nextFrequency.setPrevFrequency(this);
+        }
+
+    }
+
+
+    public boolean isEmpty() {
+        return head == null;
+    }
+
+    public void add(ValueHolder<K, V> valueHolder) {
+        valueHolder.prevInFrequency = tail;
+        valueHolder.nextInFrequency = null;
+        if (tail == null) {
+            head = valueHolder;
+        } else {
+            tail.nextInFrequency = valueHolder;
+        }
+        tail = valueHolder;
+    }
+
+    public void remove(ValueHolder<K, V> valueHolder) {
+        ValueHolder<K, V> prev = valueHolder.prevInFrequency;
+        ValueHolder<K, V> next = valueHolder.nextInFrequency;
+        if (prev == null) {
+            head = next;
+        } else {
+            prev.nextInFrequency = next;
+        }
+        if (next == null) {
+            tail = prev;
+        } else {
+            next.prevInFrequency = prev;
+        }
+        valueHolder.prevInFrequency = null;
+        valueHolder.nextInFrequency = null;
+    }
+
+    public Frequency<K, V> getNextFrequency() {
+        return nextFrequency;
+    }
+
+    public void setNextFrequency(Frequency<K, V> nextFrequency) {
+        this.nextFrequency = nextFrequency;
+    }
+
+    public int getFrequency() {
+        return frequency;
+    }
+
+    void setFrequency(int frequency) {
+        this.frequency = frequency;
+    }
+
+    Frequency<K, V> getPrevFrequency() {
+        return prevFrequency;
+    }
+
+    ValueHolder<K, V> peek() {
+        return head;
+    }
+
+    public void setPrevFrequency(Frequency<K, V> prevFrequency) {
+        this.prevFrequency = prevFrequency;
+    }
+
+    public Frequency<K, V> removeNode() {
+        if (nextFrequency != null) {
+            nextFrequency.setPrevFrequency(prevFrequency);
+        }
+        if (prevFrequency != null) {
+            prevFrequency.setNextFrequency(nextFrequency);
+        }
+        return nextFrequency;
+    }
+
+    /**
+     * Removes the oldest entry of this frequency.
+     *
+     * @return the removed entry or null when the node is empty
+     */
+    public ValueHolder<K, V> poll() {
+        ValueHolder<K, V> value = head;
+        if (value == null) {
+            return null;
+        }
+        remove(value);
+        value.deleted();
+        return value;
+    }
+}
@@ -0,0 +1,10 @@
+package com.gft.cache.lfu;
+
+/**
+ * Receives the entries of an {@link LFUCache} together with the number of recorded hits.
+ */
+@FunctionalInterface
+public interface FrequencyConsumer<K, V> {
+
+    void accept(K key, V value, int frequency);
+}
@@ -0,0 +1,201 @@
+package com.gft.cache.lfu;
+
+import java.util.function.Consumer;
+
+/**
+ * Ascending list of {@link Frequency} nodes giving O(1) promotion and eviction.
+ * <p>
+ * Counts can be aged: {@link #startAging()} begins halving every frequency and {@link #age(int)}
+ * carries that pass on a bounded number of steps at a time, walking the list from the least
+ * used node. Nodes not reached yet keep their old count, so the order stays approximate
+ * until the pass completes.
+ * <p>
+ * Not thread safe, the owning cache has to guard every call with its own lock.
+ */
+public class FrequencyList<K, V> {
+
+
+    private Frequency<K, V> firstFrequency = null;
+
+    private Frequency<K, V> agingCursor = null;
+
+    private boolean aging;
+
+    private Frequency<K, V> insertionHint = null;
+
+    public void moveToNextFrequency(ValueHolder<K, V> valueHolder) {
+        if (valueHolder.getDeleted()) {
+            return;
+        }
+        Frequency<K, V> oldFrequency = valueHolder.getFrequencyObject();
+        valueHolder.increaseFrequency();
+        if (oldFrequency.isEmpty()) {
+            unlink(oldFrequency);
+        }
+
+
+    }
+
+    public void addToFrequencyList(ValueHolder<K, V> valueHolder) {
+        if (valueHolder.getFrequencyObject() != null) {
+
+            throw new IllegalStateException("Adding to Frequency but " + valueHolder.getFrequency());
+        }
+
+        if (firstFrequency == null || firstFrequency.getFrequency() != 0) {
+
+            firstFrequency = new Frequency<>(0, null, firstFrequency);
+
+        }
+
+        valueHolder.setZeroFrequency(firstFrequency);
+
+    }
+
+
+    /**
+     * Adds a new entry with a known frequency, used when restoring a snapshot. The walk starts at the
+     * node used by the previous call unless it is past the new frequency, so entries sorted by
+     * frequency in either direction only touch a node or two each.
+     */
+    public void addToFrequencyList(ValueHolder<K, V> valueHolder, int frequency) {
+        if (valueHolder.getFrequencyObject() != null) {
+
+            throw new IllegalStateException("Adding to Frequency but " + valueHolder.getFrequency());
+        }
+
+        Frequency<K, V> prev = null;
+        Frequency<K, V> current = firstFrequency;
+        if (insertionHint != null && insertionHint.getFrequency() <= frequency) {
+            prev = insertionHint.getPrevFrequency();
+            current = insertionHint;
+        }
+        while (current != null && current.getFrequency() < frequency) {
+            prev = current;
+            current = current.getNextFrequency();
+        }
+        if (current == null || current.getFrequency() != frequency) {
+            current = new Frequency<K, V>(frequency, prev, current);
+            if (prev == null) {
+                firstFrequency = current;
+            }
+        }
+        valueHolder.setZeroFrequency(current);
+        insertionHint = current;
+    }
+
+    /**
+     * @return the frequency of the least frequently used entry or -1 when the list is empty
+     */
+    public int leastFrequency() {
+        return firstFrequency == null ? -1 : firstFrequency.getFrequency();
+    }
+
+    /**
+     * Visits every entry, least frequently used first.
+     */
+    public void forEach(Consumer<ValueHolder<K, V>> consumer) {
+        for (Frequency<K, V> frequency = firstFrequency; frequency != null; frequency = frequency.getNextFrequency()) {
+            for (ValueHolder<K, V> holder = frequency.peek(); holder != null; holder = holder.nextInFrequency) {
+                consumer.accept(holder);
+            }
+        }
+    }
+
+    /**
+     * @return the least frequently used entry, marked as deleted, or null when the list is empty
+     */
+    public ValueHolder<K, V> pollLeastUsed() {
+        if (firstFrequency == null) {
+            return null;
+        }
+
+        ValueHolder<K, V> value = firstFrequency.poll();
+
+        if (firstFrequency.isEmpty()) {
+
+            unlink(firstFrequency);
+
+        }
+        return value;
+
+    }
+
+    public void remove(ValueHolder<K, V> valueHolder) {
+        if (valueHolder.getDeleted()) {
+            return;
+        }
+        Frequency<K, V> frequency = valueHolder.getFrequencyObject();
+        frequency.remove(valueHolder);
+        valueHolder.deleted();
+
+        if (frequency.isEmpty()) {
+            unlink(frequency);
+        }
+
+
+    }
+
+    /**
+     * Starts halving every frequency, unless the previous pass is still running.
+     */
+    public void startAging() {
+        if (!aging && firstFrequency != null) {
+            aging = true;
+            agingCursor = firstFrequency;
+        }
+    }
+
+    public boolean isAging() {
+        return aging;
+    }
+
+    /**
+     * Carries the aging pass on. A step either relabels a whole node or moves a single entry
+     * into the node below, when both end up with the same count.
+     *
+     * @param maxSteps upper bound of the work done by this call
+     */
+    public void age(int maxSteps) {
+        int steps = 0;
+        while (aging && steps < maxSteps) {
+            Frequency<K, V> frequency = agingCursor;
+            if (frequency == null) {
+                aging = false;
+                return;
+            }
+            int halved = frequency.getFrequency() >>> 1;
+            Frequency<K, V> prev = frequency.getPrevFrequency();
+            if (prev == null || prev.getFrequency() < halved) {
+                frequency.setFrequency(halved);
+                agingCursor = frequency.getNextFrequency();
+                steps++;
+                continue;
+            }
+            // entries promoted during the pass may already sit at or above the halved count,
+            // merging into them keeps the list ascending
+            while (!frequency.isEmpty() && steps < maxSteps) {
+                frequency.peek().moveTo(prev);
+                steps++;
+            }
+            if (frequency.isEmpty()) {
+                unlink(frequency);
+            }
+        }
+    }
+
+    private void unlink(Frequency<K, V> frequency) {
+        Frequency<K, V> next = frequency.removeNode();
+        if (frequency == firstFrequency) {
+            firstFrequency = next;
+        }
+        if (frequency == agingCursor) {
+            agingCursor = next;
+        }
+        if (frequency == insertionHint) {
+            insertionHint = null;
+        }
+    }
+
+
+}
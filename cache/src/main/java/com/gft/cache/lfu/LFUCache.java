@@ -0,0 +1,596 @@
+package com.gft.cache.lfu;
+
+import com.gft.cache.Cache;
+import com.gft.cache.CacheBuilder;
+import com.gft.cache.CacheWriter;
+import com.gft.cache.RemovalCause;
+import com.gft.cache.RemovalNotifier;
+import com.gft.cache.Weigher;
+import com.gft.cache.WriteLocks;
+import com.gft.cache.buffered.ReadBuffer;
+import com.gft.cache.expiry.Expiration;
+import com.gft.cache.expiry.Ticker;
+import com.gft.cache.expiry.TimerWheel;
+import com.gft.cache.stats.CacheOperation;
+import com.gft.cache.stats.CacheStats;
+import com.gft.cache.stats.StatsCounter;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Thread safe LFUCache
+ * <p>
+ * Entries are indexed by a {@link ConcurrentHashMap}, so {@link #get(Object)} never blocks.
+ * A hit only records its entry in a striped {@link ReadBuffer}; the promotions are replayed
+ * into the {@link FrequencyList} in batches by whichever thread holds the eviction lock.
+ * Writes take the eviction lock, so the map and the frequency list always agree on the
+ * entries they hold.
+ * <p>
+ * With a positive {@code agingPeriod} all frequencies are halved every {@code agingPeriod}
+ * recorded hits, so keys that were hot long ago stop pinning the cache. The halving is
+ * spread over the following maintenance cycles, a few nodes at a time.
+ * <p>
+ * The capacity is either a number of entries or a total weight computed by a {@link Weigher};
+ * the least frequently used entries are evicted until the newcomer fits.
+ * <p>
+ * Expired entries are never returned. They are reclaimed by a {@link TimerWheel} advanced
+ * during maintenance, until then they still count towards {@link #size()}.
+ * <p>
+ * Removals are collected under the eviction lock and handed to the {@link com.gft.cache.RemovalListener}
+ * configured on the {@link CacheBuilder} once the lock is released. Puts and explicit removals
+ * are passed to its {@link CacheWriter} before the lock is taken, ordered per key by {@link WriteLocks}.
+ * <p>
+ * With {@link CacheBuilder#recordStats()} hits, misses, evictions and the latency of every
+ * operation, waiting for the eviction lock included, are available from {@link #stats()}.
+ */
+public class LFUCache<K, V> implements Cache<K, V> {
+
+    private static final int AGING_STEPS_PER_CYCLE = 64;
+
+    private final long maximumWeight;
+
+    private final Weigher<K, V> weigher;
+
+    private long totalWeight;
+
+    private final int agingPeriod;
+
+    private int hitsSinceAging;
+
+    private final Expiration expiration;
+
+    private final Ticker ticker;
+
+    private final TimerWheel<ValueHolder<K, V>> timerWheel;
+
+    private final ConcurrentHashMap<K, ValueHolder<K, V>> cacheMap;
+
+    private final FrequencyList<K, V> frequencyList = new FrequencyList<K, V>();
+
+    private final ReadBuffer<ValueHolder<K, V>> readBuffer = new ReadBuffer<ValueHolder<K, V>>();
+
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    private final RemovalNotifier<K, V> removalNotifier;
+
+    private final CacheWriter<K, V> writer;
+
+    private final WriteLocks writeLocks;
+
+    private final StatsCounter statsCounter;
+
+    private final Ticker statsTicker;
+
+    public LFUCache(int maxSize) {
+        this(maxSize, 0);
+    }
+
+    /**
+     * @param agingPeriod number of recorded hits after which every frequency is halved, 0 disables aging
+     */
+    public LFUCache(int maxSize, int agingPeriod) {
+        this(CacheBuilder.<K, V>newBuilder().maximumSize(maxSize).agingPeriod(agingPeriod));
+    }
+
+    public LFUCache(CacheBuilder<K, V> builder) {
+        this.maximumWeight = builder.getMaximumWeight();
+        this.weigher = builder.getWeigher();
+        this.agingPeriod = builder.getAgingPeriod();
+        this.expiration = new Expiration(builder.getExpireAfterWriteNanos(), builder.getExpireAfterAccessNanos());
+        this.ticker = builder.getTicker();
+        this.timerWheel = expiration.isEnabled() ? new TimerWheel<ValueHolder<K, V>>(ticker.read()) : null;
+        this.removalNotifier = builder.getRemovalNotifier();
+        this.writer = builder.getWriter();
+        this.writeLocks = builder.getWriteLocks();
+        this.statsCounter = builder.getStatsCounter();
+        this.statsTicker = statsCounter.isEnabled() ? Ticker.SYSTEM : Ticker.DISABLED;
+        cacheMap = new ConcurrentHashMap<>(builder.getInitialCapacity());
+    }
+
+    public void put(final K key, final V value) {
+        long start = statsTicker.read();
+        writeLocks.lock(key);
+        try {
+            writer.write(key, value);
+            lock();
+            try {
+                maintenance();
+                putLocked(key, value);
+            } finally {
+                unlock();
+            }
+        } finally {
+            writeLocks.unlock(key);
+        }
+        statsCounter.recordLatency(CacheOperation.PUT, statsTicker.read() - start);
+    }
+
+    public V get(final K key) {
+        long start = statsTicker.read();
+        V value = getIfLive(key);
+        if (value == null) {
+            statsCounter.recordMisses(1);
+        } else {
+            statsCounter.recordHits(1);
+        }
+        statsCounter.recordLatency(CacheOperation.GET, statsTicker.read() - start);
+        return value;
+    }
+
+    private V getIfLive(final K key) {
+        ValueHolder<K, V> valueHolder = cacheMap.get(key);
+        if (valueHolder == null) {
+            return null;
+        }
+        if (expiredOnRead(valueHolder)) {
+            tryMaintenance();
+            return null;
+        }
+        if (readBuffer.offer(valueHolder) != ReadBuffer.SUCCESS) {
+            tryMaintenance();
+        }
+        return valueHolder.getValue();
+    }
+
+    /**
+     * Looks the keys up without locking and records all hits in one maintenance cycle.
+     * When another thread is busy maintaining, the hits go through the read buffer instead.
+     */
+    public Map<K, V> getAll(Iterable<? extends K> keys) {
+        long start = statsTicker.read();
+        Map<K, V> result = new LinkedHashMap<K, V>();
+        List<ValueHolder<K, V>> hits = new ArrayList<ValueHolder<K, V>>();
+        int lookups = 0;
+        for (K key : keys) {
+            lookups++;
+            ValueHolder<K, V> valueHolder = cacheMap.get(key);
+            if (valueHolder != null && !expiredOnRead(valueHolder)) {
+                hits.add(valueHolder);
+                result.put(key, valueHolder.getValue());
+            }
+        }
+        if (evictionLock.tryLock()) {
+            try {
+                for (ValueHolder<K, V> hit : hits) {
+                    recordHit(hit);
+                }
+                maintenance();
+            } finally {
+                unlock();
+            }
+        } else {
+            for (ValueHolder<K, V> hit : hits) {
+                readBuffer.offer(hit);
+            }
+        }
+        statsCounter.recordHits(hits.size());
+        statsCounter.recordMisses(lookups - hits.size());
+        statsCounter.recordLatency(CacheOperation.GET, statsTicker.read() - start);
+        return result;
+    }
+
+    public void putAll(Map<? extends K, ? extends V> entries) {
+        long start = statsTicker.read();
+        long stripes = writeLocks.lockAll(entries.keySet());
+        try {
+            writer.writeAll(entries);
+            lock();
+            try {
+                maintenance();
+                for (Map.Entry<? extends K, ? extends V> entry : entries.entrySet()) {
+                    putLocked(entry.getKey(), entry.getValue());
+                }
+            } finally {
+                unlock();
+            }
+        } finally {
+            writeLocks.unlockAll(stripes);
+        }
+        statsCounter.recordLatency(CacheOperation.PUT, statsTicker.read() - start);
+    }
+
+    public void evictAll(Iterable<? extends K> keys) {
+        List<K> keyList = new ArrayList<K>();
+        for (K key : keys) {
+            keyList.add(key);
+        }
+        long start = statsTicker.read();
+        long stripes = writeLocks.lockAll(keyList);
+        try {
+            writer.deleteAll(keyList);
+            lock();
+            try {
+                for (K key : keyList) {
+                    evictLocked(key);
+                }
+            } finally {
+                unlock();
+            }
+        } finally {
+            writeLocks.unlockAll(stripes);
+        }
+        statsCounter.recordLatency(CacheOperation.REMOVE, statsTicker.read() - start);
+    }
+
+    public int size() {
+        return cacheMap.size();
+    }
+
+    /**
+     * @return the total weight of the entries, their number when no {@link Weigher} is configured
+     */
+    public long weightedSize() {
+        lock();
+        try {
+            return totalWeight;
+        } finally {
+            unlock();
+        }
+    }
+
+
+    public void evict(final K key) {
+        long start = statsTicker.read();
+        writeLocks.lock(key);
+        try {
+            writer.delete(key);
+            lock();
+            try {
+                evictLocked(key);
+            } finally {
+                unlock();
+            }
+        } finally {
+            writeLocks.unlock(key);
+        }
+        statsCounter.recordLatency(CacheOperation.REMOVE, statsTicker.read() - start);
+    }
+
+    /**
+     * @return the counters recorded so far, all 0 unless {@link CacheBuilder#recordStats()} was set
+     */
+    public CacheStats stats() {
+        return statsCounter.snapshot();
+    }
+
+    /**
+     * @return the live counters, e.g. to publish them with {@link com.gft.cache.stats.CacheStatsMBeans}
+     */
+    public StatsCounter statsCounter() {
+        return statsCounter;
+    }
+
+    /**
+     * Replays the buffered reads and reclaims expired entries right away instead of on the next write.
+     */
+    public void cleanUp() {
+        lock();
+        try {
+            maintenance();
+        } finally {
+            unlock();
+        }
+    }
+
+    /**
+     * Visits the live entries, most frequently used first. The entries are copied under the
+     * eviction lock and visited after it is released, so a slow consumer never blocks writers.
+     */
+    public void forEachByFrequency(FrequencyConsumer<K, V> consumer) {
+        List<ValueHolder<K, V>> holders = new ArrayList<ValueHolder<K, V>>(cacheMap.size());
+        List<Integer> frequencies = new ArrayList<Integer>(cacheMap.size());
+        lock();
+        try {
+            maintenance();
+            frequencyList.forEach(holder -> {
+                holders.add(holder);
+                frequencies.add(holder.getFrequency());
+            });
+        } finally {
+            unlock();
+        }
+        long now = ticker.read();
+        for (int i = holders.size() - 1; i >= 0; i--) {
+            ValueHolder<K, V> holder = holders.get(i);
+            if (timerWheel == null || !Expiration.isExpired(holder.getExpiresAt(), now)) {
+                consumer.accept(holder.getKey(), holder.getValue(), frequencies.get(i));
+            }
+        }
+    }
+
+    /**
+     * Adds an entry that already earned {@code frequency} hits, e.g. one restored from a snapshot.
+     * Keys that are already cached keep their current value, and when the cache is full the entry
+     * is only added if it is used more often than the least frequently used one.
+     * The expiration deadline starts over from now. The entry is not passed to the {@link CacheWriter}.
+     *
+     * @return whether the entry was added
+     */
+    public boolean putWithFrequency(final K key, final V value, final int frequency) {
+        if (frequency < 0) {
+            throw new IllegalArgumentException("Negative frequency " + frequency + " for " + key);
+        }
+        lock();
+        try {
+            maintenance();
+            if (cacheMap.containsKey(key)) {
+                return false;
+            }
+            int weight = weigh(key, value);
+            if (weight > maximumWeight) {
+                return false;
+            }
+            if (totalWeight + weight > maximumWeight && frequencyList.leastFrequency() >= frequency) {
+                return false;
+            }
+            while (totalWeight + weight > maximumWeight) {
+                evictLeastFrequentUsed();
+            }
+            ValueHolder<K, V> holder = new ValueHolder<K, V>(key, value);
+            holder.setWeight(weight);
+            totalWeight += weight;
+            frequencyList.addToFrequencyList(holder, frequency);
+            if (timerWheel != null) {
+                setWriteDeadline(holder);
+                timerWheel.schedule(holder);
+            }
+            cacheMap.put(key, holder);
+            return true;
+        } finally {
+            unlock();
+        }
+    }
+
+    /**
+     * Adds the entry unless the key is already cached.
+     *
+     * @return the cached value, null when the entry was added
+     */
+    public V putIfAbsent(final K key, final V value) {
+        writeLocks.lock(key);
+        try {
+            lock();
+            try {
+                maintenance();
+                ValueHolder<K, V> holder = cacheMap.get(key);
+                if (holder != null && !isExpired(holder)) {
+                    return holder.getValue();
+                }
+            } finally {
+                unlock();
+            }
+            // no put or evict of the key can slip in while its write lock is held
+            writer.write(key, value);
+            lock();
+            try {
+                putLocked(key, value);
+                return null;
+            } finally {
+                unlock();
+            }
+        } finally {
+            writeLocks.unlock(key);
+        }
+    }
+
+    /**
+     * Like {@link #putIfAbsent} but the entry is not passed to the {@link CacheWriter}, for values
+     * the store has already, like ones coming back from another tier of a subclass.
+     *
+     * @return the cached value, null when the entry was added
+     */
+    protected V putIfAbsentUnwritten(final K key, final V value) {
+        lock();
+        try {
+            maintenance();
+            ValueHolder<K, V> holder = cacheMap.get(key);
+            if (holder != null && !isExpired(holder)) {
+                return holder.getValue();
+            }
+            putLocked(key, value);
+            return null;
+        } finally {
+            unlock();
+        }
+    }
+
+    /**
+     * Called for every entry evicted to make room, while the eviction lock is held, so it must not block;
+     * anything slow, like I/O, belongs after the call that caused the eviction returns.
+     * Removed and expired entries are not reported.
+     */
+    protected void onEviction(K key, V value) {
+    }
+
+    private void putLocked(final K key, final V value) {
+        int weight = weigh(key, value);
+        ValueHolder<K, V> holder = cacheMap.get(key);
+        if (holder != null) {
+            removalNotifier.record(key, holder.getValue(), isExpired(holder) ? RemovalCause.EXPIRED : RemovalCause.REPLACED);
+            if (weight > maximumWeight) {
+                // the new value is not kept, and the old one must not outlive the put
+                cacheMap.remove(key);
+                removeHolder(holder);
+                return;
+            }
+            holder.setValue(value);
+            totalWeight += weight - holder.getWeight();
+            holder.setWeight(weight);
+            if (timerWheel != null) {
+                setWriteDeadline(holder);
+                timerWheel.reschedule(holder);
+            }
+            while (totalWeight > maximumWeight) {
+                evictLeastFrequentUsed();
+            }
+            return;
+        }
+        if (weight > maximumWeight) {
+            // would push everything else out and still not fit
+            return;
+        }
+
+        while (totalWeight + weight > maximumWeight) {
+            evictLeastFrequentUsed();
+        }
+
+        holder = new ValueHolder<K, V>(key, value);
+        holder.setWeight(weight);
+        totalWeight += weight;
+        // linked into the frequency list before it is published, readers never see a half built entry
+        frequencyList.addToFrequencyList(holder);
+        if (timerWheel != null) {
+            setWriteDeadline(holder);
+            timerWheel.schedule(holder);
+        }
+        cacheMap.put(key, holder);
+    }
+
+    private void evictLocked(final K key) {
+        ValueHolder<K, V> holder = cacheMap.remove(key);
+        if (holder != null) {
+            removeHolder(holder);
+            removalNotifier.record(key, holder.getValue(), RemovalCause.EXPLICIT);
+        }
+    }
+
+    /**
+     * Checks the deadline of an entry that was just read and pushes it back when it expires after access.
+     */
+    private boolean expiredOnRead(ValueHolder<K, V> valueHolder) {
+        if (timerWheel == null) {
+            return false;
+        }
+        long now = ticker.read();
+        if (Expiration.isExpired(valueHolder.getExpiresAt(), now)) {
+            return true;
+        }
+        if (expiration.isRefreshedOnAccess()) {
+            // the wheel notices the later deadline when it reaches the old one
+            valueHolder.setExpiresAt(expiration.deadlineAfterAccess(valueHolder.getWriteTime(), now));
+        }
+        return false;
+    }
+
+    private boolean isExpired(ValueHolder<K, V> holder) {
+        return timerWheel != null && Expiration.isExpired(holder.getExpiresAt(), ticker.read());
+    }
+
+    private void evictLeastFrequentUsed() {
+        ValueHolder<K, V> victim = frequencyList.pollLeastUsed();
+        cacheMap.remove(victim.getKey());
+        totalWeight -= victim.getWeight();
+        if (timerWheel != null) {
+            timerWheel.deschedule(victim);
+        }
+        onEviction(victim.getKey(), victim.getValue());
+        removalNotifier.record(victim.getKey(), victim.getValue(), RemovalCause.SIZE);
+        statsCounter.recordEviction();
+    }
+
+    private void removeHolder(ValueHolder<K, V> holder) {
+        frequencyList.remove(holder);
+        totalWeight -= holder.getWeight();
+        if (timerWheel != null) {
+            timerWheel.deschedule(holder);
+        }
+    }
+
+    private int weigh(K key, V value) {
+        int weight = weigher.weigh(key, value);
+        if (weight < 0) {
+            throw new IllegalArgumentException("Negative weight " + weight + " for " + key);
+        }
+        return weight;
+    }
+
+    private void setWriteDeadline(ValueHolder<K, V> holder) {
+        long now = ticker.read();
+        holder.setWriteTime(now);
+        holder.setExpiresAt(expiration.deadlineAfterWrite(now));
+    }
+
+    /**
+     * Takes the eviction lock and records how long that took.
+     *
+     * @return when the caller started waiting for the lock
+     */
+    private long lock() {
+        long start = statsTicker.read();
+        evictionLock.lock();
+        statsCounter.recordLatency(CacheOperation.LOCK_WAIT, statsTicker.read() - start);
+        return start;
+    }
+
+    /**
+     * Releases the eviction lock and hands the removals recorded under it to the listener.
+     */
+    private void unlock() {
+        List<RemovalNotifier.Notification<K, V>> notifications = removalNotifier.takePending();
+        evictionLock.unlock();
+        removalNotifier.dispatch(notifications);
+    }
+
+    private void tryMaintenance() {
+        if (evictionLock.tryLock()) {
+            try {
+                maintenance();
+            } finally {
+                unlock();
+            }
+        }
+    }
+
+    private void maintenance() {
+        readBuffer.drainTo(this::recordHit);
+        if (agingPeriod > 0 && hitsSinceAging >= agingPeriod) {
+            hitsSinceAging = 0;
+            frequencyList.startAging();
+        }
+        if (frequencyList.isAging()) {
+            frequencyList.age(AGING_STEPS_PER_CYCLE);
+        }
+        if (timerWheel != null) {
+            timerWheel.advance(ticker.read(), this::expire);
+        }
+    }
+
+    private void recordHit(ValueHolder<K, V> holder) {
+        // entries removed in the meantime are marked as deleted and skipped by the frequency list
+        frequencyList.moveToNextFrequency(holder);
+        hitsSinceAging++;
+    }
+
+    private void expire(ValueHolder<K, V> holder) {
+        cacheMap.remove(holder.getKey(), holder);
+        frequencyList.remove(holder);
+        totalWeight -= holder.getWeight();
+        removalNotifier.record(holder.getKey(), holder.getValue(), RemovalCause.EXPIRED);
+        statsCounter.recordEviction();
+    }
+}
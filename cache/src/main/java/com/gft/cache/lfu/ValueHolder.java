@@ -0,0 +1,105 @@
+package com.gft.cache.lfu;
+
+import com.gft.cache.expiry.TimerWheel;
+
+/**
+ * Cache entry. The value and the deadline may be read without locking, everything else is
+ * guarded by the lock of the cache owning the {@link FrequencyList}.
+ */
+public class ValueHolder<K, V> extends TimerWheel.Node {
+
+    private final K key;
+
+    private volatile V value;
+
+    private Frequency<K, V> frequencyObject;
+
+    private boolean deleted;
+
+    private long writeTime;
+
+    private int weight;
+
+    ValueHolder<K, V> prevInFrequency;
+
+    ValueHolder<K, V> nextInFrequency;
+
+    public ValueHolder(K key, V value) {
+
+        this.value = value;
+        this.key = key;
+    }
+
+
+    public V getValue() {
+        return value;
+    }
+
+    public void setValue(V value) {
+        this.value = value;
+    }
+
+    public K getKey() {
+        return key;
+    }
+
+    public int getWeight() {
+        return weight;
+    }
+
+    public void setWeight(int weight) {
+        this.weight = weight;
+    }
+
+    public long getWriteTime() {
+        return writeTime;
+    }
+
+    public void setWriteTime(long writeTime) {
+        this.writeTime = writeTime;
+    }
+
+    public Frequency<K, V> increaseFrequency() {
+
+        Frequency<K, V> nextFrequency = frequencyObject.getNextFrequency();
+        if (nextFrequency == null || nextFrequency.getFrequency() != frequencyObject.getFrequency() + 1) {
+            nextFrequency = new Frequency<K, V>(frequencyObject.getFrequency() + 1, frequencyObject, frequencyObject.getNextFrequency());
+
+        }
+        frequencyObject.remove(this);
+        nextFrequency.add(this);
+        frequencyObject = nextFrequency;
+        return frequencyObject;
+
+
+    }
+
+    public void setZeroFrequency(Frequency<K, V> frequency) {
+        frequencyObject = frequency;
+        frequencyObject.add(this);
+    }
+
+    void moveTo(Frequency<K, V> frequency) {
+        frequencyObject.remove(this);
+        frequency.add(this);
+        frequencyObject = frequency;
+    }
+
+    public Frequency<K, V> getFrequencyObject() {
+        return frequencyObject;
+    }
+
+    public int getFrequency() {
+        return frequencyObject.getFrequency();
+    }
+
+
+    public void deleted() {
+        deleted = true;
+        frequencyObject = null;
+    }
+
+    public boolean getDeleted() {
+        return deleted;
+    }
+}
@@ -0,0 +1,320 @@
+package com.gft.cache.loading;
+
+import com.gft.cache.Cache;
+import com.gft.cache.CacheLoader;
+import com.gft.cache.LoadingCache;
+import com.gft.cache.expiry.Ticker;
+import com.gft.cache.stats.CacheStats;
+import com.gft.cache.stats.StatsCounter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Thread safe {@link LoadingCache} on top of any {@link Cache}.
+ * <p>
+ * The first thread missing a key registers a future for it and runs the loader, every other
+ * thread missing the same key in the meantime waits for that future instead of loading again.
+ * A failed load is reported to all of them and nothing is cached. A {@link #put} or {@link #evict}
+ * of a key that is being loaded supersedes the load, whose value is then returned to the threads
+ * already waiting for it but not cached. A loader asking for the key it is loading fails with an
+ * {@link IllegalStateException} instead of waiting for itself.
+ * <p>
+ * Hits, misses and loads are counted by the optional {@link StatsCounter}; a thread waiting for
+ * another thread's load counts as a miss but not as a load.
+ */
+public class CoalescingLoadingCache<K, V> implements LoadingCache<K, V> {
+
+    private final Cache<K, V> cache;
+
+    private final CacheLoader<? super K, ? extends V> cacheLoader;
+
+    private final ConcurrentHashMap<K, Load<V>> loading = new ConcurrentHashMap<K, Load<V>>();
+
+    private final StatsCounter statsCounter;
+
+    private final Ticker statsTicker;
+
+    public CoalescingLoadingCache(Cache<K, V> cache, CacheLoader<? super K, ? extends V> cacheLoader) {
+        this(cache, cacheLoader, StatsCounter.disabled());
+    }
+
+    public CoalescingLoadingCache(Cache<K, V> cache, CacheLoader<? super K, ? extends V> cacheLoader, StatsCounter statsCounter) {
+        if (cache == null) {
+            throw new NullPointerException("cache");
+        }
+        if (cacheLoader == null) {
+            throw new NullPointerException("cacheLoader");
+        }
+        this.cache = cache;
+        this.cacheLoader = cacheLoader;
+        this.statsCounter = statsCounter;
+        this.statsTicker = statsCounter.isEnabled() ? Ticker.SYSTEM : Ticker.DISABLED;
+    }
+
+    public V get(K key) {
+        return get(key, this::loadWithCacheLoader);
+    }
+
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        V value = cache.get(key);
+        if (value != null) {
+            statsCounter.recordHits(1);
+            return value;
+        }
+        statsCounter.recordMisses(1);
+
+        Load<V> future = new Load<V>();
+        Load<V> inFlight = loading.putIfAbsent(key, future);
+        if (inFlight != null) {
+            return join(key, inFlight);
+        }
+        try {
+            // the previous load may have finished between the lookup and the registration
+            value = cache.get(key);
+            if (value == null) {
+                value = load(key, loader);
+                install(key, future, value);
+            }
+            future.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(key, future);
+        }
+    }
+
+    /**
+     * Misses already being loaded by other threads are waited for, the rest is loaded in one batch.
+     */
+    public Map<K, V> getAll(Iterable<? extends K> keys) {
+        // the keys are walked twice, which a one-shot Iterable would not allow
+        List<K> keyList = new ArrayList<K>();
+        for (K key : keys) {
+            keyList.add(key);
+        }
+        Map<K, V> result = cache.getAll(keyList);
+        Set<K> misses = new LinkedHashSet<K>();
+        for (K key : keyList) {
+            if (!result.containsKey(key)) {
+                misses.add(key);
+            }
+        }
+        statsCounter.recordHits(result.size());
+        statsCounter.recordMisses(misses.size());
+        if (misses.isEmpty()) {
+            return result;
+        }
+
+        Map<K, Load<V>> owned = new HashMap<K, Load<V>>();
+        Map<K, Load<V>> waiting = new HashMap<K, Load<V>>();
+        for (K key : misses) {
+            Load<V> future = new Load<V>();
+            Load<V> inFlight = loading.putIfAbsent(key, future);
+            if (inFlight == null) {
+                owned.put(key, future);
+            } else {
+                waiting.put(key, inFlight);
+            }
+        }
+
+        try {
+            if (!owned.isEmpty()) {
+                // the previous loads may have finished between the lookup and the registration
+                Map<K, V> loaded = cache.getAll(owned.keySet());
+                Set<K> toLoad = new LinkedHashSet<K>(owned.keySet());
+                toLoad.removeAll(loaded.keySet());
+                if (!toLoad.isEmpty()) {
+                    Map<K, V> fresh = loadAllWithCacheLoader(toLoad);
+                    for (Map.Entry<K, V> entry : fresh.entrySet()) {
+                        install(entry.getKey(), owned.get(entry.getKey()), entry.getValue());
+                    }
+                    loaded.putAll(fresh);
+                }
+                for (Map.Entry<K, Load<V>> entry : owned.entrySet()) {
+                    entry.getValue().complete(loaded.get(entry.getKey()));
+                }
+                result.putAll(loaded);
+            }
+        } catch (RuntimeException | Error e) {
+            for (Load<V> future : owned.values()) {
+                future.completeExceptionally(e);
+            }
+            throw e;
+        } finally {
+            for (Map.Entry<K, Load<V>> entry : owned.entrySet()) {
+                loading.remove(entry.getKey(), entry.getValue());
+            }
+        }
+
+        for (Map.Entry<K, Load<V>> entry : waiting.entrySet()) {
+            V value = join(entry.getKey(), entry.getValue());
+            if (value != null) {
+                result.put(entry.getKey(), value);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return the counters recorded so far, all 0 without a {@link StatsCounter}
+     */
+    public CacheStats stats() {
+        return statsCounter.snapshot();
+    }
+
+    public V getIfPresent(K key) {
+        return cache.get(key);
+    }
+
+    /**
+     * Supersedes a load of the key in flight, the threads waiting for it get this value.
+     */
+    public void put(K key, V value) {
+        // written before the load is detached, so a load registered afterwards finds the value on its second lookup
+        cache.put(key, value);
+        Load<V> load = loading.remove(key);
+        if (load != null) {
+            if (load.supersede()) {
+                // the load installed its older value between our write and the supersede
+                cache.put(key, value);
+            }
+            load.complete(value);
+        }
+    }
+
+    /**
+     * Supersedes a load of the key in flight, the next miss loads again.
+     */
+    public void evict(K key) {
+        cache.evict(key);
+        Load<V> load = loading.remove(key);
+        if (load != null && load.supersede()) {
+            cache.evict(key);
+        }
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    /**
+     * Caches a loaded value unless a put or evict superseded the load meanwhile.
+     */
+    private void install(K key, Load<V> load, V value) {
+        if (value == null) {
+            return;
+        }
+        load.lock.lock();
+        try {
+            if (!load.superseded) {
+                cache.put(key, value);
+                load.installed = true;
+            }
+        } finally {
+            load.lock.unlock();
+        }
+    }
+
+    private V load(K key, Function<? super K, ? extends V> loader) {
+        long start = statsTicker.read();
+        try {
+            V value = loader.apply(key);
+            statsCounter.recordLoadSuccess(statsTicker.read() - start);
+            return value;
+        } catch (RuntimeException | Error e) {
+            statsCounter.recordLoadFailure(statsTicker.read() - start);
+            throw e;
+        }
+    }
+
+    private V loadWithCacheLoader(K key) {
+        try {
+            return cacheLoader.load(key);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    /**
+     * @return the non null values the loader returned for the requested keys
+     */
+    private Map<K, V> loadAllWithCacheLoader(Set<K> keys) {
+        long start = statsTicker.read();
+        try {
+            Map<? super K, ? extends V> loaded = cacheLoader.loadAll(keys);
+            statsCounter.recordLoadSuccess(statsTicker.read() - start);
+            Map<K, V> result = new HashMap<K, V>();
+            for (K key : keys) {
+                V value = loaded.get(key);
+                if (value != null) {
+                    result.put(key, value);
+                }
+            }
+            return result;
+        } catch (RuntimeException e) {
+            statsCounter.recordLoadFailure(statsTicker.read() - start);
+            throw e;
+        } catch (Exception e) {
+            statsCounter.recordLoadFailure(statsTicker.read() - start);
+            throw new CompletionException(e);
+        }
+    }
+
+    private static <K, V> V join(K key, Load<V> future) {
+        if (future.loadingThread == Thread.currentThread()) {
+            throw new IllegalStateException("Recursive load of " + key);
+        }
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            // rethrow what the loading thread saw
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * A load in flight, remembering its thread to catch a loader asking for its own key.
+     * <p>
+     * Its lock orders the install of the loaded value against a put or evict superseding the
+     * load; only these two ever take it, and never while holding another lock of this class.
+     */
+    private static final class Load<V> extends CompletableFuture<V> {
+        private final Thread loadingThread = Thread.currentThread();
+        private final ReentrantLock lock = new ReentrantLock();
+        private boolean superseded;
+        private boolean installed;
+
+        /**
+         * @return whether the loaded value was cached already and has to be overwritten
+         */
+        boolean supersede() {
+            lock.lock();
+            try {
+                superseded = true;
+                return installed;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
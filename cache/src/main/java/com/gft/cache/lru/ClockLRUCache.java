@@ -0,0 +1,207 @@
+package com.gft.cache.lru;
+
+import com.gft.cache.Cache;
+
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Thread safe cache approximating LRU with the CLOCK (second chance) algorithm, built for
+ * workloads reading far more than they write.
+ * <p>
+ * A hit only sets the reference bit of the entry, it never reorders anything, so reads do not
+ * need the exclusive lock: a get probes the table inside an optimistic {@link StampedLock} read
+ * and only falls back to a read lock when a writer interfered. Puts and evictions take the write
+ * lock. When the cache is full the clock hand sweeps the table, clearing the reference bits it
+ * passes, and evicts the first entry whose bit was already clear, i.e. one not read since the
+ * hand last came by.
+ * <p>
+ * Keys and values live in an open addressing table with linear probing, sized for at most
+ * half occupancy, which doubles as the clock. Removals shift the following probe run back
+ * instead of leaving tombstones. The reference bits are written without the lock: a bit set
+ * on an entry that was evicted in the meantime only gives its successor in the slot a second
+ * chance it did not earn.
+ */
+public class ClockLRUCache<K, V> implements Cache<K, V> {
+
+    private static final int NONE = -1;
+
+    private final StampedLock lock = new StampedLock();
+
+    private final Object[] keys;
+
+    private final Object[] values;
+
+    private final byte[] referenced;
+
+    private final int tableMask;
+
+    private final int maxSize;
+
+    private int size;
+
+    private int hand;
+
+    public ClockLRUCache(int maxSize) {
+        if (maxSize <= 0 || maxSize > 1 << 29) {
+            throw new IllegalArgumentException("maxSize must be between 1 and 2^29 but was " + maxSize);
+        }
+        int tableSize = Integer.highestOneBit(maxSize * 2 - 1) << 1;
+        this.maxSize = maxSize;
+        keys = new Object[tableSize];
+        values = new Object[tableSize];
+        referenced = new byte[tableSize];
+        tableMask = tableSize - 1;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(K key) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            int slot = hash(key) & tableMask;
+            for (int probes = 0; probes <= tableMask; probes++) {
+                Object candidate = keys[slot];
+                Object value = values[slot];
+                // a key read while a writer moved entries may be half published, equals must not see it
+                if (!lock.validate(stamp)) {
+                    break;
+                }
+                if (candidate == null) {
+                    return null;
+                }
+                if (candidate.equals(key)) {
+                    markReferenced(slot);
+                    return (V) value;
+                }
+                slot = (slot + 1) & tableMask;
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            int slot = findSlot(key);
+            markReferenced(slot);
+            return slot == NONE ? null : (V) values[slot];
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public void put(K key, V value) {
+        long stamp = lock.writeLock();
+        try {
+            int slot = findSlot(key);
+            if (slot != NONE) {
+                values[slot] = value;
+                referenced[slot] = 1;
+                return;
+            }
+            if (size == maxSize) {
+                removeSlot(victim());
+            }
+            slot = insertionSlot(key);
+            keys[slot] = key;
+            values[slot] = value;
+            // the put follows a miss, so it counts as a use
+            referenced[slot] = 1;
+            size++;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public void evict(K key) {
+        long stamp = lock.writeLock();
+        try {
+            int slot = findSlot(key);
+            if (slot != NONE) {
+                removeSlot(slot);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public int size() {
+        long stamp = lock.tryOptimisticRead();
+        int result = size;
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                result = size;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return result;
+    }
+
+    private void markReferenced(int slot) {
+        // skip the write when the bit is set already, so hot entries do not bounce their cache line
+        if (slot != NONE && referenced[slot] == 0) {
+            referenced[slot] = 1;
+        }
+    }
+
+    /**
+     * Needs the read or write lock, the optimistic read in {@link #get} probes on its own.
+     */
+    private int findSlot(Object key) {
+        int slot = hash(key) & tableMask;
+        while (keys[slot] != null) {
+            if (keys[slot].equals(key)) {
+                return slot;
+            }
+            slot = (slot + 1) & tableMask;
+        }
+        return NONE;
+    }
+
+    private int insertionSlot(Object key) {
+        int slot = hash(key) & tableMask;
+        while (keys[slot] != null) {
+            slot = (slot + 1) & tableMask;
+        }
+        return slot;
+    }
+
+    /**
+     * Advances the hand to the first entry without a reference bit, clearing the bits it passes.
+     * Terminates within two laps because the first lap clears every bit.
+     */
+    private int victim() {
+        while (true) {
+            int slot = hand;
+            hand = (hand + 1) & tableMask;
+            if (keys[slot] != null) {
+                if (referenced[slot] == 0) {
+                    return slot;
+                }
+                referenced[slot] = 0;
+            }
+        }
+    }
+
+    private void removeSlot(int slot) {
+        size--;
+        // shift the rest of the probe run back so lookups never stop early at the hole
+        int hole = slot;
+        int current = (slot + 1) & tableMask;
+        while (keys[current] != null) {
+            int home = hash(keys[current]) & tableMask;
+            if (((current - home) & tableMask) >= ((current - hole) & tableMask)) {
+                keys[hole] = keys[current];
+                values[hole] = values[current];
+                referenced[hole] = referenced[current];
+                hole = current;
+            }
+            current = (current + 1) & tableMask;
+        }
+        keys[hole] = null;
+        values[hole] = null;
+        referenced[hole] = 0;
+    }
+
+    private static int hash(Object key) {
+        int h = key.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,385 @@
+package com.gft.cache.lru;
+
+import com.gft.cache.Cache;
+import com.gft.cache.CacheBuilder;
+import com.gft.cache.CacheWriter;
+import com.gft.cache.RemovalCause;
+import com.gft.cache.RemovalNotifier;
+import com.gft.cache.Weigher;
+import com.gft.cache.WriteLocks;
+import com.gft.cache.expiry.Expiration;
+import com.gft.cache.expiry.Ticker;
+import com.gft.cache.expiry.TimerWheel;
+import com.gft.cache.stats.CacheOperation;
+import com.gft.cache.stats.CacheStats;
+import com.gft.cache.stats.StatsCounter;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Thread safe LRUCache
+ * <p>
+ * The capacity is either a number of entries or a total weight computed by a {@link Weigher};
+ * the least recently used entries are evicted until the total fits again.
+ * <p>
+ * Expired entries are never returned, they are reclaimed by a {@link TimerWheel} advanced on every call.
+ * <p>
+ * Removals are collected while the cache's lock is held and handed to the
+ * {@link com.gft.cache.RemovalListener} configured on the {@link CacheBuilder} after it is released.
+ * Puts and explicit removals are passed to its {@link CacheWriter} before the lock is taken,
+ * ordered per key by {@link WriteLocks}, so a slow store does not hold up the readers.
+ * The lock is a {@link ReentrantLock} rather than the object's monitor, so a virtual thread
+ * waiting for it parks instead of pinning its carrier.
+ * <p>
+ * With {@link CacheBuilder#recordStats()} hits, misses, evictions and the latency of every
+ * operation, waiting for the lock included, are available from {@link #stats()}.
+ */
+public class LRUCache <K, V> implements Cache<K, V> {
+
+    private final LinkedHashMap<K, Entry<K, V>> cachedItems;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final long maximumWeight;
+
+    private final Weigher<K, V> weigher;
+
+    private long totalWeight;
+
+    private final Expiration expiration;
+
+    private final Ticker ticker;
+
+    private final TimerWheel<Entry<K, V>> timerWheel;
+
+    private final RemovalNotifier<K, V> removalNotifier;
+
+    private final CacheWriter<K, V> writer;
+
+    private final WriteLocks writeLocks;
+
+    private final StatsCounter statsCounter;
+
+    private final Ticker statsTicker;
+
+    public LRUCache(final int maxSize) {
+        this(CacheBuilder.<K, V>newBuilder().maximumSize(maxSize));
+    }
+
+    public LRUCache(CacheBuilder<K, V> builder) {
+        cachedItems = new LinkedHashMap<K, Entry<K, V>>(builder.getInitialCapacity(), 0.75f, true);
+        maximumWeight = builder.getMaximumWeight();
+        weigher = builder.getWeigher();
+        expiration = new Expiration(builder.getExpireAfterWriteNanos(), builder.getExpireAfterAccessNanos());
+        ticker = builder.getTicker();
+        timerWheel = expiration.isEnabled() ? new TimerWheel<Entry<K, V>>(ticker.read()) : null;
+        removalNotifier = builder.getRemovalNotifier();
+        writer = builder.getWriter();
+        writeLocks = builder.getWriteLocks();
+        statsCounter = builder.getStatsCounter();
+        statsTicker = statsCounter.isEnabled() ? Ticker.SYSTEM : Ticker.DISABLED;
+    }
+
+    public void put(K key, V value) {
+        long start = statsTicker.read();
+        List<RemovalNotifier.Notification<K, V>> notifications;
+        writeLocks.lock(key);
+        try {
+            writer.write(key, value);
+            long locking = statsTicker.read();
+            lock.lock();
+            try {
+                recordLockWait(locking);
+                putEntry(key, value, expireEntries());
+                evictEldest();
+                notifications = removalNotifier.takePending();
+            } finally {
+                lock.unlock();
+            }
+        } finally {
+            writeLocks.unlock(key);
+        }
+        removalNotifier.dispatch(notifications);
+        statsCounter.recordLatency(CacheOperation.PUT, statsTicker.read() - start);
+    }
+
+    public V get(K key) {
+        V value;
+        long start = statsTicker.read();
+        List<RemovalNotifier.Notification<K, V>> notifications;
+        lock.lock();
+        try {
+            recordLockWait(start);
+            value = getEntry(key, expireEntries());
+            notifications = removalNotifier.takePending();
+        } finally {
+            lock.unlock();
+        }
+        removalNotifier.dispatch(notifications);
+        if (value == null) {
+            statsCounter.recordMisses(1);
+        } else {
+            statsCounter.recordHits(1);
+        }
+        statsCounter.recordLatency(CacheOperation.GET, statsTicker.read() - start);
+        return value;
+    }
+
+    public void evict(K key) {
+        long start = statsTicker.read();
+        List<RemovalNotifier.Notification<K, V>> notifications;
+        writeLocks.lock(key);
+        try {
+            writer.delete(key);
+            long locking = statsTicker.read();
+            lock.lock();
+            try {
+                recordLockWait(locking);
+                removeEntry(key, RemovalCause.EXPLICIT);
+                notifications = removalNotifier.takePending();
+            } finally {
+                lock.unlock();
+            }
+        } finally {
+            writeLocks.unlock(key);
+        }
+        removalNotifier.dispatch(notifications);
+        statsCounter.recordLatency(CacheOperation.REMOVE, statsTicker.read() - start);
+    }
+
+    public Map<K, V> getAll(Iterable<? extends K> keys) {
+        Map<K, V> result = new LinkedHashMap<K, V>();
+        int lookups = 0;
+        long start = statsTicker.read();
+        List<RemovalNotifier.Notification<K, V>> notifications;
+        lock.lock();
+        try {
+            recordLockWait(start);
+            long now = expireEntries();
+            for (K key : keys) {
+                lookups++;
+                V value = getEntry(key, now);
+                if (value != null) {
+                    result.put(key, value);
+                }
+            }
+            notifications = removalNotifier.takePending();
+        } finally {
+            lock.unlock();
+        }
+        removalNotifier.dispatch(notifications);
+        statsCounter.recordHits(result.size());
+        statsCounter.recordMisses(lookups - result.size());
+        statsCounter.recordLatency(CacheOperation.GET, statsTicker.read() - start);
+        return result;
+    }
+
+    public void putAll(Map<? extends K, ? extends V> entries) {
+        long start = statsTicker.read();
+        List<RemovalNotifier.Notification<K, V>> notifications;
+        long stripes = writeLocks.lockAll(entries.keySet());
+        try {
+            writer.writeAll(entries);
+            long locking = statsTicker.read();
+            lock.lock();
+            try {
+                recordLockWait(locking);
+                long now = expireEntries();
+                for (Map.Entry<? extends K, ? extends V> entry : entries.entrySet()) {
+                    putEntry(entry.getKey(), entry.getValue(), now);
+                    evictEldest();
+                }
+                notifications = removalNotifier.takePending();
+            } finally {
+                lock.unlock();
+            }
+        } finally {
+            writeLocks.unlockAll(stripes);
+        }
+        removalNotifier.dispatch(notifications);
+        statsCounter.recordLatency(CacheOperation.PUT, statsTicker.read() - start);
+    }
+
+    public void evictAll(Iterable<? extends K> keys) {
+        List<K> keyList = new ArrayList<K>();
+        for (K key : keys) {
+            keyList.add(key);
+        }
+        long start = statsTicker.read();
+        List<RemovalNotifier.Notification<K, V>> notifications;
+        long stripes = writeLocks.lockAll(keyList);
+        try {
+            writer.deleteAll(keyList);
+            long locking = statsTicker.read();
+            lock.lock();
+            try {
+                recordLockWait(locking);
+                for (K key : keyList) {
+                    removeEntry(key, RemovalCause.EXPLICIT);
+                }
+                notifications = removalNotifier.takePending();
+            } finally {
+                lock.unlock();
+            }
+        } finally {
+            writeLocks.unlockAll(stripes);
+        }
+        removalNotifier.dispatch(notifications);
+        statsCounter.recordLatency(CacheOperation.REMOVE, statsTicker.read() - start);
+    }
+
+    public int size() {
+        return cachedItems.size();
+    }
+
+    /**
+     * @return the total weight of the entries, their number when no {@link Weigher} is configured
+     */
+    public long weightedSize() {
+        lock.lock();
+        try {
+            return totalWeight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the counters recorded so far, all 0 unless {@link CacheBuilder#recordStats()} was set
+     */
+    public CacheStats stats() {
+        return statsCounter.snapshot();
+    }
+
+    /**
+     * @return the live counters, e.g. to publish them with {@link com.gft.cache.stats.CacheStatsMBeans}
+     */
+    public StatsCounter statsCounter() {
+        return statsCounter;
+    }
+
+    /**
+     * Called for every entry evicted to make room, while the cache's lock is held, so it must not block;
+     * anything slow, like I/O, belongs after the call that caused the eviction returns.
+     * Removed and expired entries are not reported.
+     */
+    protected void onEviction(K key, V value) {
+    }
+
+    private void recordLockWait(long start) {
+        statsCounter.recordLatency(CacheOperation.LOCK_WAIT, statsTicker.read() - start);
+    }
+
+    private void putEntry(K key, V value, long now) {
+        int weight = weigher.weigh(key, value);
+        if (weight < 0) {
+            throw new IllegalArgumentException("Negative weight " + weight + " for " + key);
+        }
+        Entry<K, V> entry = cachedItems.get(key);
+        // an entry the wheel has not reached yet was already gone for readers
+        RemovalCause cause = entry != null && timerWheel != null && Expiration.isExpired(entry.getExpiresAt(), now)
+                ? RemovalCause.EXPIRED : RemovalCause.REPLACED;
+        if (weight > maximumWeight) {
+            // would push everything else out and still not fit, the old value must not outlive the put either
+            removeEntry(key, cause);
+            return;
+        }
+        if (entry != null) {
+            removalNotifier.record(key, entry.value, cause);
+            entry.value = value;
+            totalWeight -= entry.weight;
+        } else {
+            entry = new Entry<K, V>(key, value);
+            cachedItems.put(key, entry);
+        }
+        entry.weight = weight;
+        totalWeight += weight;
+        if (timerWheel != null) {
+            entry.writeTime = now;
+            entry.setExpiresAt(expiration.deadlineAfterWrite(now));
+            timerWheel.reschedule(entry);
+        }
+    }
+
+    private V getEntry(K key, long now) {
+        Entry<K, V> entry = cachedItems.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (timerWheel != null) {
+            if (Expiration.isExpired(entry.getExpiresAt(), now)) {
+                removeEntry(key, RemovalCause.EXPIRED);
+                statsCounter.recordEviction();
+                return null;
+            }
+            if (expiration.isRefreshedOnAccess()) {
+                // the wheel notices the later deadline when it reaches the old one
+                entry.setExpiresAt(expiration.deadlineAfterAccess(entry.writeTime, now));
+            }
+        }
+        return entry.value;
+    }
+
+    private void removeEntry(K key, RemovalCause cause) {
+        Entry<K, V> entry = cachedItems.remove(key);
+        if (entry != null) {
+            totalWeight -= entry.weight;
+            if (timerWheel != null) {
+                timerWheel.deschedule(entry);
+            }
+            removalNotifier.record(entry.key, entry.value, cause);
+        }
+    }
+
+    private void evictEldest() {
+        Iterator<Entry<K, V>> eldest = cachedItems.values().iterator();
+        while (totalWeight > maximumWeight) {
+            Entry<K, V> entry = eldest.next();
+            eldest.remove();
+            totalWeight -= entry.weight;
+            if (timerWheel != null) {
+                timerWheel.deschedule(entry);
+            }
+            onEviction(entry.key, entry.value);
+            removalNotifier.record(entry.key, entry.value, RemovalCause.SIZE);
+            statsCounter.recordEviction();
+        }
+    }
+
+    /**
+     * @return the current time, or 0 when entries do not expire
+     */
+    private long expireEntries() {
+        if (timerWheel == null) {
+            return 0;
+        }
+        long now = ticker.read();
+        timerWheel.advance(now, this::expire);
+        return now;
+    }
+
+    private void expire(Entry<K, V> entry) {
+        cachedItems.remove(entry.key);
+        totalWeight -= entry.weight;
+        removalNotifier.record(entry.key, entry.value, RemovalCause.EXPIRED);
+        statsCounter.recordEviction();
+    }
+
+    private static final class Entry<K, V> extends TimerWheel.Node {
+        private final K key;
+        private V value;
+        private long writeTime;
+        private int weight;
+
+        Entry(K key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+}
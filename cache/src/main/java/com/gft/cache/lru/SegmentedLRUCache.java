@@ -0,0 +1,201 @@
+package com.gft.cache.lru;
+
+import com.gft.cache.Cache;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Thread safe LRUCache split into independently locked segments.
+ * <p>
+ * Every key is routed to one segment by its hash. Each segment keeps its own
+ * access order and its own share of {@code maxSize}, so the recency is only
+ * approximate across the whole cache, but threads working on different
+ * segments never wait for each other.
+ */
+public class SegmentedLRUCache<K, V> implements Cache<K, V> {
+
+    private static final int MAX_SEGMENTS = 1 << 16;
+
+    private final Segment<K, V>[] segments;
+
+    private final int segmentMask;
+
+    public SegmentedLRUCache(final int maxSize) {
+        this(maxSize, 4 * Runtime.getRuntime().availableProcessors());
+    }
+
+    @SuppressWarnings("unchecked")
+    public SegmentedLRUCache(final int maxSize, final int concurrencyLevel) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive but was " + maxSize);
+        }
+        if (concurrencyLevel <= 0) {
+            throw new IllegalArgumentException("concurrencyLevel must be positive but was " + concurrencyLevel);
+        }
+        int segmentCount = 1;
+        while (segmentCount < concurrencyLevel && segmentCount < MAX_SEGMENTS && segmentCount * 2 <= maxSize) {
+            segmentCount <<= 1;
+        }
+        segments = new Segment[segmentCount];
+        segmentMask = segmentCount - 1;
+
+        int share = maxSize / segmentCount;
+        int remainder = maxSize % segmentCount;
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment<K, V>(i < remainder ? share + 1 : share);
+        }
+    }
+
+    public void put(K key, V value) {
+        Segment<K, V> segment = segmentFor(key);
+        segment.lock.lock();
+        try {
+            segment.put(key, value);
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    public V get(K key) {
+        Segment<K, V> segment = segmentFor(key);
+        segment.lock.lock();
+        try {
+            return segment.get(key);
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    public void evict(K key) {
+        Segment<K, V> segment = segmentFor(key);
+        segment.lock.lock();
+        try {
+            segment.remove(key);
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    public Map<K, V> getAll(Iterable<? extends K> keys) {
+        Map<K, V> result = new LinkedHashMap<K, V>();
+        List<K>[] groups = groupBySegment(keys);
+        for (int i = 0; i < groups.length; i++) {
+            if (groups[i] == null) {
+                continue;
+            }
+            Segment<K, V> segment = segments[i];
+            segment.lock.lock();
+            try {
+                for (K key : groups[i]) {
+                    V value = segment.get(key);
+                    if (value != null) {
+                        result.put(key, value);
+                    }
+                }
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+        return result;
+    }
+
+    public void putAll(Map<? extends K, ? extends V> entries) {
+        List<K>[] groups = groupBySegment(entries.keySet());
+        for (int i = 0; i < groups.length; i++) {
+            if (groups[i] == null) {
+                continue;
+            }
+            Segment<K, V> segment = segments[i];
+            segment.lock.lock();
+            try {
+                for (K key : groups[i]) {
+                    segment.put(key, entries.get(key));
+                }
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+    }
+
+    public void evictAll(Iterable<? extends K> keys) {
+        List<K>[] groups = groupBySegment(keys);
+        for (int i = 0; i < groups.length; i++) {
+            if (groups[i] == null) {
+                continue;
+            }
+            Segment<K, V> segment = segments[i];
+            segment.lock.lock();
+            try {
+                for (K key : groups[i]) {
+                    segment.remove(key);
+                }
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment<K, V> segment : segments) {
+            segment.lock.lock();
+            try {
+                size += segment.size();
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+        return size;
+    }
+
+    int segmentCount() {
+        return segments.length;
+    }
+
+    private Segment<K, V> segmentFor(Object key) {
+        return segments[segmentIndex(key)];
+    }
+
+    private int segmentIndex(Object key) {
+        int h = key.hashCode();
+        // spread the higher bits downwards, the same way ConcurrentHashMap does
+        h ^= (h >>> 16);
+        h *= 0x85ebca6b;
+        h ^= (h >>> 13);
+        return h & segmentMask;
+    }
+
+    /**
+     * @return the keys of every segment, null for segments without keys
+     */
+    @SuppressWarnings("unchecked")
+    private List<K>[] groupBySegment(Iterable<? extends K> keys) {
+        List<K>[] groups = new List[segments.length];
+        for (K key : keys) {
+            int index = segmentIndex(key);
+            if (groups[index] == null) {
+                groups[index] = new ArrayList<K>();
+            }
+            groups[index].add(key);
+        }
+        return groups;
+    }
+
+    private static final class Segment<K, V> extends LinkedHashMap<K, V> {
+        private final int maxSegmentSize;
+        private final ReentrantLock lock = new ReentrantLock();
+
+        Segment(final int maxSegmentSize) {
+            super(maxSegmentSize, 0.75f, true);
+            this.maxSegmentSize = maxSegmentSize;
+        }
+
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+            return size() > maxSegmentSize;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.gft.cache.offheap;
+
+import com.gft.cache.Cache;
+import com.gft.cache.codec.Codec;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Thread safe LRU cache keeping its values serialized in direct memory.
+ * <p>
+ * On the heap an entry costs its key and about 32 bytes of primitive arrays in the
+ * {@link OffHeapIndex}, no object of its own, so a multi-GB cache barely adds to the garbage
+ * collector's work. Every read decodes a fresh copy of the value.
+ * When the {@link SlabAllocator} runs out of memory the least recently used entry is evicted if
+ * its chunk has the size the new value needs. Otherwise every entry in the slab of the least
+ * recently used entry is evicted, and the emptied slab is carved into chunks of the new size. A
+ * value of any size therefore evicts at most one slab's worth of entries. Values larger than a
+ * slab are not cached.
+ */
+public class OffHeapCache<K, V> implements Cache<K, V> {
+
+    public static final int DEFAULT_SLAB_SIZE = 1 << 20;
+
+    private final OffHeapIndex<K> index = new OffHeapIndex<K>();
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final SlabAllocator allocator;
+
+    private final Codec<V> codec;
+
+    public OffHeapCache(long maxMemory, Codec<V> codec) {
+        this(maxMemory, DEFAULT_SLAB_SIZE, codec);
+    }
+
+    public OffHeapCache(long maxMemory, int slabSize, Codec<V> codec) {
+        this.allocator = new SlabAllocator(maxMemory, slabSize);
+        this.codec = codec;
+    }
+
+    public void put(K key, V value) {
+        byte[] bytes = codec.encode(value);
+        lock.lock();
+        try {
+            long previous = index.remove(key);
+            if (previous != OffHeapIndex.NONE) {
+                allocator.free(previous);
+            }
+            int length = 4 + bytes.length;
+            if (length > allocator.getSlabSize()) {
+                return;
+            }
+            long address = allocator.allocate(length);
+            if (address < 0) {
+                address = makeRoom(length);
+            }
+            allocator.putInt(address, bytes.length);
+            allocator.write(address + 4, bytes);
+            index.put(key, address);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public V get(K key) {
+        byte[] bytes;
+        lock.lock();
+        try {
+            long address = index.get(key);
+            if (address == OffHeapIndex.NONE) {
+                return null;
+            }
+            bytes = new byte[allocator.getInt(address)];
+            allocator.read(address + 4, bytes);
+        } finally {
+            lock.unlock();
+        }
+        return codec.decode(bytes);
+    }
+
+    public void evict(K key) {
+        lock.lock();
+        try {
+            long address = index.remove(key);
+            if (address != OffHeapIndex.NONE) {
+                allocator.free(address);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return index.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Frees a chunk for {@code length} bytes once the allocator is out of memory, called with the lock held.
+     */
+    private long makeRoom(int length) {
+        long eldest = index.eldest();
+        if (allocator.sameSizeClass(eldest, length)) {
+            allocator.free(index.removeEldest());
+            return allocator.allocate(length);
+        }
+        // move the eldest entry's slab over to the new size, emptying it frees it as a whole
+        int slab = SlabAllocator.slabNumber(eldest);
+        index.removeIf(address -> SlabAllocator.slabNumber(address) == slab, allocator::free);
+        return allocator.allocate(length);
+    }
+
+    /**
+     * @return bytes of direct memory held by slabs in use
+     */
+    public long usedMemory() {
+        lock.lock();
+        try {
+            return allocator.usedMemory();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
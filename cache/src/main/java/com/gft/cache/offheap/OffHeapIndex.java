@@ -0,0 +1,264 @@
+package com.gft.cache.offheap;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+import java.util.function.LongPredicate;
+
+/**
+ * Maps the keys of an {@link OffHeapCache} to the addresses of their values, least recently used first.
+ * <p>
+ * Entries live in parallel arrays indexed by an entry number: the key, its hash, the address and
+ * the previous/next entry of the recency list. An open addressing hash table with linear probing
+ * maps keys to entry numbers (stored plus one, 0 marks a free slot) and removals shift the
+ * following probe run back instead of leaving tombstones. Apart from the keys themselves an entry
+ * costs about 32 bytes of arrays and no object; the arrays double when they are full.
+ * <p>
+ * Not thread safe, the cache calls it with its lock held.
+ */
+class OffHeapIndex<K> {
+
+    static final long NONE = -1;
+
+    private static final int NO_ENTRY = -1;
+
+    private static final int MAX_CAPACITY = 1 << 29;
+
+    private Object[] keys;
+
+    private int[] hashes;
+
+    private long[] addresses;
+
+    private int[] prev;
+
+    private int[] next;
+
+    private int[] table;
+
+    private int tableMask;
+
+    private int head = NO_ENTRY;
+
+    private int tail = NO_ENTRY;
+
+    private int free = NO_ENTRY;
+
+    private int allocated;
+
+    private int size;
+
+    OffHeapIndex() {
+        allocateArrays(16);
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return the address of the key's value, {@link #NONE} when absent; a hit makes it the most recently used
+     */
+    long get(K key) {
+        int slot = findSlot(key);
+        if (slot == NO_ENTRY) {
+            return NONE;
+        }
+        int entry = table[slot] - 1;
+        moveToHead(entry);
+        return addresses[entry];
+    }
+
+    /**
+     * Adds the key as the most recently used entry, it must not be indexed yet.
+     */
+    void put(K key, long address) {
+        if (free == NO_ENTRY && allocated == keys.length) {
+            grow();
+        }
+        int entry = allocate();
+        int hash = hash(key);
+        keys[entry] = key;
+        hashes[entry] = hash;
+        addresses[entry] = address;
+        linkHead(entry);
+        table[emptySlot(hash)] = entry + 1;
+        size++;
+    }
+
+    /**
+     * @return the address the key was mapped to, {@link #NONE} when absent
+     */
+    long remove(K key) {
+        int slot = findSlot(key);
+        if (slot == NO_ENTRY) {
+            return NONE;
+        }
+        long address = addresses[table[slot] - 1];
+        removeSlot(slot);
+        return address;
+    }
+
+    /**
+     * @return the address of the least recently used entry, {@link #NONE} when empty
+     */
+    long eldest() {
+        return tail == NO_ENTRY ? NONE : addresses[tail];
+    }
+
+    /**
+     * @return the address of the least recently used entry, which is removed, {@link #NONE} when empty
+     */
+    long removeEldest() {
+        if (tail == NO_ENTRY) {
+            return NONE;
+        }
+        long address = addresses[tail];
+        removeSlot(slotOf(tail));
+        return address;
+    }
+
+    /**
+     * Removes every entry whose address passes the filter, eldest first, and reports each removed address.
+     */
+    void removeIf(LongPredicate filter, LongConsumer removed) {
+        int entry = tail;
+        while (entry != NO_ENTRY) {
+            int newer = prev[entry];
+            long address = addresses[entry];
+            if (filter.test(address)) {
+                removeSlot(slotOf(entry));
+                removed.accept(address);
+            }
+            entry = newer;
+        }
+    }
+
+    private int findSlot(Object key) {
+        int hash = hash(key);
+        int slot = hash & tableMask;
+        while (table[slot] != 0) {
+            int entry = table[slot] - 1;
+            if (hashes[entry] == hash && keys[entry].equals(key)) {
+                return slot;
+            }
+            slot = (slot + 1) & tableMask;
+        }
+        return NO_ENTRY;
+    }
+
+    private int slotOf(int entry) {
+        int slot = hashes[entry] & tableMask;
+        while (table[slot] != entry + 1) {
+            slot = (slot + 1) & tableMask;
+        }
+        return slot;
+    }
+
+    private int emptySlot(int hash) {
+        int slot = hash & tableMask;
+        while (table[slot] != 0) {
+            slot = (slot + 1) & tableMask;
+        }
+        return slot;
+    }
+
+    private void removeSlot(int slot) {
+        int entry = table[slot] - 1;
+        unlink(entry);
+        keys[entry] = null;
+        next[entry] = free;
+        free = entry;
+        size--;
+
+        // shift the rest of the probe run back so lookups never stop early at the hole
+        int hole = slot;
+        int current = (slot + 1) & tableMask;
+        while (table[current] != 0) {
+            int home = hashes[table[current] - 1] & tableMask;
+            if (((current - home) & tableMask) >= ((current - hole) & tableMask)) {
+                table[hole] = table[current];
+                hole = current;
+            }
+            current = (current + 1) & tableMask;
+        }
+        table[hole] = 0;
+    }
+
+    private int allocate() {
+        if (free != NO_ENTRY) {
+            int entry = free;
+            free = next[entry];
+            return entry;
+        }
+        return allocated++;
+    }
+
+    /**
+     * Doubles the entry arrays and rebuilds the table for them, only called when no entry is free.
+     */
+    private void grow() {
+        if (keys.length == MAX_CAPACITY) {
+            throw new IllegalStateException("More than " + MAX_CAPACITY + " entries");
+        }
+        int capacity = keys.length * 2;
+        keys = Arrays.copyOf(keys, capacity);
+        hashes = Arrays.copyOf(hashes, capacity);
+        addresses = Arrays.copyOf(addresses, capacity);
+        prev = Arrays.copyOf(prev, capacity);
+        next = Arrays.copyOf(next, capacity);
+        // the table stays at most half full
+        table = new int[capacity * 2];
+        tableMask = table.length - 1;
+        for (int entry = 0; entry < allocated; entry++) {
+            table[emptySlot(hashes[entry])] = entry + 1;
+        }
+    }
+
+    private void allocateArrays(int capacity) {
+        keys = new Object[capacity];
+        hashes = new int[capacity];
+        addresses = new long[capacity];
+        prev = new int[capacity];
+        next = new int[capacity];
+        table = new int[capacity * 2];
+        tableMask = table.length - 1;
+    }
+
+    private void moveToHead(int entry) {
+        if (entry != head) {
+            unlink(entry);
+            linkHead(entry);
+        }
+    }
+
+    private void linkHead(int entry) {
+        prev[entry] = NO_ENTRY;
+        next[entry] = head;
+        if (head != NO_ENTRY) {
+            prev[head] = entry;
+        } else {
+            tail = entry;
+        }
+        head = entry;
+    }
+
+    private void unlink(int entry) {
+        int before = prev[entry];
+        int after = next[entry];
+        if (before != NO_ENTRY) {
+            next[before] = after;
+        } else {
+            head = after;
+        }
+        if (after != NO_ENTRY) {
+            prev[after] = before;
+        } else {
+            tail = before;
+        }
+    }
+
+    private static int hash(Object key) {
+        int h = key.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
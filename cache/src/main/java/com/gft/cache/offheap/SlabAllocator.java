@@ -0,0 +1,205 @@
+package com.gft.cache.offheap;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hands out chunks of direct memory carved from fixed size slabs.
+ * <p>
+ * Chunk sizes are powers of two from 16 bytes up to the slab size and every slab serves a single
+ * chunk size. A slab whose chunks are all free again goes back to a shared pool and can be reused
+ * for any chunk size, so memory freed by evicting small values can later hold large ones.
+ * Free chunks are linked through their own first four bytes, so the allocator keeps nothing
+ * on the heap per chunk. An address is the slab number in the upper 32 bits and the offset in
+ * the slab in the lower ones.
+ * <p>
+ * Not thread safe, the owning cache has to guard every call with its own lock.
+ */
+public class SlabAllocator {
+
+    private static final int MIN_CHUNK_SHIFT = 4;
+
+    private final int slabSize;
+
+    private final int maxSlabs;
+
+    private final List<Slab> slabs = new ArrayList<Slab>();
+
+    private final ArrayDeque<Integer> freeSlabNumbers = new ArrayDeque<Integer>();
+
+    private final ArrayDeque<ByteBuffer> releasedBuffers = new ArrayDeque<ByteBuffer>();
+
+    private final ArrayDeque<Slab>[] partialSlabs;
+
+    private int allocatedBuffers;
+
+    @SuppressWarnings("unchecked")
+    public SlabAllocator(long maxMemory, int slabSize) {
+        if (Integer.bitCount(slabSize) != 1 || slabSize < (1 << MIN_CHUNK_SHIFT)) {
+            throw new IllegalArgumentException("slabSize must be a power of two of at least 16 but was " + slabSize);
+        }
+        if (maxMemory < slabSize) {
+            throw new IllegalArgumentException("maxMemory must hold at least one slab but was " + maxMemory);
+        }
+        this.slabSize = slabSize;
+        this.maxSlabs = (int) Math.min(Integer.MAX_VALUE, maxMemory / slabSize);
+        int classes = Integer.numberOfTrailingZeros(slabSize) - MIN_CHUNK_SHIFT + 1;
+        partialSlabs = new ArrayDeque[classes];
+        for (int i = 0; i < classes; i++) {
+            partialSlabs[i] = new ArrayDeque<Slab>();
+        }
+    }
+
+    /**
+     * @return the address of a chunk of at least {@code length} bytes, or -1 when there is no memory left
+     */
+    public long allocate(int length) {
+        if (length > slabSize) {
+            return -1;
+        }
+        int sizeClass = sizeClass(length);
+        Slab slab = partialSlabs[sizeClass].peekFirst();
+        if (slab == null) {
+            slab = newSlab(sizeClass);
+            if (slab == null) {
+                return -1;
+            }
+            partialSlabs[sizeClass].addFirst(slab);
+        }
+        int offset = slab.allocate();
+        if (slab.isFull()) {
+            partialSlabs[sizeClass].pollFirst();
+        }
+        return ((long) slab.number << 32) | offset;
+    }
+
+    public void free(long address) {
+        Slab slab = slabs.get(slabNumber(address));
+        if (slab.isFull()) {
+            partialSlabs[slab.sizeClass].addFirst(slab);
+        }
+        slab.free((int) address);
+        if (slab.used == 0) {
+            partialSlabs[slab.sizeClass].remove(slab);
+            slabs.set(slab.number, null);
+            freeSlabNumbers.push(slab.number);
+            releasedBuffers.push(slab.buffer);
+        }
+    }
+
+    /**
+     * @return whether the chunk at the address is of the size an allocation of {@code length} bytes gets
+     */
+    public boolean sameSizeClass(long address, int length) {
+        return slabs.get(slabNumber(address)).sizeClass == sizeClass(length);
+    }
+
+    public static int slabNumber(long address) {
+        return (int) (address >>> 32);
+    }
+
+    /**
+     * @return the largest chunk, no allocation can be larger
+     */
+    public int getSlabSize() {
+        return slabSize;
+    }
+
+    public void write(long address, byte[] source) {
+        ByteBuffer buffer = slabs.get(slabNumber(address)).buffer;
+        buffer.position((int) address);
+        buffer.put(source);
+    }
+
+    public void read(long address, byte[] target) {
+        ByteBuffer buffer = slabs.get(slabNumber(address)).buffer;
+        buffer.position((int) address);
+        buffer.get(target);
+    }
+
+    public void putInt(long address, int value) {
+        slabs.get(slabNumber(address)).buffer.putInt((int) address, value);
+    }
+
+    public int getInt(long address) {
+        return slabs.get(slabNumber(address)).buffer.getInt((int) address);
+    }
+
+    /**
+     * @return bytes of direct memory currently reserved by slabs in use
+     */
+    public long usedMemory() {
+        return (long) (slabs.size() - freeSlabNumbers.size()) * slabSize;
+    }
+
+    private Slab newSlab(int sizeClass) {
+        ByteBuffer buffer = releasedBuffers.poll();
+        if (buffer == null) {
+            if (allocatedBuffers == maxSlabs) {
+                return null;
+            }
+            buffer = ByteBuffer.allocateDirect(slabSize);
+            allocatedBuffers++;
+        }
+        Integer reused = freeSlabNumbers.poll();
+        int number = reused != null ? reused : slabs.size();
+        Slab slab = new Slab(number, sizeClass, buffer, slabSize >>> (sizeClass + MIN_CHUNK_SHIFT), 1 << (sizeClass + MIN_CHUNK_SHIFT));
+        if (reused != null) {
+            slabs.set(number, slab);
+        } else {
+            slabs.add(slab);
+        }
+        return slab;
+    }
+
+    private static int sizeClass(int length) {
+        int chunkShift = 32 - Integer.numberOfLeadingZeros(Math.max(length, 1) - 1);
+        return Math.max(chunkShift, MIN_CHUNK_SHIFT) - MIN_CHUNK_SHIFT;
+    }
+
+    private static final class Slab {
+        private static final int NONE = -1;
+
+        private final int number;
+        private final int sizeClass;
+        private final ByteBuffer buffer;
+        private final int chunkSize;
+        private final int chunks;
+        private int used;
+        private int bump;
+        private int freeHead = NONE;
+
+        Slab(int number, int sizeClass, ByteBuffer buffer, int chunks, int chunkSize) {
+            this.number = number;
+            this.sizeClass = sizeClass;
+            this.buffer = buffer;
+            this.chunks = chunks;
+            this.chunkSize = chunkSize;
+        }
+
+        boolean isFull() {
+            return used == chunks;
+        }
+
+        int allocate() {
+            int offset;
+            if (freeHead != NONE) {
+                offset = freeHead;
+                freeHead = buffer.getInt(offset);
+            } else {
+                offset = bump;
+                bump += chunkSize;
+            }
+            used++;
+            return offset;
+        }
+
+        void free(int offset) {
+            buffer.putInt(offset, freeHead);
+            freeHead = offset;
+            used--;
+        }
+    }
+}
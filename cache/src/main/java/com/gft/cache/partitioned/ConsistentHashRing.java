@@ -0,0 +1,106 @@
+package com.gft.cache.partitioned;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Assigns keys to nodes by consistent hashing.
+ * <p>
+ * Every node owns {@code virtualNodes} points on a ring of 64 bit hashes and a key belongs to
+ * the node owning the first point at or after the hash of its bytes. The points spread each
+ * node's share evenly over the ring, so adding or removing one node of {@code n} only moves
+ * about {@code 1/n} of the keys, taken evenly from or given evenly to all the others.
+ * <p>
+ * The hashes only depend on the bytes of node names and keys, so every JVM building a ring
+ * from the same nodes routes every key to the same node. Changes copy the ring, lookups never lock.
+ */
+public class ConsistentHashRing {
+
+    public static final int DEFAULT_VIRTUAL_NODES = 160;
+
+    private final int virtualNodes;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private volatile TreeMap<Long, String> ring = new TreeMap<Long, String>();
+
+    public ConsistentHashRing() {
+        this(DEFAULT_VIRTUAL_NODES);
+    }
+
+    public ConsistentHashRing(int virtualNodes) {
+        if (virtualNodes <= 0) {
+            throw new IllegalArgumentException("virtualNodes must be positive but was " + virtualNodes);
+        }
+        this.virtualNodes = virtualNodes;
+    }
+
+    public ConsistentHashRing(int virtualNodes, String... nodes) {
+        this(virtualNodes);
+        for (String node : nodes) {
+            addNode(node);
+        }
+    }
+
+    public void addNode(String node) {
+        lock.lock();
+        try {
+            TreeMap<Long, String> copy = new TreeMap<Long, String>(ring);
+            for (int i = 0; i < virtualNodes; i++) {
+                copy.put(hash((node + "#" + i).getBytes(StandardCharsets.UTF_8)), node);
+            }
+            ring = copy;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void removeNode(String node) {
+        lock.lock();
+        try {
+            TreeMap<Long, String> copy = new TreeMap<Long, String>(ring);
+            copy.values().removeIf(node::equals);
+            ring = copy;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the node owning the key, null when the ring is empty
+     */
+    public String nodeFor(byte[] key) {
+        TreeMap<Long, String> current = ring;
+        if (current.isEmpty()) {
+            return null;
+        }
+        Map.Entry<Long, String> owner = current.ceilingEntry(hash(key));
+        return owner != null ? owner.getValue() : current.firstEntry().getValue();
+    }
+
+    public Set<String> nodes() {
+        return Collections.unmodifiableSet(new LinkedHashSet<String>(ring.values()));
+    }
+
+    /**
+     * FNV-1a followed by the MurmurHash3 finalizer, so that similar keys land far apart.
+     */
+    static long hash(byte[] bytes) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : bytes) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb93fe53e4cd3L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,76 @@
+package com.gft.cache.partitioned;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process {@link Transport} connecting nodes living in the same JVM, e.g. to test a
+ * {@link PartitionedCache} on one machine.
+ * <p>
+ * Messages are copied on the way in and out, so no node shares arrays with another, and handled
+ * on the given executor, so requests are asynchronous as they are over a network.
+ */
+public class LoopbackTransport implements Transport {
+
+    private final Map<String, RequestHandler> handlers = new ConcurrentHashMap<String, RequestHandler>();
+
+    private final Executor executor;
+
+    private final AtomicLong requestCount = new AtomicLong();
+
+    public LoopbackTransport() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public LoopbackTransport(Executor executor) {
+        this.executor = executor;
+    }
+
+    public void register(String node, RequestHandler handler) {
+        handlers.put(node, handler);
+    }
+
+    /**
+     * Takes the node off the network, requests to it fail from now on.
+     */
+    public void unregister(String node) {
+        handlers.remove(node);
+    }
+
+    public CompletableFuture<byte[]> send(String node, byte[] request) {
+        requestCount.incrementAndGet();
+        byte[] copy = Arrays.copyOf(request, request.length);
+        CompletableFuture<byte[]> response = new CompletableFuture<byte[]>();
+        executor.execute(() -> {
+            RequestHandler handler = handlers.get(node);
+            if (handler == null) {
+                response.completeExceptionally(new IOException("Unknown node " + node));
+                return;
+            }
+            try {
+                byte[] result = handler.handle(copy);
+                response.complete(Arrays.copyOf(result, result.length));
+            } catch (Exception e) {
+                response.completeExceptionally(new IOException("Node " + node + " failed: " + e, e));
+            }
+        });
+        return response;
+    }
+
+    /**
+     * @return the number of requests sent so far, to all nodes
+     */
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    public void close() {
+        handlers.clear();
+    }
+}
@@ -0,0 +1,414 @@
+package com.gft.cache.partitioned;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link Transport} over TCP, all sockets driven by a single selector thread.
+ * <p>
+ * A node serves requests once it {@link #listen}s, and reaches the other nodes at the addresses given
+ * to {@link #addPeer}, connecting on the first request. Each connection carries any number of
+ * requests at once, answered in whatever order they complete, in frames of
+ * {@code [int length][long id][byte type][payload]} where the length counts the bytes after it.
+ * <p>
+ * Handlers run on the given executor, never on the selector thread. When a connection breaks its
+ * requests fail with an {@link IOException}, and the next request to that node connects again.
+ */
+public class NioTransport implements Transport {
+
+    static final int MAX_FRAME_SIZE = 64 * 1024 * 1024;
+
+    private static final byte REQUEST = 0;
+    private static final byte RESPONSE = 1;
+    private static final byte FAILURE = 2;
+
+    private static final int HEADER_SIZE = 8 + 1;
+
+    private final Executor handlerExecutor;
+
+    private final Selector selector;
+
+    private final Thread selectorThread;
+
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<Runnable>();
+
+    private final Map<String, InetSocketAddress> peers = new ConcurrentHashMap<String, InetSocketAddress>();
+
+    /**
+     * Outgoing connections by node, only used on the selector thread.
+     */
+    private final Map<String, Connection> connections = new ConcurrentHashMap<String, Connection>();
+
+    private final AtomicLong nextId = new AtomicLong();
+
+    private volatile boolean closed;
+
+    public NioTransport() throws IOException {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public NioTransport(Executor handlerExecutor) throws IOException {
+        this.handlerExecutor = handlerExecutor;
+        this.selector = Selector.open();
+        this.selectorThread = new Thread(this::run, "nio-transport");
+        selectorThread.setDaemon(true);
+        selectorThread.start();
+    }
+
+    /**
+     * Serves requests from other nodes on the address, port 0 picking a free one.
+     *
+     * @return the address actually bound
+     */
+    public InetSocketAddress listen(InetSocketAddress address, RequestHandler handler) throws IOException {
+        ServerSocketChannel server = ServerSocketChannel.open();
+        try {
+            server.bind(address);
+            server.configureBlocking(false);
+        } catch (IOException e) {
+            server.close();
+            throw e;
+        }
+        CompletableFuture<Void> registered = new CompletableFuture<Void>();
+        execute(() -> {
+            if (closed) {
+                registered.completeExceptionally(new IOException("Transport closed"));
+                return;
+            }
+            try {
+                server.register(selector, SelectionKey.OP_ACCEPT, handler);
+                registered.complete(null);
+            } catch (IOException e) {
+                registered.completeExceptionally(e);
+            }
+        });
+        try {
+            if (closed) {
+                registered.completeExceptionally(new IOException("Transport closed"));
+            }
+            registered.join();
+        } catch (RuntimeException e) {
+            server.close();
+            throw new IOException("Cannot listen on " + address, e.getCause());
+        }
+        return (InetSocketAddress) server.getLocalAddress();
+    }
+
+    public void addPeer(String node, InetSocketAddress address) {
+        peers.put(node, address);
+    }
+
+    public CompletableFuture<byte[]> send(String node, byte[] request) {
+        CompletableFuture<byte[]> response = new CompletableFuture<byte[]>();
+        InetSocketAddress address = peers.get(node);
+        if (address == null) {
+            response.completeExceptionally(new IOException("Unknown node " + node));
+            return response;
+        }
+        long id = nextId.incrementAndGet();
+        ByteBuffer frame = frame(id, REQUEST, request);
+        execute(() -> {
+            if (closed) {
+                response.completeExceptionally(new IOException("Transport closed"));
+                return;
+            }
+            Connection connection = connections.get(node);
+            if (connection == null) {
+                try {
+                    connection = connect(node, address);
+                } catch (IOException e) {
+                    response.completeExceptionally(e);
+                    return;
+                }
+            }
+            Connection sentOn = connection;
+            sentOn.pending.put(id, response);
+            // drop a cancelled or timed out request right away instead of when the connection closes
+            response.whenComplete((bytes, failure) -> sentOn.pending.remove(id));
+            sentOn.write(frame);
+        });
+        if (closed) {
+            response.completeExceptionally(new IOException("Transport closed"));
+        }
+        return response;
+    }
+
+    public void close() throws IOException {
+        closed = true;
+        selector.wakeup();
+        try {
+            selectorThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void execute(Runnable task) {
+        tasks.add(task);
+        selector.wakeup();
+    }
+
+    private void run() {
+        try {
+            while (!closed) {
+                selector.select();
+                Runnable task;
+                while ((task = tasks.poll()) != null) {
+                    task.run();
+                }
+                for (SelectionKey key : selector.selectedKeys()) {
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept(key);
+                    } else {
+                        ((Connection) key.attachment()).ready(key);
+                    }
+                }
+                selector.selectedKeys().clear();
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            closed = true;
+        } finally {
+            shutdown();
+        }
+    }
+
+    private void shutdown() {
+        for (SelectionKey key : new ArrayList<SelectionKey>(selector.keys())) {
+            if (key.attachment() instanceof Connection) {
+                ((Connection) key.attachment()).close(new IOException("Transport closed"));
+            } else {
+                closeQuietly(key);
+            }
+        }
+        // fails whatever was queued meanwhile
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            task.run();
+        }
+        try {
+            selector.close();
+        } catch (IOException ignored) {
+            // nothing left to release
+        }
+    }
+
+    private void accept(SelectionKey key) {
+        try {
+            SocketChannel channel = ((ServerSocketChannel) key.channel()).accept();
+            if (channel == null) {
+                return;
+            }
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            Connection connection = new Connection(null, channel, (RequestHandler) key.attachment());
+            connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+        } catch (IOException e) {
+            // the client sees its connection fail
+        }
+    }
+
+    private Connection connect(String node, InetSocketAddress address) throws IOException {
+        SocketChannel channel = SocketChannel.open();
+        try {
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            Connection connection = new Connection(node, channel, null);
+            boolean connected = channel.connect(address);
+            connection.connected = connected;
+            connection.key = channel.register(selector, connected ? SelectionKey.OP_READ : SelectionKey.OP_CONNECT, connection);
+            connections.put(node, connection);
+            return connection;
+        } catch (IOException e) {
+            channel.close();
+            throw new IOException("Cannot connect to node " + node + " at " + address, e);
+        }
+    }
+
+    private static ByteBuffer frame(long id, byte type, byte[] payload) {
+        ByteBuffer frame = ByteBuffer.allocate(4 + HEADER_SIZE + payload.length);
+        frame.putInt(HEADER_SIZE + payload.length).putLong(id).put(type).put(payload);
+        frame.flip();
+        return frame;
+    }
+
+    private static void closeQuietly(SelectionKey key) {
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException ignored) {
+            // already broken
+        }
+    }
+
+    /**
+     * One socket, either side; only used on the selector thread apart from {@link #pending}.
+     */
+    private final class Connection {
+        /**
+         * The node connected to, null on the accepting side.
+         */
+        private final String node;
+        private final SocketChannel channel;
+        private final RequestHandler handler;
+        private final Map<Long, CompletableFuture<byte[]>> pending = new ConcurrentHashMap<Long, CompletableFuture<byte[]>>();
+        private final Queue<ByteBuffer> writes = new ArrayDeque<ByteBuffer>();
+        private ByteBuffer readBuffer = ByteBuffer.allocate(64 * 1024);
+        private SelectionKey key;
+        private boolean connected = true;
+        private boolean open = true;
+
+        Connection(String node, SocketChannel channel, RequestHandler handler) {
+            this.node = node;
+            this.channel = channel;
+            this.handler = handler;
+        }
+
+        void ready(SelectionKey key) {
+            try {
+                if (key.isConnectable()) {
+                    if (!channel.finishConnect()) {
+                        return;
+                    }
+                    connected = true;
+                    updateInterest();
+                }
+                if (key.isValid() && key.isReadable()) {
+                    read();
+                }
+                if (key.isValid() && key.isWritable()) {
+                    flush();
+                }
+            } catch (IOException e) {
+                close(e);
+            }
+        }
+
+        void write(ByteBuffer frame) {
+            if (!open) {
+                return;
+            }
+            writes.add(frame);
+            if (connected) {
+                try {
+                    flush();
+                } catch (IOException e) {
+                    close(e);
+                }
+            }
+        }
+
+        private void flush() throws IOException {
+            ByteBuffer buffer;
+            while ((buffer = writes.peek()) != null) {
+                channel.write(buffer);
+                if (buffer.hasRemaining()) {
+                    break;
+                }
+                writes.poll();
+            }
+            updateInterest();
+        }
+
+        private void updateInterest() {
+            key.interestOps(writes.isEmpty() ? SelectionKey.OP_READ : SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+        }
+
+        private void read() throws IOException {
+            if (channel.read(readBuffer) < 0) {
+                throw new IOException("Connection closed by " + (node == null ? "client" : "node " + node));
+            }
+            readBuffer.flip();
+            while (readBuffer.remaining() >= 4) {
+                int length = readBuffer.getInt(readBuffer.position());
+                if (length < HEADER_SIZE || length > MAX_FRAME_SIZE) {
+                    throw new IOException("Bad frame length " + length);
+                }
+                if (readBuffer.remaining() < 4 + length) {
+                    if (readBuffer.capacity() < 4 + length) {
+                        ByteBuffer larger = ByteBuffer.allocate(4 + length);
+                        larger.put(readBuffer);
+                        readBuffer = larger;
+                        return;
+                    }
+                    break;
+                }
+                readBuffer.getInt();
+                long id = readBuffer.getLong();
+                byte type = readBuffer.get();
+                byte[] payload = new byte[length - HEADER_SIZE];
+                readBuffer.get(payload);
+                received(id, type, payload);
+            }
+            readBuffer.compact();
+        }
+
+        private void received(long id, byte type, byte[] payload) throws IOException {
+            switch (type) {
+                case REQUEST:
+                    if (handler == null) {
+                        throw new IOException("Unexpected request from node " + node);
+                    }
+                    handlerExecutor.execute(() -> {
+                        ByteBuffer frame;
+                        try {
+                            frame = frame(id, RESPONSE, handler.handle(payload));
+                        } catch (Exception e) {
+                            frame = frame(id, FAILURE, String.valueOf(e).getBytes(StandardCharsets.UTF_8));
+                        }
+                        ByteBuffer response = frame;
+                        execute(() -> write(response));
+                    });
+                    break;
+                case RESPONSE:
+                case FAILURE:
+                    CompletableFuture<byte[]> future = pending.remove(id);
+                    if (future == null) {
+                        // cancelled meanwhile
+                        return;
+                    }
+                    if (type == RESPONSE) {
+                        future.complete(payload);
+                    } else {
+                        future.completeExceptionally(new IOException("Node " + node + " failed: "
+                                + new String(payload, StandardCharsets.UTF_8)));
+                    }
+                    break;
+                default:
+                    throw new IOException("Bad frame type " + type);
+            }
+        }
+
+        void close(IOException cause) {
+            open = false;
+            writes.clear();
+            closeQuietly(key);
+            if (node != null) {
+                connections.remove(node, this);
+            }
+            for (CompletableFuture<byte[]> future : pending.values()) {
+                future.completeExceptionally(cause);
+            }
+            pending.clear();
+        }
+    }
+}
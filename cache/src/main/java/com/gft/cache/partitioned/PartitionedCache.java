@@ -0,0 +1,494 @@
+package com.gft.cache.partitioned;
+
+import com.gft.cache.Cache;
+import com.gft.cache.codec.Codec;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * One node's view of a cache partitioned over several nodes, each holding only its share of the keys.
+ * <p>
+ * A {@link ConsistentHashRing} built from the same node names on every node decides which node
+ * owns a key. Keys owned by this node are read from and written to the local store, the others
+ * go over the {@link Transport} to their owner, which serves them from its own local store via
+ * {@link #handle(byte[])}.
+ * <p>
+ * Remote reads are batched per node without waiting for a timer: while a request to a node is in
+ * flight, the keys asked from it are queued, and they all go out in a single request when the
+ * answer arrives. A key already queued or in flight is not asked twice, unless the read in flight
+ * was sent before a write or eviction of the key through this node. {@link #getAll} sends at
+ * most one request per node. A request not answered within {@link #REQUEST_TIMEOUT_MILLIS} fails
+ * the reads it carries and makes way for the next one. Answers are decoded on the given executor.
+ * <p>
+ * The optional near cache keeps remote values this node read, so hot remote keys are served
+ * locally. Writes and evictions through this node update it, and a read that was asked before
+ * one of them finished does not fill it. Writes through other nodes do not reach it, so give it
+ * an expiry bounding how stale it may get.
+ * <p>
+ * Membership changes are not rebalanced: the keys that move to another node just miss there
+ * once. {@link #size()} counts the entries of the local store only.
+ */
+public class PartitionedCache<K, V> implements Cache<K, V>, RequestHandler {
+
+    public static final long REQUEST_TIMEOUT_MILLIS = 5000;
+
+    static final int MAX_BATCH_SIZE = 512;
+
+    // a queued read first waits for the batch in flight, then for its own; their deadlines fail it sooner
+    private static final long READ_TIMEOUT_MILLIS = 2 * REQUEST_TIMEOUT_MILLIS + 1000;
+
+    private static final int VERSION_LOCKS = 64;
+
+    private final String localNode;
+
+    private final ConsistentHashRing ring;
+
+    private final Transport transport;
+
+    private final Codec<K> keyCodec;
+
+    private final Codec<V> valueCodec;
+
+    private final Cache<K, V> localStore;
+
+    private final Cache<K, V> nearCache;
+
+    private final Map<String, RemoteNode> remoteNodes = new ConcurrentHashMap<String, RemoteNode>();
+
+    private final Executor executor;
+
+    private final ReentrantLock[] versionLocks = new ReentrantLock[VERSION_LOCKS];
+
+    // bumped by every write and eviction through this node, each guarded by the lock of the same index
+    private final long[] versions = new long[VERSION_LOCKS];
+
+    public PartitionedCache(String localNode, ConsistentHashRing ring, Transport transport,
+                            Codec<K> keyCodec, Codec<V> valueCodec, Cache<K, V> localStore) {
+        this(localNode, ring, transport, keyCodec, valueCodec, localStore, null);
+    }
+
+    /**
+     * @param nearCache caches remote values on this node, null for none
+     */
+    public PartitionedCache(String localNode, ConsistentHashRing ring, Transport transport,
+                            Codec<K> keyCodec, Codec<V> valueCodec, Cache<K, V> localStore, Cache<K, V> nearCache) {
+        this(localNode, ring, transport, keyCodec, valueCodec, localStore, nearCache, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param nearCache caches remote values on this node, null for none
+     * @param executor  decodes remote answers and fills the near cache, off the transport's I/O thread
+     */
+    public PartitionedCache(String localNode, ConsistentHashRing ring, Transport transport,
+                            Codec<K> keyCodec, Codec<V> valueCodec, Cache<K, V> localStore, Cache<K, V> nearCache,
+                            Executor executor) {
+        this.localNode = localNode;
+        this.ring = ring;
+        this.transport = transport;
+        this.keyCodec = keyCodec;
+        this.valueCodec = valueCodec;
+        this.localStore = localStore;
+        this.nearCache = nearCache;
+        this.executor = executor;
+        for (int i = 0; i < VERSION_LOCKS; i++) {
+            versionLocks[i] = new ReentrantLock();
+        }
+    }
+
+    public V get(K key) {
+        byte[] encodedKey = keyCodec.encode(key);
+        String owner = ownerOf(encodedKey);
+        if (owner.equals(localNode)) {
+            return localStore.get(key);
+        }
+        if (nearCache != null) {
+            V value = nearCache.get(key);
+            if (value != null) {
+                return value;
+            }
+        }
+        CompletableFuture<V> future = remoteNode(owner).getAll(Collections.singletonMap(key, encodedKey)).get(key);
+        return await(owner, future, READ_TIMEOUT_MILLIS);
+    }
+
+    public Map<K, V> getAll(Iterable<? extends K> keys) {
+        Map<K, V> result = new LinkedHashMap<K, V>();
+        List<K> localKeys = new ArrayList<K>();
+        Map<String, Map<K, byte[]>> remoteKeys = new HashMap<String, Map<K, byte[]>>();
+        for (K key : keys) {
+            byte[] encodedKey = keyCodec.encode(key);
+            String owner = ownerOf(encodedKey);
+            if (owner.equals(localNode)) {
+                localKeys.add(key);
+                continue;
+            }
+            V nearValue = nearCache == null ? null : nearCache.get(key);
+            if (nearValue != null) {
+                result.put(key, nearValue);
+            } else {
+                remoteKeys.computeIfAbsent(owner, node -> new LinkedHashMap<K, byte[]>()).put(key, encodedKey);
+            }
+        }
+        // send every request before waiting for any answer
+        Map<String, Map<K, CompletableFuture<V>>> pending = new HashMap<String, Map<K, CompletableFuture<V>>>();
+        for (Map.Entry<String, Map<K, byte[]>> entry : remoteKeys.entrySet()) {
+            pending.put(entry.getKey(), remoteNode(entry.getKey()).getAll(entry.getValue()));
+        }
+        result.putAll(localStore.getAll(localKeys));
+        for (Map.Entry<String, Map<K, CompletableFuture<V>>> node : pending.entrySet()) {
+            for (Map.Entry<K, CompletableFuture<V>> entry : node.getValue().entrySet()) {
+                V value = await(node.getKey(), entry.getValue(), READ_TIMEOUT_MILLIS);
+                if (value != null) {
+                    result.put(entry.getKey(), value);
+                }
+            }
+        }
+        return result;
+    }
+
+    public void put(K key, V value) {
+        byte[] encodedKey = keyCodec.encode(key);
+        String owner = ownerOf(encodedKey);
+        if (owner.equals(localNode)) {
+            localStore.put(key, value);
+            return;
+        }
+        List<byte[]> arguments = new ArrayList<byte[]>(2);
+        arguments.add(encodedKey);
+        arguments.add(valueCodec.encode(value));
+        try {
+            send(owner, Protocol.request(Protocol.PUT, arguments));
+        } catch (RuntimeException e) {
+            // the owner may have taken the write anyway, the old value is no safer to keep
+            updateNearCache(key, null);
+            throw e;
+        }
+        updateNearCache(key, value);
+    }
+
+    public void evict(K key) {
+        byte[] encodedKey = keyCodec.encode(key);
+        String owner = ownerOf(encodedKey);
+        if (owner.equals(localNode)) {
+            localStore.evict(key);
+            return;
+        }
+        updateNearCache(key, null);
+        try {
+            send(owner, Protocol.request(Protocol.EVICT, Collections.singletonList(encodedKey)));
+        } finally {
+            // a read answered while the eviction was under way must not bring the value back
+            updateNearCache(key, null);
+        }
+    }
+
+    /**
+     * @return the number of entries this node owns
+     */
+    public int size() {
+        return localStore.size();
+    }
+
+    /**
+     * Serves a request from another node against the local store; register it with the transport.
+     */
+    public byte[] handle(byte[] request) {
+        List<byte[]> arguments = Protocol.arguments(request);
+        switch (Protocol.operation(request)) {
+            case Protocol.GET_ALL:
+                List<K> keys = new ArrayList<K>(arguments.size());
+                for (byte[] key : arguments) {
+                    keys.add(keyCodec.decode(key));
+                }
+                Map<K, V> found = localStore.getAll(keys);
+                List<byte[]> values = new ArrayList<byte[]>(keys.size());
+                for (K key : keys) {
+                    V value = found.get(key);
+                    values.add(value == null ? null : valueCodec.encode(value));
+                }
+                return Protocol.values(values);
+            case Protocol.PUT:
+                localStore.put(keyCodec.decode(arguments.get(0)), valueCodec.decode(arguments.get(1)));
+                return new byte[0];
+            case Protocol.EVICT:
+                localStore.evict(keyCodec.decode(arguments.get(0)));
+                return new byte[0];
+            default:
+                throw new IllegalArgumentException("Unknown operation " + Protocol.operation(request));
+        }
+    }
+
+    /**
+     * @return the node owning the key
+     */
+    public String nodeFor(K key) {
+        return ownerOf(keyCodec.encode(key));
+    }
+
+    private String ownerOf(byte[] encodedKey) {
+        String owner = ring.nodeFor(encodedKey);
+        if (owner == null) {
+            throw new IllegalStateException("No node in the ring");
+        }
+        return owner;
+    }
+
+    private RemoteNode remoteNode(String node) {
+        return remoteNodes.computeIfAbsent(node, RemoteNode::new);
+    }
+
+    private void send(String node, byte[] request) {
+        CompletableFuture<byte[]> response = transport.send(node, request);
+        try {
+            await(node, response, REQUEST_TIMEOUT_MILLIS);
+        } finally {
+            // nobody else waits for this answer, drop the request if we gave up on it
+            response.cancel(false);
+        }
+    }
+
+    private long version(K key) {
+        int index = versionIndex(key);
+        versionLocks[index].lock();
+        try {
+            return versions[index];
+        } finally {
+            versionLocks[index].unlock();
+        }
+    }
+
+    /**
+     * Caches a remote value read while the key's version was {@code version}, unless a write or
+     * eviction through this node has happened since.
+     */
+    private void fillNearCache(K key, V value, long version) {
+        if (nearCache == null) {
+            return;
+        }
+        int index = versionIndex(key);
+        versionLocks[index].lock();
+        try {
+            if (versions[index] == version) {
+                nearCache.put(key, value);
+            }
+        } finally {
+            versionLocks[index].unlock();
+        }
+    }
+
+    /**
+     * Bumps the key's version, so reads asked before are neither joined nor cached, and updates the near cache.
+     *
+     * @param value the value written, null for an eviction
+     */
+    private void updateNearCache(K key, V value) {
+        int index = versionIndex(key);
+        versionLocks[index].lock();
+        try {
+            versions[index]++;
+            if (nearCache == null) {
+                return;
+            }
+            if (value == null) {
+                nearCache.evict(key);
+            } else {
+                nearCache.put(key, value);
+            }
+        } finally {
+            versionLocks[index].unlock();
+        }
+    }
+
+    private static int versionIndex(Object key) {
+        int h = key.hashCode();
+        return (h ^ (h >>> 16)) & (VERSION_LOCKS - 1);
+    }
+
+    /**
+     * Waits for the answer without cancelling it on a timeout, other callers may share the future.
+     */
+    private static <T> T await(String node, CompletableFuture<T> future, long timeoutMillis) {
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UncheckedIOException(new IOException("Interrupted waiting for node " + node, e));
+        } catch (TimeoutException e) {
+            throw new UncheckedIOException(new IOException("No answer from node " + node
+                    + " within " + timeoutMillis + " ms", e));
+        } catch (CancellationException e) {
+            throw new UncheckedIOException(new IOException("Request to node " + node + " was cancelled", e));
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw new UncheckedIOException(cause instanceof IOException
+                    ? (IOException) cause : new IOException("Request to node " + node + " failed", cause));
+        }
+    }
+
+    /**
+     * The reads waiting for one remote node, at most one request to it in flight at a time.
+     */
+    private final class RemoteNode {
+        private final String name;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Map<K, Pending<K, V>> queued = new LinkedHashMap<K, Pending<K, V>>();
+        private Map<K, Pending<K, V>> inFlight;
+
+        RemoteNode(String name) {
+            this.name = name;
+        }
+
+        Map<K, CompletableFuture<V>> getAll(Map<K, byte[]> keys) {
+            Map<K, CompletableFuture<V>> futures = new LinkedHashMap<K, CompletableFuture<V>>();
+            Map<K, Pending<K, V>> batch = null;
+            lock.lock();
+            try {
+                for (Map.Entry<K, byte[]> entry : keys.entrySet()) {
+                    K key = entry.getKey();
+                    long version = version(key);
+                    Pending<K, V> pending = inFlight == null ? null : inFlight.get(key);
+                    if (pending == null || pending.version != version) {
+                        // a read sent before a write or eviction through this node may answer the old value;
+                        // a queued one is not sent yet, so it reads what the owner holds once the write returned
+                        pending = queued.computeIfAbsent(key, k -> new Pending<K, V>(entry.getValue(), version));
+                    }
+                    futures.put(key, pending.future);
+                }
+                if (inFlight == null) {
+                    batch = takeBatch();
+                }
+            } finally {
+                lock.unlock();
+            }
+            if (batch != null) {
+                send(batch);
+            }
+            return futures;
+        }
+
+        /**
+         * Moves up to {@link #MAX_BATCH_SIZE} queued keys in flight, called with the lock held.
+         */
+        private Map<K, Pending<K, V>> takeBatch() {
+            if (queued.isEmpty()) {
+                inFlight = null;
+                return null;
+            }
+            Map<K, Pending<K, V>> batch = new LinkedHashMap<K, Pending<K, V>>();
+            Iterator<Map.Entry<K, Pending<K, V>>> iterator = queued.entrySet().iterator();
+            while (iterator.hasNext() && batch.size() < MAX_BATCH_SIZE) {
+                Map.Entry<K, Pending<K, V>> entry = iterator.next();
+                batch.put(entry.getKey(), entry.getValue());
+                iterator.remove();
+            }
+            inFlight = batch;
+            return batch;
+        }
+
+        private void send(Map<K, Pending<K, V>> batch) {
+            List<byte[]> keys = new ArrayList<byte[]>(batch.size());
+            for (Pending<K, V> pending : batch.values()) {
+                keys.add(pending.encodedKey);
+            }
+            CompletableFuture<byte[]> response;
+            try {
+                response = transport.send(name, Protocol.request(Protocol.GET_ALL, keys));
+            } catch (RuntimeException e) {
+                response = new CompletableFuture<byte[]>();
+                response.completeExceptionally(e);
+            }
+            if (!response.isDone()) {
+                CompletableFuture<byte[]> answer = response;
+                ScheduledFuture<?> deadline = RequestTimer.INSTANCE.schedule(() -> answer.completeExceptionally(
+                        new IOException("No answer from node " + name + " within " + REQUEST_TIMEOUT_MILLIS + " ms",
+                                new TimeoutException())), REQUEST_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                answer.whenComplete((bytes, failure) -> deadline.cancel(false));
+            }
+            // the transport may complete the answer on its I/O thread, which must not decode or fill the near cache
+            response.whenCompleteAsync((bytes, failure) -> {
+                // out of flight before anybody wakes up, so a retry asks the node again
+                Map<K, Pending<K, V>> next;
+                lock.lock();
+                try {
+                    next = takeBatch();
+                } finally {
+                    lock.unlock();
+                }
+                if (failure != null) {
+                    for (Pending<K, V> pending : batch.values()) {
+                        pending.future.completeExceptionally(failure);
+                    }
+                } else {
+                    complete(batch, bytes);
+                }
+                if (next != null) {
+                    send(next);
+                }
+            }, executor);
+        }
+
+        private void complete(Map<K, Pending<K, V>> batch, byte[] response) {
+            Iterator<byte[]> values = Protocol.values(response).iterator();
+            for (Map.Entry<K, Pending<K, V>> entry : batch.entrySet()) {
+                Pending<K, V> pending = entry.getValue();
+                try {
+                    byte[] value = values.next();
+                    V decoded = value == null ? null : valueCodec.decode(value);
+                    if (decoded != null) {
+                        // before completing, so the caller finds it there on its next read
+                        fillNearCache(entry.getKey(), decoded, pending.version);
+                    }
+                    pending.future.complete(decoded);
+                } catch (RuntimeException e) {
+                    pending.future.completeExceptionally(e);
+                }
+            }
+        }
+    }
+
+    private static final class Pending<K, V> {
+        final byte[] encodedKey;
+        // taken before the request is sent, a later write or eviction through this node changes it
+        final long version;
+        final CompletableFuture<V> future = new CompletableFuture<V>();
+
+        Pending(byte[] encodedKey, long version) {
+            this.encodedKey = encodedKey;
+            this.version = version;
+        }
+    }
+
+    /**
+     * Fails the requests whose node did not answer in time, one daemon thread for all caches.
+     */
+    private static final class RequestTimer {
+        static final ScheduledThreadPoolExecutor INSTANCE = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "partitioned-cache-timeout");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        static {
+            INSTANCE.setRemoveOnCancelPolicy(true);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.gft.cache.partitioned;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Messages exchanged by the nodes of a {@link PartitionedCache}, keys and values already encoded.
+ * <p>
+ * A request is an operation byte followed by length prefixed byte strings: the keys of a
+ * {@link #GET_ALL}, the key and the value of a {@link #PUT}, the key of an {@link #EVICT}.
+ * The answer to a {@link #GET_ALL} lists one value per key in the same order, a length of -1
+ * standing for a miss; the other answers are empty.
+ */
+final class Protocol {
+
+    static final byte GET_ALL = 1;
+
+    static final byte PUT = 2;
+
+    static final byte EVICT = 3;
+
+    private static final int MISSING = -1;
+
+    private Protocol() {
+    }
+
+    static byte[] request(byte operation, List<byte[]> arguments) {
+        int size = 1;
+        for (byte[] argument : arguments) {
+            size += 4 + argument.length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.put(operation);
+        for (byte[] argument : arguments) {
+            buffer.putInt(argument.length).put(argument);
+        }
+        return buffer.array();
+    }
+
+    static byte operation(byte[] request) {
+        return request[0];
+    }
+
+    static List<byte[]> arguments(byte[] request) {
+        return strings(ByteBuffer.wrap(request, 1, request.length - 1));
+    }
+
+    /**
+     * @param values null for a miss
+     */
+    static byte[] values(List<byte[]> values) {
+        int size = 0;
+        for (byte[] value : values) {
+            size += 4 + (value == null ? 0 : value.length);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        for (byte[] value : values) {
+            if (value == null) {
+                buffer.putInt(MISSING);
+            } else {
+                buffer.putInt(value.length).put(value);
+            }
+        }
+        return buffer.array();
+    }
+
+    static List<byte[]> values(byte[] response) {
+        return strings(ByteBuffer.wrap(response));
+    }
+
+    private static List<byte[]> strings(ByteBuffer buffer) {
+        List<byte[]> strings = new ArrayList<byte[]>();
+        while (buffer.hasRemaining()) {
+            int length = buffer.getInt();
+            if (length == MISSING) {
+                strings.add(null);
+            } else {
+                byte[] string = new byte[length];
+                buffer.get(string);
+                strings.add(string);
+            }
+        }
+        return strings;
+    }
+}
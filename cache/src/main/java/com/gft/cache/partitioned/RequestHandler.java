@@ -0,0 +1,13 @@
+package com.gft.cache.partitioned;
+
+/**
+ * Answers the requests a {@link Transport} receives for the local node.
+ */
+@FunctionalInterface
+public interface RequestHandler {
+
+    /**
+     * @return the response, sent back to the requesting node; an exception is reported to it instead
+     */
+    byte[] handle(byte[] request) throws Exception;
+}
@@ -0,0 +1,21 @@
+package com.gft.cache.partitioned;
+
+import java.io.Closeable;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Carries request/response messages between the nodes of a {@link PartitionedCache}.
+ * <p>
+ * How a node serves the requests sent to it depends on the implementation, see
+ * {@link LoopbackTransport#register} and {@link NioTransport#listen}; either way they are
+ * handed to a {@link RequestHandler}. Several requests to the same node may be in flight at once.
+ */
+public interface Transport extends Closeable {
+
+    /**
+     * @return completes with the response, or exceptionally with an {@link java.io.IOException}
+     * when the node cannot be reached or its handler failed; it may complete on the transport's
+     * I/O thread, so callers run anything slow that depends on it on an executor of their own
+     */
+    CompletableFuture<byte[]> send(String node, byte[] request);
+}
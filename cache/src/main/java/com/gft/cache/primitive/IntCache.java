@@ -0,0 +1,28 @@
+package com.gft.cache.primitive;
+
+import com.gft.cache.Cache;
+
+/**
+ * Cache keyed by {@code int}. The primitive methods never box the key, the {@link Cache}
+ * methods unbox it and delegate.
+ */
+public interface IntCache<V> extends Cache<Integer, V> {
+
+    void put(int key, V value);
+
+    V get(int key);
+
+    void evict(int key);
+
+    default void put(Integer key, V value) {
+        put(key.intValue(), value);
+    }
+
+    default V get(Integer key) {
+        return get(key.intValue());
+    }
+
+    default void evict(Integer key) {
+        evict(key.intValue());
+    }
+}
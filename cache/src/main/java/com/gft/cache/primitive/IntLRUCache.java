@@ -0,0 +1,68 @@
+package com.gft.cache.primitive;
+
+/**
+ * Thread safe LRU cache keyed by {@code int}, without per entry objects, see {@link PrimitiveLRUCache}.
+ */
+public class IntLRUCache<V> extends PrimitiveLRUCache<V> implements IntCache<V> {
+
+    private final int[] keys;
+
+    public IntLRUCache(int maxSize) {
+        super(maxSize);
+        keys = new int[maxSize];
+    }
+
+    public void put(int key, V value) {
+        lock.lock();
+        try {
+            int slot = findSlot(key);
+            if (slot >= 0) {
+                update(slot, value);
+                return;
+            }
+            keys[insert(hash(key), value)] = key;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public V get(int key) {
+        lock.lock();
+        try {
+            int slot = findSlot(key);
+            return slot < 0 ? null : hit(slot);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void evict(int key) {
+        lock.lock();
+        try {
+            int slot = findSlot(key);
+            if (slot >= 0) {
+                removeSlot(slot);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int hashOf(int entry) {
+        return hash(keys[entry]);
+    }
+
+    private int findSlot(int key) {
+        for (int slot = hash(key) & tableMask; table[slot] != 0; slot = (slot + 1) & tableMask) {
+            if (keys[table[slot] - 1] == key) {
+                return slot;
+            }
+        }
+        return NONE;
+    }
+
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
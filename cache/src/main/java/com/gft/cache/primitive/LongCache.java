@@ -0,0 +1,28 @@
+package com.gft.cache.primitive;
+
+import com.gft.cache.Cache;
+
+/**
+ * Cache keyed by {@code long}. The primitive methods never box the key, the {@link Cache}
+ * methods unbox it and delegate.
+ */
+public interface LongCache<V> extends Cache<Long, V> {
+
+    void put(long key, V value);
+
+    V get(long key);
+
+    void evict(long key);
+
+    default void put(Long key, V value) {
+        put(key.longValue(), value);
+    }
+
+    default V get(Long key) {
+        return get(key.longValue());
+    }
+
+    default void evict(Long key) {
+        evict(key.longValue());
+    }
+}
@@ -0,0 +1,68 @@
+package com.gft.cache.primitive;
+
+/**
+ * Thread safe LRU cache keyed by {@code long}, without per entry objects, see {@link PrimitiveLRUCache}.
+ */
+public class LongLRUCache<V> extends PrimitiveLRUCache<V> implements LongCache<V> {
+
+    private final long[] keys;
+
+    public LongLRUCache(int maxSize) {
+        super(maxSize);
+        keys = new long[maxSize];
+    }
+
+    public void put(long key, V value) {
+        lock.lock();
+        try {
+            int slot = findSlot(key);
+            if (slot >= 0) {
+                update(slot, value);
+                return;
+            }
+            keys[insert(hash(key), value)] = key;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public V get(long key) {
+        lock.lock();
+        try {
+            int slot = findSlot(key);
+            return slot < 0 ? null : hit(slot);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void evict(long key) {
+        lock.lock();
+        try {
+            int slot = findSlot(key);
+            if (slot >= 0) {
+                removeSlot(slot);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int hashOf(int entry) {
+        return hash(keys[entry]);
+    }
+
+    private int findSlot(long key) {
+        for (int slot = hash(key) & tableMask; table[slot] != 0; slot = (slot + 1) & tableMask) {
+            if (keys[table[slot] - 1] == key) {
+                return slot;
+            }
+        }
+        return NONE;
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,173 @@
+package com.gft.cache.primitive;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Recency list and hash table shared by {@link IntLRUCache} and {@link LongLRUCache}, which only
+ * add the key array, the key hash and the key lookup.
+ * <p>
+ * Entries live in parallel arrays indexed by an entry number: the key, the value and the
+ * previous/next entry of the recency list. An open addressing hash table with linear probing
+ * maps keys to entry numbers (stored plus one, 0 marks a free slot) and removals shift the
+ * following probe run back instead of leaving tombstones. Neither hits nor updates allocate.
+ * <p>
+ * Every method but {@link #size()} expects the caller to hold {@link #lock}.
+ */
+abstract class PrimitiveLRUCache<V> {
+
+    static final int NONE = -1;
+
+    final ReentrantLock lock = new ReentrantLock();
+
+    final int[] table;
+
+    final int tableMask;
+
+    private final Object[] values;
+
+    private final int[] prev;
+
+    private final int[] next;
+
+    private int head = NONE;
+
+    private int tail = NONE;
+
+    private int free = NONE;
+
+    private int allocated;
+
+    private int size;
+
+    PrimitiveLRUCache(int maxSize) {
+        if (maxSize <= 0 || maxSize > 1 << 29) {
+            throw new IllegalArgumentException("maxSize must be between 1 and 2^29 but was " + maxSize);
+        }
+        int tableSize = Integer.highestOneBit(maxSize * 2 - 1) << 1;
+        table = new int[tableSize];
+        tableMask = tableSize - 1;
+        values = new Object[maxSize];
+        prev = new int[maxSize];
+        next = new int[maxSize];
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the hash of the key stored in the entry
+     */
+    abstract int hashOf(int entry);
+
+    @SuppressWarnings("unchecked")
+    V hit(int slot) {
+        int entry = table[slot] - 1;
+        moveToHead(entry);
+        return (V) values[entry];
+    }
+
+    void update(int slot, V value) {
+        int entry = table[slot] - 1;
+        values[entry] = value;
+        moveToHead(entry);
+    }
+
+    /**
+     * Adds an entry for a key that is not cached yet, evicting the least recently used one when full.
+     *
+     * @return the entry number, for the caller to store the key at
+     */
+    int insert(int hash, V value) {
+        if (size == values.length) {
+            removeSlot(slotOf(tail));
+        }
+        int entry = allocate();
+        values[entry] = value;
+        linkHead(entry);
+        int slot = hash & tableMask;
+        while (table[slot] != 0) {
+            slot = (slot + 1) & tableMask;
+        }
+        table[slot] = entry + 1;
+        size++;
+        return entry;
+    }
+
+    void removeSlot(int slot) {
+        int entry = table[slot] - 1;
+        unlink(entry);
+        values[entry] = null;
+        next[entry] = free;
+        free = entry;
+        size--;
+
+        // shift the rest of the probe run back so lookups never stop early at the hole
+        int hole = slot;
+        int current = (slot + 1) & tableMask;
+        while (table[current] != 0) {
+            int home = hashOf(table[current] - 1) & tableMask;
+            if (((current - home) & tableMask) >= ((current - hole) & tableMask)) {
+                table[hole] = table[current];
+                hole = current;
+            }
+            current = (current + 1) & tableMask;
+        }
+        table[hole] = 0;
+    }
+
+    private int slotOf(int entry) {
+        int slot = hashOf(entry) & tableMask;
+        while (table[slot] != entry + 1) {
+            slot = (slot + 1) & tableMask;
+        }
+        return slot;
+    }
+
+    private int allocate() {
+        if (free != NONE) {
+            int entry = free;
+            free = next[entry];
+            return entry;
+        }
+        return allocated++;
+    }
+
+    private void moveToHead(int entry) {
+        if (entry != head) {
+            unlink(entry);
+            linkHead(entry);
+        }
+    }
+
+    private void linkHead(int entry) {
+        prev[entry] = NONE;
+        next[entry] = head;
+        if (head != NONE) {
+            prev[head] = entry;
+        } else {
+            tail = entry;
+        }
+        head = entry;
+    }
+
+    private void unlink(int entry) {
+        int before = prev[entry];
+        int after = next[entry];
+        if (before != NONE) {
+            next[before] = after;
+        } else {
+            head = after;
+        }
+        if (after != NONE) {
+            prev[after] = before;
+        } else {
+            tail = before;
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package com.gft.cache.sampled;
+
+import com.gft.cache.Cache;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Thread safe cache evicting by sampling, the way Redis does, instead of keeping its entries in
+ * any global order.
+ * <p>
+ * Every entry carries a single {@code int} of access information and nothing else: for
+ * {@link SamplingPolicy#LRU} the logical time of its last use, for {@link SamplingPolicy#LFU} an
+ * 8 bit logarithmic access counter next to the 24 bit decay period it was last used in. The logical
+ * clock ticks once per insertion, so reads only read it. Reads go to a {@link ConcurrentHashMap}
+ * and update that one field without any lock; there is no list to reorder.
+ * <p>
+ * When the cache is full the writer, holding the eviction lock, picks random entries from a
+ * dense array of all entries, ranks them together with the candidates left over from previous
+ * rounds in an eviction pool and evicts the worst one. Pool candidates are re-ranked every round,
+ * so an entry read since it joined the pool is not evicted on an outdated score.
+ * <p>
+ * The LFU counter follows Redis: a new entry starts at {@value #LFU_INITIAL_VALUE} so it is not
+ * the first to go, a hit increments it with a probability shrinking as it grows, and every
+ * {@code decayPeriod} ticks, counted from the start of the period of its last hit, take one off.
+ */
+public class SampledCache<K, V> implements Cache<K, V> {
+
+    public static final int DEFAULT_SAMPLES = 5;
+
+    static final int POOL_SIZE = 16;
+
+    static final int LFU_INITIAL_VALUE = 5;
+
+    private static final int LFU_LOG_FACTOR = 10;
+
+    private static final int LFU_MAX_VALUE = 255;
+
+    private static final int TIME_MASK = 0xFFFFFF;
+
+    private final ConcurrentHashMap<K, Node<K, V>> map;
+
+    private final SamplingPolicy policy;
+
+    private final int maxSize;
+
+    private final int samples;
+
+    private final int decayPeriod;
+
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    private final Node<K, V>[] entries;
+
+    private int count;
+
+    private final Node<K, V>[] pool;
+
+    private final int[] poolScores;
+
+    private int poolSize;
+
+    private volatile int clock;
+
+    public SampledCache(int maxSize, SamplingPolicy policy) {
+        this(maxSize, policy, DEFAULT_SAMPLES, maxSize);
+    }
+
+    /**
+     * @param samples     entries picked at random for every eviction, more is closer to exact LRU or LFU
+     * @param decayPeriod insertions after which an unused LFU counter loses one, ignored for LRU
+     */
+    @SuppressWarnings("unchecked")
+    public SampledCache(int maxSize, SamplingPolicy policy, int samples, int decayPeriod) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive but was " + maxSize);
+        }
+        if (samples <= 0) {
+            throw new IllegalArgumentException("samples must be positive but was " + samples);
+        }
+        if (decayPeriod <= 0) {
+            throw new IllegalArgumentException("decayPeriod must be positive but was " + decayPeriod);
+        }
+        this.maxSize = maxSize;
+        this.policy = policy;
+        this.samples = samples;
+        this.decayPeriod = decayPeriod;
+        this.map = new ConcurrentHashMap<K, Node<K, V>>(maxSize);
+        this.entries = new Node[maxSize];
+        this.pool = new Node[POOL_SIZE];
+        this.poolScores = new int[POOL_SIZE];
+    }
+
+    public V get(K key) {
+        Node<K, V> node = map.get(key);
+        if (node == null) {
+            return null;
+        }
+        touch(node);
+        return node.value;
+    }
+
+    public void put(K key, V value) {
+        evictionLock.lock();
+        try {
+            Node<K, V> node = map.get(key);
+            if (node != null) {
+                node.value = value;
+                touch(node);
+                return;
+            }
+            if (count == maxSize) {
+                evictOne();
+            }
+            int now = ++clock;
+            node = new Node<K, V>(key, value);
+            node.access = policy == SamplingPolicy.LRU ? now : lfuAccess(now, LFU_INITIAL_VALUE);
+            node.index = count;
+            entries[count++] = node;
+            map.put(key, node);
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    public void evict(K key) {
+        evictionLock.lock();
+        try {
+            Node<K, V> node = map.remove(key);
+            if (node != null) {
+                unlink(node);
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    public int size() {
+        return map.size();
+    }
+
+    private void touch(Node<K, V> node) {
+        int now = clock;
+        if (policy == SamplingPolicy.LRU) {
+            // skip the write when nothing was inserted since, so hot entries do not bounce their cache line
+            if (node.access != now) {
+                node.access = now;
+            }
+            return;
+        }
+        int access = node.access;
+        int counter = decayedCounter(access, now);
+        if (counter < LFU_MAX_VALUE) {
+            int base = Math.max(counter - LFU_INITIAL_VALUE, 0);
+            if (ThreadLocalRandom.current().nextDouble() * (base * LFU_LOG_FACTOR + 1) < 1.0) {
+                counter++;
+            }
+        }
+        int updated = lfuAccess(now, counter);
+        if (updated != access) {
+            node.access = updated;
+        }
+    }
+
+    /**
+     * Packs the counter with the current decay period; it only changes once per period, so most
+     * hits on a hot entry do not write at all.
+     */
+    private int lfuAccess(int now, int counter) {
+        return (((now / decayPeriod) & TIME_MASK) << 8) | counter;
+    }
+
+    private int decayedCounter(int access, int now) {
+        int counter = access & 0xFF;
+        int elapsedPeriods = ((now / decayPeriod) - (access >>> 8)) & TIME_MASK;
+        return Math.max(counter - elapsedPeriods, 0);
+    }
+
+    /**
+     * @return how much the entry deserves to be evicted, the higher the sooner
+     */
+    private int score(Node<K, V> node, int now) {
+        if (policy == SamplingPolicy.LRU) {
+            return now - node.access;
+        }
+        return LFU_MAX_VALUE - decayedCounter(node.access, now);
+    }
+
+    private void evictOne() {
+        int now = clock;
+        // re-rank the candidates kept from earlier rounds and drop the ones already gone
+        int kept = 0;
+        for (int i = 0; i < poolSize; i++) {
+            Node<K, V> candidate = pool[i];
+            pool[i] = null;
+            if (candidate.index >= 0) {
+                pool[kept] = candidate;
+                poolScores[kept] = score(candidate, now);
+                kept++;
+            }
+        }
+        poolSize = kept;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < samples; i++) {
+            offer(entries[random.nextInt(count)], now);
+        }
+        int worst = 0;
+        for (int i = 1; i < poolSize; i++) {
+            if (poolScores[i] > poolScores[worst]) {
+                worst = i;
+            }
+        }
+        Node<K, V> victim = pool[worst];
+        pool[worst] = pool[--poolSize];
+        poolScores[worst] = poolScores[poolSize];
+        pool[poolSize] = null;
+        map.remove(victim.key, victim);
+        unlink(victim);
+    }
+
+    /**
+     * Adds a sampled entry to the pool, replacing the best entry in it when the pool is full.
+     */
+    private void offer(Node<K, V> node, int now) {
+        for (int i = 0; i < poolSize; i++) {
+            if (pool[i] == node) {
+                return;
+            }
+        }
+        int score = score(node, now);
+        if (poolSize < POOL_SIZE) {
+            pool[poolSize] = node;
+            poolScores[poolSize] = score;
+            poolSize++;
+            return;
+        }
+        int best = 0;
+        for (int i = 1; i < POOL_SIZE; i++) {
+            if (poolScores[i] < poolScores[best]) {
+                best = i;
+            }
+        }
+        if (score > poolScores[best]) {
+            pool[best] = node;
+            poolScores[best] = score;
+        }
+    }
+
+    private void unlink(Node<K, V> node) {
+        Node<K, V> last = entries[--count];
+        entries[node.index] = last;
+        last.index = node.index;
+        entries[count] = null;
+        node.index = -1;
+    }
+
+    private static final class Node<K, V> {
+        final K key;
+        volatile V value;
+        volatile int access;
+        // position in entries, -1 once removed; only used under the eviction lock
+        int index;
+
+        Node(K key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+}
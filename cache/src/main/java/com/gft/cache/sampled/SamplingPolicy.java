@@ -0,0 +1,18 @@
+package com.gft.cache.sampled;
+
+/**
+ * How a {@link SampledCache} ranks the entries it sampled for eviction.
+ */
+public enum SamplingPolicy {
+
+    /**
+     * Evicts the entry that has not been read or written for the longest time.
+     */
+    LRU,
+
+    /**
+     * Evicts the entry with the lowest access frequency, counted by a logarithmic counter that
+     * decays while the entry is idle.
+     */
+    LFU
+}
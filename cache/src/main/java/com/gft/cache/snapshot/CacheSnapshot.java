@@ -0,0 +1,107 @@
+package com.gft.cache.snapshot;
+
+import com.gft.cache.codec.Codec;
+import com.gft.cache.lfu.LFUCache;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Saves the entries of an {@link LFUCache} together with their frequencies, so a restarted
+ * process can start with a warm cache instead of an empty one.
+ * <p>
+ * The file is a header of three ints, magic, version and entry count, followed by one record
+ * per entry: frequency, key length, key bytes, value length, value bytes, all big-endian.
+ * Records are sorted from the most to the least frequently used, so a partially restored
+ * snapshot already holds the hottest keys.
+ * <p>
+ * The snapshot is written to a temporary file in the target directory and moved over the
+ * target atomically, a crash while saving never leaves a truncated snapshot behind.
+ */
+public class CacheSnapshot<K, V> {
+
+    static final int MAGIC = 0x4C465553;
+
+    static final int VERSION = 1;
+
+    static final int HEADER_SIZE = 12;
+
+    private final Codec<K> keyCodec;
+
+    private final Codec<V> valueCodec;
+
+    public CacheSnapshot(Codec<K> keyCodec, Codec<V> valueCodec) {
+        this.keyCodec = keyCodec;
+        this.valueCodec = valueCodec;
+    }
+
+    /**
+     * @return the number of entries written
+     */
+    public int write(LFUCache<K, V> cache, Path file) throws IOException {
+        List<byte[]> keys = new ArrayList<byte[]>();
+        List<byte[]> values = new ArrayList<byte[]>();
+        List<Integer> frequencies = new ArrayList<Integer>();
+        long[] size = {HEADER_SIZE};
+        cache.forEachByFrequency((key, value, frequency) -> {
+            byte[] keyBytes = keyCodec.encode(key);
+            byte[] valueBytes = valueCodec.encode(value);
+            keys.add(keyBytes);
+            values.add(valueBytes);
+            frequencies.add(frequency);
+            size[0] += 12 + keyBytes.length + valueBytes.length;
+        });
+        if (size[0] > Integer.MAX_VALUE) {
+            throw new IOException("Snapshot of " + size[0] + " bytes does not fit into one mapping");
+        }
+
+        Path directory = file.toAbsolutePath().getParent();
+        Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size[0]);
+                buffer.putInt(MAGIC);
+                buffer.putInt(VERSION);
+                buffer.putInt(keys.size());
+                for (int i = 0; i < keys.size(); i++) {
+                    buffer.putInt(frequencies.get(i));
+                    buffer.putInt(keys.get(i).length);
+                    buffer.put(keys.get(i));
+                    buffer.putInt(values.get(i).length);
+                    buffer.put(values.get(i));
+                }
+                buffer.force();
+            }
+            Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+        return keys.size();
+    }
+
+    /**
+     * Maps a snapshot written by {@link #write(LFUCache, Path)}. Only the header is read here,
+     * the records are paged in by the operating system while they are restored.
+     */
+    public MappedSnapshot<K, V> open(Path file) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // the mapping stays valid after the channel is closed
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException(file + " is not a cache snapshot");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException(file + " has unsupported snapshot version " + buffer.getInt(4));
+        }
+        return new MappedSnapshot<K, V>(buffer, buffer.getInt(8), keyCodec, valueCodec);
+    }
+}
@@ -0,0 +1,74 @@
+package com.gft.cache.snapshot;
+
+import com.gft.cache.codec.Codec;
+import com.gft.cache.lfu.LFUCache;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * A snapshot mapped into memory by {@link CacheSnapshot#open(java.nio.file.Path)}.
+ * <p>
+ * Restoring goes through {@link LFUCache#putWithFrequency(Object, Object, int)}, so entries
+ * written by the application in the meantime are never overwritten by stale snapshot values.
+ * That makes it safe to serve requests while {@link #warmUp(LFUCache, Executor)} is still
+ * running in the background.
+ */
+public class MappedSnapshot<K, V> {
+
+    private final ByteBuffer buffer;
+
+    private final int entryCount;
+
+    private final Codec<K> keyCodec;
+
+    private final Codec<V> valueCodec;
+
+    MappedSnapshot(ByteBuffer buffer, int entryCount, Codec<K> keyCodec, Codec<V> valueCodec) {
+        this.buffer = buffer;
+        this.entryCount = entryCount;
+        this.keyCodec = keyCodec;
+        this.valueCodec = valueCodec;
+    }
+
+    public int entryCount() {
+        return entryCount;
+    }
+
+    /**
+     * Adds the snapshot entries to the cache on the calling thread, hottest first.
+     *
+     * @return the number of entries the cache accepted
+     */
+    public int restoreInto(LFUCache<K, V> cache) {
+        // every restore reads through its own position
+        ByteBuffer records = buffer.duplicate();
+        records.position(CacheSnapshot.HEADER_SIZE);
+        int restored = 0;
+        for (int i = 0; i < entryCount; i++) {
+            int frequency = records.getInt();
+            K key = keyCodec.decode(read(records));
+            V value = valueCodec.decode(read(records));
+            if (cache.putWithFrequency(key, value, frequency)) {
+                restored++;
+            }
+        }
+        return restored;
+    }
+
+    /**
+     * Restores the snapshot on the executor while the cache is already in use.
+     *
+     * @return completes with the number of entries the cache accepted
+     */
+    public CompletableFuture<Integer> warmUp(final LFUCache<K, V> cache, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> restoreInto(cache), executor);
+    }
+
+    private static byte[] read(ByteBuffer records) {
+        byte[] bytes = new byte[records.getInt()];
+        records.get(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,23 @@
+package com.gft.cache.stats;
+
+/**
+ * The operations whose latency is tracked by a {@link StatsCounter}.
+ */
+public enum CacheOperation {
+
+    GET,
+
+    PUT,
+
+    REMOVE,
+
+    /**
+     * Running the loader of a {@link com.gft.cache.LoadingCache}.
+     */
+    LOAD,
+
+    /**
+     * Waiting for the lock of the cache.
+     */
+    LOCK_WAIT
+}
@@ -0,0 +1,112 @@
+package com.gft.cache.stats;
+
+/**
+ * Immutable snapshot of the counters of a {@link StatsCounter}.
+ */
+public final class CacheStats {
+
+    private static final CacheStats EMPTY = new CacheStats(0, 0, 0, 0, 0, 0);
+
+    private final long hitCount;
+
+    private final long missCount;
+
+    private final long loadSuccessCount;
+
+    private final long loadFailureCount;
+
+    private final long totalLoadTime;
+
+    private final long evictionCount;
+
+    public CacheStats(long hitCount, long missCount, long loadSuccessCount, long loadFailureCount,
+                      long totalLoadTime, long evictionCount) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.loadSuccessCount = loadSuccessCount;
+        this.loadFailureCount = loadFailureCount;
+        this.totalLoadTime = totalLoadTime;
+        this.evictionCount = evictionCount;
+    }
+
+    public static CacheStats empty() {
+        return EMPTY;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    public long getRequestCount() {
+        return hitCount + missCount;
+    }
+
+    /**
+     * @return the share of lookups that found a value, 1 when there was no lookup yet
+     */
+    public double getHitRate() {
+        long requestCount = getRequestCount();
+        return requestCount == 0 ? 1.0 : (double) hitCount / requestCount;
+    }
+
+    public double getMissRate() {
+        long requestCount = getRequestCount();
+        return requestCount == 0 ? 0.0 : (double) missCount / requestCount;
+    }
+
+    public long getLoadSuccessCount() {
+        return loadSuccessCount;
+    }
+
+    public long getLoadFailureCount() {
+        return loadFailureCount;
+    }
+
+    /**
+     * @return the nanoseconds spent loading, failed loads included
+     */
+    public long getTotalLoadTime() {
+        return totalLoadTime;
+    }
+
+    /**
+     * @return the average nanoseconds a load took, 0 when nothing was loaded
+     */
+    public double getAverageLoadPenalty() {
+        long loadCount = loadSuccessCount + loadFailureCount;
+        return loadCount == 0 ? 0.0 : (double) totalLoadTime / loadCount;
+    }
+
+    /**
+     * @return the number of entries evicted because of the size bound or expiration
+     */
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * @return the counts recorded since {@code earlier} was taken
+     */
+    public CacheStats minus(CacheStats earlier) {
+        return new CacheStats(
+                hitCount - earlier.hitCount,
+                missCount - earlier.missCount,
+                loadSuccessCount - earlier.loadSuccessCount,
+                loadFailureCount - earlier.loadFailureCount,
+                totalLoadTime - earlier.totalLoadTime,
+                evictionCount - earlier.evictionCount);
+    }
+
+    public String toString() {
+        return "CacheStats{hitCount=" + hitCount
+                + ", missCount=" + missCount
+                + ", loadSuccessCount=" + loadSuccessCount
+                + ", loadFailureCount=" + loadFailureCount
+                + ", totalLoadTime=" + totalLoadTime
+                + ", evictionCount=" + evictionCount + "}";
+    }
+}
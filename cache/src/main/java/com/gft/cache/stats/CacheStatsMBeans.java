@@ -0,0 +1,91 @@
+package com.gft.cache.stats;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Publishes {@link StatsCounter}s on the platform MBean server, under
+ * {@code com.gft.cache:type=CacheStatistics,name=<cache name>}.
+ */
+public final class CacheStatsMBeans {
+
+    private CacheStatsMBeans() {
+    }
+
+    public static ObjectName register(String cacheName, StatsCounter statsCounter) throws JMException {
+        ObjectName objectName = objectName(cacheName);
+        ManagementFactory.getPlatformMBeanServer().registerMBean(new StatsView(statsCounter), objectName);
+        return objectName;
+    }
+
+    public static void unregister(String cacheName) throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName objectName = objectName(cacheName);
+        if (server.isRegistered(objectName)) {
+            server.unregisterMBean(objectName);
+        }
+    }
+
+    public static ObjectName objectName(String cacheName) throws JMException {
+        return new ObjectName("com.gft.cache:type=CacheStatistics,name=" + ObjectName.quote(cacheName));
+    }
+
+    private static final class StatsView implements CacheStatsMXBean {
+        private final StatsCounter statsCounter;
+
+        StatsView(StatsCounter statsCounter) {
+            this.statsCounter = statsCounter;
+        }
+
+        public long getHitCount() {
+            return statsCounter.snapshot().getHitCount();
+        }
+
+        public long getMissCount() {
+            return statsCounter.snapshot().getMissCount();
+        }
+
+        public double getHitRate() {
+            return statsCounter.snapshot().getHitRate();
+        }
+
+        public long getLoadSuccessCount() {
+            return statsCounter.snapshot().getLoadSuccessCount();
+        }
+
+        public long getLoadFailureCount() {
+            return statsCounter.snapshot().getLoadFailureCount();
+        }
+
+        public long getTotalLoadTime() {
+            return statsCounter.snapshot().getTotalLoadTime();
+        }
+
+        public double getAverageLoadPenalty() {
+            return statsCounter.snapshot().getAverageLoadPenalty();
+        }
+
+        public long getEvictionCount() {
+            return statsCounter.snapshot().getEvictionCount();
+        }
+
+        public Map<String, Long> getLatencies() {
+            Map<String, Long> latencies = new LinkedHashMap<String, Long>();
+            for (CacheOperation operation : CacheOperation.values()) {
+                LatencyHistogram histogram = statsCounter.latency(operation);
+                if (histogram == null) {
+                    continue;
+                }
+                latencies.put(operation + ".p50", histogram.getValueAtPercentile(50));
+                latencies.put(operation + ".p99", histogram.getValueAtPercentile(99));
+                latencies.put(operation + ".p999", histogram.getValueAtPercentile(99.9));
+                latencies.put(operation + ".max", histogram.getMax());
+            }
+            return latencies;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.gft.cache.stats;
+
+import java.util.Map;
+
+/**
+ * JMX view of a {@link StatsCounter}, registered through {@link CacheStatsMBeans}.
+ */
+public interface CacheStatsMXBean {
+
+    long getHitCount();
+
+    long getMissCount();
+
+    double getHitRate();
+
+    long getLoadSuccessCount();
+
+    long getLoadFailureCount();
+
+    long getTotalLoadTime();
+
+    double getAverageLoadPenalty();
+
+    long getEvictionCount();
+
+    /**
+     * @return nanosecond latencies keyed like {@code GET.p99}, for the 50th, 99th and 99.9th percentile and the maximum
+     */
+    Map<String, Long> getLatencies();
+}
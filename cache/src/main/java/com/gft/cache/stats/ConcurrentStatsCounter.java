@@ -0,0 +1,74 @@
+package com.gft.cache.stats;
+
+import java.util.EnumMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread safe {@link StatsCounter} built on {@link LongAdder}s, recording from many threads
+ * never contends on a shared counter.
+ */
+public class ConcurrentStatsCounter implements StatsCounter {
+
+    private final LongAdder hitCount = new LongAdder();
+
+    private final LongAdder missCount = new LongAdder();
+
+    private final LongAdder loadSuccessCount = new LongAdder();
+
+    private final LongAdder loadFailureCount = new LongAdder();
+
+    private final LongAdder totalLoadTime = new LongAdder();
+
+    private final LongAdder evictionCount = new LongAdder();
+
+    private final EnumMap<CacheOperation, LatencyHistogram> latencies = new EnumMap<CacheOperation, LatencyHistogram>(CacheOperation.class);
+
+    public ConcurrentStatsCounter() {
+        // filled once, only read afterwards
+        for (CacheOperation operation : CacheOperation.values()) {
+            latencies.put(operation, new LatencyHistogram());
+        }
+    }
+
+    public void recordHits(int count) {
+        hitCount.add(count);
+    }
+
+    public void recordMisses(int count) {
+        missCount.add(count);
+    }
+
+    public void recordLoadSuccess(long loadTime) {
+        loadSuccessCount.increment();
+        totalLoadTime.add(loadTime);
+        latencies.get(CacheOperation.LOAD).recordValue(loadTime);
+    }
+
+    public void recordLoadFailure(long loadTime) {
+        loadFailureCount.increment();
+        totalLoadTime.add(loadTime);
+        latencies.get(CacheOperation.LOAD).recordValue(loadTime);
+    }
+
+    public void recordEviction() {
+        evictionCount.increment();
+    }
+
+    public void recordLatency(CacheOperation operation, long nanos) {
+        latencies.get(operation).recordValue(nanos);
+    }
+
+    public CacheStats snapshot() {
+        return new CacheStats(
+                hitCount.sum(),
+                missCount.sum(),
+                loadSuccessCount.sum(),
+                loadFailureCount.sum(),
+                totalLoadTime.sum(),
+                evictionCount.sum());
+    }
+
+    public LatencyHistogram latency(CacheOperation operation) {
+        return latencies.get(operation);
+    }
+}
@@ -0,0 +1,39 @@
+package com.gft.cache.stats;
+
+/**
+ * Drops everything, so caches without statistics pay nothing but a call.
+ */
+enum DisabledStatsCounter implements StatsCounter {
+
+    INSTANCE;
+
+    public void recordHits(int count) {
+    }
+
+    public void recordMisses(int count) {
+    }
+
+    public void recordLoadSuccess(long loadTime) {
+    }
+
+    public void recordLoadFailure(long loadTime) {
+    }
+
+    public void recordEviction() {
+    }
+
+    public void recordLatency(CacheOperation operation, long nanos) {
+    }
+
+    public CacheStats snapshot() {
+        return CacheStats.empty();
+    }
+
+    public LatencyHistogram latency(CacheOperation operation) {
+        return null;
+    }
+
+    public boolean isEnabled() {
+        return false;
+    }
+}
@@ -0,0 +1,101 @@
+package com.gft.cache.stats;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread safe histogram of nanosecond durations, laid out like an HdrHistogram.
+ * <p>
+ * Values below 32 get a bucket each. Above that every power of two is split into 16 buckets,
+ * so a recorded value is reported with a relative error below 1/16. Every bucket is a
+ * {@link LongAdder}, threads recording at the same time do not contend.
+ * Values above {@link #MAX_TRACKABLE_VALUE}, a little over two hours, are recorded as that value.
+ */
+public class LatencyHistogram {
+
+    public static final long MAX_TRACKABLE_VALUE = (1L << 43) - 1;
+
+    private static final int SUB_BUCKET_BITS = 4;
+
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private static final int LINEAR_LIMIT = 2 * SUB_BUCKETS;
+
+    private final LongAdder[] buckets = new LongAdder[bucketIndex(MAX_TRACKABLE_VALUE) + 1];
+
+    private final LongAdder count = new LongAdder();
+
+    private final LongAdder sum = new LongAdder();
+
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    public LatencyHistogram() {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void recordValue(long nanos) {
+        long value = Math.min(Math.max(nanos, 0), MAX_TRACKABLE_VALUE);
+        buckets[bucketIndex(value)].increment();
+        count.increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public double getMean() {
+        long count = getCount();
+        return count == 0 ? 0.0 : (double) sum.sum() / count;
+    }
+
+    /**
+     * @param percentile between 0 and 100
+     * @return the largest value of the bucket holding the percentile, 0 when nothing was recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        long[] counts = new long[buckets.length];
+        long total = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            counts[i] = buckets[i].sum();
+            total += counts[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(Math.min(percentile, 100.0) / 100.0 * total));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(highestEquivalentValue(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    static int bucketIndex(long value) {
+        if (value < LINEAR_LIMIT) {
+            return (int) value;
+        }
+        // keep the 5 highest bits: the leading one and 4 bits of sub bucket
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return shift * SUB_BUCKETS + (int) (value >>> shift);
+    }
+
+    static long highestEquivalentValue(int index) {
+        if (index < LINEAR_LIMIT) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long subBucket = index % SUB_BUCKETS + SUB_BUCKETS;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,43 @@
+package com.gft.cache.stats;
+
+/**
+ * Accumulates the statistics of a cache while it is in use.
+ */
+public interface StatsCounter {
+
+    void recordHits(int count);
+
+    void recordMisses(int count);
+
+    void recordLoadSuccess(long loadTime);
+
+    void recordLoadFailure(long loadTime);
+
+    void recordEviction();
+
+    void recordLatency(CacheOperation operation, long nanos);
+
+    /**
+     * @return the counters recorded so far
+     */
+    CacheStats snapshot();
+
+    /**
+     * @return the latencies recorded so far, null when latencies are not recorded
+     */
+    LatencyHistogram latency(CacheOperation operation);
+
+    /**
+     * @return whether anything is recorded, callers may skip measuring latencies otherwise
+     */
+    default boolean isEnabled() {
+        return true;
+    }
+
+    /**
+     * @return counter dropping everything, the default when statistics are not requested
+     */
+    static StatsCounter disabled() {
+        return DisabledStatsCounter.INSTANCE;
+    }
+}
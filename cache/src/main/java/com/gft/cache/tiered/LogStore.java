@@ -0,0 +1,364 @@
+package com.gft.cache.tiered;
+
+import com.gft.cache.codec.Codec;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Thread safe key value store appending serialized values to a local file.
+ * <p>
+ * The keys and the position of their latest record stay on the heap; a record is a length
+ * followed by the value bytes. Overwritten and removed records are left in place as garbage
+ * until the file is compacted, which happens on the given executor once the garbage reaches
+ * the threshold and outweighs the live records. Appends and reads carry on meanwhile: the live
+ * records are copied without the lock, then in rounds whatever was written during the previous
+ * one, and the lock is only held to copy the last few records and swap the files.
+ * <p>
+ * The file is scratch space: it is truncated when the store is opened and deleted on {@link #close()}.
+ * When {@code maximumSize} is exceeded the entries that were written the longest ago are dropped.
+ */
+public class LogStore<K, V> implements Closeable {
+
+    // catch-up rounds of a compaction before the rest is copied under the lock whatever its size
+    private static final int MAX_CATCH_UP_ROUNDS = 8;
+
+    private static final long MAX_LOCKED_COPY = 64 * 1024;
+
+    private final Path file;
+
+    private final Codec<V> codec;
+
+    private final Executor executor;
+
+    private final int maximumSize;
+
+    private final long compactionThreshold;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // insertion ordered, so the eldest entry is the one written first
+    private LinkedHashMap<K, Location> index = new LinkedHashMap<K, Location>();
+
+    private FileChannel channel;
+
+    private long end;
+
+    private long garbage;
+
+    private boolean compacting;
+
+    public LogStore(Path file, Codec<V> codec, int maximumSize, long compactionThreshold, Executor executor) throws IOException {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("maximumSize must be positive but was " + maximumSize);
+        }
+        this.file = file;
+        this.codec = codec;
+        this.maximumSize = maximumSize;
+        this.compactionThreshold = compactionThreshold;
+        this.executor = executor;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    public void put(K key, V value) {
+        byte[] bytes = codec.encode(value);
+        ByteBuffer record = ByteBuffer.allocate(4 + bytes.length);
+        record.putInt(bytes.length).put(bytes).flip();
+        lock.lock();
+        try {
+            try {
+                writeFully(channel, record, end);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            // removed first, so a rewritten key moves to the end of the insertion order
+            discard(index.remove(key));
+            index.put(key, new Location(end, bytes.length));
+            end += record.capacity();
+            if (index.size() > maximumSize) {
+                Iterator<Location> eldest = index.values().iterator();
+                discard(eldest.next());
+                eldest.remove();
+            }
+            maybeCompact();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public V get(K key) {
+        byte[] bytes;
+        lock.lock();
+        try {
+            Location location = index.get(key);
+            if (location == null) {
+                return null;
+            }
+            bytes = read(location);
+        } finally {
+            lock.unlock();
+        }
+        return codec.decode(bytes);
+    }
+
+    /**
+     * Removes the entry and returns its value.
+     *
+     * @return the value or null when the key is not stored
+     */
+    public V take(K key) {
+        byte[] bytes;
+        lock.lock();
+        try {
+            Location location = index.remove(key);
+            if (location == null) {
+                return null;
+            }
+            bytes = read(location);
+            discard(location);
+            maybeCompact();
+        } finally {
+            lock.unlock();
+        }
+        return codec.decode(bytes);
+    }
+
+    public void remove(K key) {
+        lock.lock();
+        try {
+            Location location = index.remove(key);
+            if (location != null) {
+                discard(location);
+                maybeCompact();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return index.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the length of the log file in bytes, live records and garbage
+     */
+    public long fileSize() {
+        lock.lock();
+        try {
+            return end;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Rewrites the log with the live records only, on the calling thread.
+     * Does nothing while a compaction is already running.
+     */
+    public void compact() {
+        lock.lock();
+        try {
+            if (compacting) {
+                return;
+            }
+            compacting = true;
+        } finally {
+            lock.unlock();
+        }
+        compactNow();
+    }
+
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            channel.close();
+            Files.deleteIfExists(file);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void maybeCompact() {
+        if (!compacting && garbage >= compactionThreshold && garbage > end - garbage) {
+            compacting = true;
+            executor.execute(this::compactNow);
+        }
+    }
+
+    private void compactNow() {
+        Path target = file.resolveSibling(file.getFileName() + ".compact");
+        try {
+            compactInto(target);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.lock();
+            try {
+                compacting = false;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void compactInto(Path target) throws IOException {
+        Map<K, Location> copied = new HashMap<K, Location>();
+        Map<K, Location> moved = new HashMap<K, Location>();
+        FileChannel source;
+        lock.lock();
+        try {
+            source = channel;
+        } finally {
+            lock.unlock();
+        }
+        FileChannel compacted = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            // records are never written again, so they are copied without the lock; every round
+            // copies what was written during the previous one until the rest is small
+            long position = 0;
+            for (int round = 0; round < MAX_CATCH_UP_ROUNDS; round++) {
+                Map<K, Location> changed = changedSince(copied);
+                if (round > 0 && bytes(changed) <= MAX_LOCKED_COPY) {
+                    break;
+                }
+                for (Map.Entry<K, Location> entry : changed.entrySet()) {
+                    position = copy(source, entry.getValue(), compacted, position, moved, entry.getKey());
+                    copied.put(entry.getKey(), entry.getValue());
+                }
+            }
+            compacted.force(false);
+
+            lock.lock();
+            try {
+                if (!channel.isOpen()) {
+                    compacted.close();
+                    Files.deleteIfExists(target);
+                    return;
+                }
+                LinkedHashMap<K, Location> compactedIndex = new LinkedHashMap<K, Location>();
+                long live = 0;
+                for (Map.Entry<K, Location> entry : index.entrySet()) {
+                    K key = entry.getKey();
+                    if (copied.get(key) == entry.getValue()) {
+                        compactedIndex.put(key, moved.get(key));
+                    } else {
+                        // written since the last round, the file is scratch space so this tail is not forced
+                        position = copy(channel, entry.getValue(), compacted, position, compactedIndex, key);
+                    }
+                    live += 4 + entry.getValue().length;
+                }
+                Files.move(target, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                channel.close();
+                channel = compacted;
+                index = compactedIndex;
+                end = position;
+                // records rewritten between two rounds were copied more than once
+                garbage = position - live;
+            } finally {
+                lock.unlock();
+            }
+        } catch (IOException | RuntimeException e) {
+            compacted.close();
+            Files.deleteIfExists(target);
+            throw e;
+        }
+    }
+
+    /**
+     * @return the live records whose location differs from the copied one, in insertion order
+     */
+    private Map<K, Location> changedSince(Map<K, Location> copied) {
+        Map<K, Location> changed = new LinkedHashMap<K, Location>();
+        lock.lock();
+        try {
+            for (Map.Entry<K, Location> entry : index.entrySet()) {
+                if (copied.get(entry.getKey()) != entry.getValue()) {
+                    changed.put(entry.getKey(), entry.getValue());
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        return changed;
+    }
+
+    private static long bytes(Map<?, Location> records) {
+        long bytes = 0;
+        for (Location location : records.values()) {
+            bytes += 4 + location.length;
+        }
+        return bytes;
+    }
+
+    private long copy(FileChannel from, Location location, FileChannel to, long position, Map<K, Location> index, K key) throws IOException {
+        ByteBuffer record = ByteBuffer.allocate(4 + location.length);
+        readFully(from, record, location.offset);
+        record.flip();
+        writeFully(to, record, position);
+        index.put(key, new Location(position, location.length));
+        return position + record.capacity();
+    }
+
+    private byte[] read(Location location) {
+        ByteBuffer bytes = ByteBuffer.allocate(location.length);
+        try {
+            readFully(channel, bytes, location.offset + 4);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.array();
+    }
+
+    private void discard(Location location) {
+        if (location != null) {
+            garbage += 4 + location.length;
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Unexpected end of " + channel);
+            }
+            position += read;
+        }
+    }
+
+    private static final class Location {
+        private final long offset;
+        private final int length;
+
+        Location(long offset, int length) {
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.gft.cache.tiered;
+
+import com.gft.cache.Cache;
+import com.gft.cache.CacheBuilder;
+import com.gft.cache.codec.Codec;
+import com.gft.cache.lfu.LFUCache;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Thread safe two level cache: an {@link LFUCache} on the heap in front of a {@link LogStore} on disk.
+ * <p>
+ * Entries evicted from the hot tier to make room are appended to the cold tier instead of being
+ * dropped. The hot tier only remembers them while it holds its lock; they are written to disk
+ * by the calling thread once every lock is released, so no hot tier operation waits for the disk.
+ * A miss in the hot tier takes the entry out of the cold tier, or out of the spills not written
+ * yet, and promotes it back, which may in turn spill a colder entry. Only puts and evictions reach
+ * the {@link com.gft.cache.CacheWriter} of the builder, promotions do not.
+ * <p>
+ * Puts, evictions, promotions and spills of the same key are serialized by a striped key lock,
+ * so an evicted key never comes back from the cold tier.
+ * <p>
+ * Expired entries are not spilled. The log is compacted in the background on the given executor.
+ */
+public class TieredCache<K, V> implements Cache<K, V>, Closeable {
+
+    public static final long DEFAULT_COMPACTION_THRESHOLD = 1 << 20;
+
+    private static final int KEY_LOCKS = 64;
+
+    private final LogStore<K, V> cold;
+
+    private final HotTier hot;
+
+    private final ReentrantLock[] keyLocks = new ReentrantLock[KEY_LOCKS];
+
+    /**
+     * Hot tier victims not written to the cold tier yet, the latest one per key.
+     */
+    private final ConcurrentHashMap<K, V> spills = new ConcurrentHashMap<K, V>();
+
+    public TieredCache(CacheBuilder<K, V> builder, int coldMaximumSize, Codec<V> codec, Path file) throws IOException {
+        this(builder, coldMaximumSize, codec, file, ForkJoinPool.commonPool());
+    }
+
+    public TieredCache(CacheBuilder<K, V> builder, int coldMaximumSize, Codec<V> codec, Path file,
+                       Executor compactionExecutor) throws IOException {
+        this(builder, new LogStore<K, V>(file, codec, coldMaximumSize, DEFAULT_COMPACTION_THRESHOLD, compactionExecutor));
+    }
+
+    public TieredCache(CacheBuilder<K, V> builder, final LogStore<K, V> cold) {
+        this.cold = cold;
+        for (int i = 0; i < KEY_LOCKS; i++) {
+            keyLocks[i] = new ReentrantLock();
+        }
+        this.hot = new HotTier(builder);
+    }
+
+    public void put(K key, V value) {
+        ReentrantLock lock = keyLock(key);
+        lock.lock();
+        try {
+            spills.remove(key);
+            cold.remove(key);
+            hot.put(key, value);
+        } finally {
+            lock.unlock();
+        }
+        spill();
+    }
+
+    public V get(K key) {
+        V value = hot.get(key);
+        if (value != null) {
+            return value;
+        }
+        ReentrantLock lock = keyLock(key);
+        lock.lock();
+        try {
+            value = spills.remove(key);
+            if (value == null) {
+                value = cold.take(key);
+            }
+            if (value != null) {
+                // a value put while this one was read from disk is newer
+                V current = hot.promote(key, value);
+                if (current != null) {
+                    value = current;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        spill();
+        return value;
+    }
+
+    public void evict(K key) {
+        ReentrantLock lock = keyLock(key);
+        lock.lock();
+        try {
+            // the key cannot enter the hot tier again without the key lock, nor be spilled once it is out
+            hot.evict(key);
+            spills.remove(key);
+            cold.remove(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of entries in both tiers
+     */
+    public int size() {
+        return hot.size() + spills.size() + cold.size();
+    }
+
+    public int hotSize() {
+        return hot.size();
+    }
+
+    public int coldSize() {
+        return cold.size();
+    }
+
+    public void close() throws IOException {
+        cold.close();
+    }
+
+    /**
+     * Writes the pending hot tier victims to the cold tier, called without holding any lock.
+     */
+    private void spill() {
+        for (K key : spills.keySet()) {
+            ReentrantLock lock = keyLock(key);
+            lock.lock();
+            try {
+                V value = spills.remove(key);
+                if (value != null) {
+                    cold.put(key, value);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private ReentrantLock keyLock(K key) {
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        return keyLocks[h & (KEY_LOCKS - 1)];
+    }
+
+    private final class HotTier extends LFUCache<K, V> {
+
+        HotTier(CacheBuilder<K, V> builder) {
+            super(builder);
+        }
+
+        protected void onEviction(K key, V value) {
+            // called under the hot tier's lock, the disk write waits for spill()
+            spills.put(key, value);
+        }
+
+        /**
+         * Adds an entry coming back from the cold tier, the store behind a configured writer has it already.
+         *
+         * @return the cached value, null when the entry was added
+         */
+        V promote(K key, V value) {
+            return putIfAbsentUnwritten(key, value);
+        }
+    }
+}
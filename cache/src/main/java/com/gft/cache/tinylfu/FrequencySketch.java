@@ -0,0 +1,104 @@
+package com.gft.cache.tinylfu;
+
+/**
+ * Count-Min Sketch of 4-bit counters estimating how popular a key has been recently.
+ * <p>
+ * Each {@code long} of the table holds 16 counters in four groups of four. A key has one counter
+ * per hash function: hash function {@code i} picks the {@code long}, so the four counters usually
+ * sit in four different {@code long}s, and within it the key always uses counter {@code i} of the
+ * same group, picked by its hash. The estimate is the smallest of the four. Once
+ * {@code sampleSize} increments were recorded all counters are halved, so popularity ages out
+ * instead of growing forever.
+ * Not thread safe.
+ */
+public class FrequencySketch<K> {
+
+    private static final long[] SEED = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+
+    private static final long RESET_MASK = 0x7777777777777777L;
+
+    private static final long ONE_MASK = 0x1111111111111111L;
+
+    private static final int MAX_COUNT = 15;
+
+    private final long[] table;
+
+    private final int tableMask;
+
+    private final int sampleSize;
+
+    private int size;
+
+    public FrequencySketch(int maximumSize) {
+        int maximum = Math.max(1, Math.min(maximumSize, 1 << 30));
+        int length = 1;
+        while (length < maximum) {
+            length <<= 1;
+        }
+        table = new long[length];
+        tableMask = length - 1;
+        sampleSize = 10 * maximum;
+    }
+
+    /**
+     * @return the estimated number of occurrences of the key, at most 15
+     */
+    public int frequency(K key) {
+        int hash = spread(key.hashCode());
+        int start = (hash & 3) << 2;
+        int frequency = MAX_COUNT;
+        for (int i = 0; i < 4; i++) {
+            int index = indexOf(hash, i);
+            int count = (int) ((table[index] >>> ((start + i) << 2)) & 0xfL);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    public void increment(K key) {
+        int hash = spread(key.hashCode());
+        int start = (hash & 3) << 2;
+        boolean added = false;
+        for (int i = 0; i < 4; i++) {
+            added |= incrementAt(indexOf(hash, i), start + i);
+        }
+        if (added && ++size == sampleSize) {
+            reset();
+        }
+    }
+
+    private boolean incrementAt(int index, int counter) {
+        int offset = counter << 2;
+        long mask = 0xfL << offset;
+        if ((table[index] & mask) != mask) {
+            table[index] += 1L << offset;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Halves every counter. Odd counters lose their remainder, which is subtracted from the sample count.
+     */
+    private void reset() {
+        int odd = 0;
+        for (int i = 0; i < table.length; i++) {
+            odd += Long.bitCount(table[i] & ONE_MASK);
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        size = (size - (odd >>> 2)) >>> 1;
+    }
+
+    private int indexOf(int hash, int i) {
+        long h = (hash + SEED[i]) * SEED[i];
+        h += h >>> 32;
+        return ((int) h) & tableMask;
+    }
+
+    private static int spread(int h) {
+        h = ((h >>> 16) ^ h) * 0x45d9f3b;
+        h = ((h >>> 16) ^ h) * 0x45d9f3b;
+        return (h >>> 16) ^ h;
+    }
+}
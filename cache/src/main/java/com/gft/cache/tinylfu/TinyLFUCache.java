@@ -0,0 +1,16 @@
+package com.gft.cache.tinylfu;
+
+import com.gft.cache.buffered.BufferedCache;
+
+/**
+ * Thread safe cache with the W-TinyLFU admission policy.
+ * <p>
+ * One-hit wonders only ever pass through the small window instead of pushing
+ * frequently used entries out, which keeps the hit rate up under scans.
+ */
+public class TinyLFUCache<K, V> extends BufferedCache<K, V> {
+
+    public TinyLFUCache(int maxSize) {
+        super(maxSize, new TinyLfuPolicy<K>(maxSize));
+    }
+}
@@ -0,0 +1,170 @@
+package com.gft.cache.tinylfu;
+
+import com.gft.cache.buffered.AccessPolicy;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Window TinyLFU eviction order.
+ * <p>
+ * New keys enter a small LRU window. Keys pushed out of the window compete with the victim
+ * of the main region and are only admitted when the {@link FrequencySketch} considers them
+ * more popular. The main region is a segmented LRU: keys start on probation and are
+ * protected once they are used again.
+ * <p>
+ * Every key has a single node linked into the queue of its region, so the policy costs one
+ * map entry and one node per key whichever region it is in.
+ */
+public class TinyLfuPolicy<K> implements AccessPolicy<K> {
+
+    private final FrequencySketch<K> sketch;
+
+    private final int maxWindow;
+
+    private final int maxProtected;
+
+    private final Map<K, Node<K>> nodes = new HashMap<K, Node<K>>();
+
+    private final Queue<K> window = new Queue<K>();
+
+    private final Queue<K> probation = new Queue<K>();
+
+    private final Queue<K> protectedRegion = new Queue<K>();
+
+    public TinyLfuPolicy(int maxSize) {
+        sketch = new FrequencySketch<K>(maxSize);
+        maxWindow = Math.max(1, maxSize / 100);
+        maxProtected = (int) ((maxSize - maxWindow) * 0.8);
+    }
+
+    public void recordInsert(K key) {
+        sketch.increment(key);
+        Node<K> node = nodes.get(key);
+        if (node != null) {
+            node.queue.moveToTail(node);
+            return;
+        }
+        node = new Node<K>(key);
+        nodes.put(key, node);
+        window.add(node);
+        if (window.size > maxWindow) {
+            // the cache still has room, the window overflows into the main region for free
+            probation.add(window.poll());
+        }
+    }
+
+    public void recordAccess(K key) {
+        Node<K> node = nodes.get(key);
+        if (node == null) {
+            return;
+        }
+        sketch.increment(key);
+        if (node.queue == probation) {
+            probation.remove(node);
+            protectedRegion.add(node);
+            if (protectedRegion.size > maxProtected) {
+                probation.add(protectedRegion.poll());
+            }
+        } else {
+            node.queue.moveToTail(node);
+        }
+    }
+
+    public void recordRemoval(K key) {
+        Node<K> node = nodes.remove(key);
+        if (node != null) {
+            node.queue.remove(node);
+        }
+    }
+
+    /**
+     * Makes room for a key about to enter the window: the eldest window key is admitted into
+     * the main region only if it is estimated to be used more often than the main victim.
+     */
+    public K evict() {
+        Node<K> candidate = window.peek();
+        Node<K> victim = probation.peek();
+        if (victim == null) {
+            victim = protectedRegion.peek();
+        }
+        if (victim == null) {
+            return candidate == null ? null : evict(candidate);
+        }
+        if (candidate == null || window.size < maxWindow) {
+            // the newcomer fits into the window without pushing anybody out
+            return evict(victim);
+        }
+        if (sketch.frequency(candidate.key) > sketch.frequency(victim.key)) {
+            window.remove(candidate);
+            probation.add(candidate);
+            return evict(victim);
+        }
+        return evict(candidate);
+    }
+
+    private K evict(Node<K> node) {
+        node.queue.remove(node);
+        nodes.remove(node.key);
+        return node.key;
+    }
+
+    private static final class Node<K> {
+        final K key;
+        Queue<K> queue;
+        Node<K> prev;
+        Node<K> next;
+
+        Node(K key) {
+            this.key = key;
+        }
+    }
+
+    /**
+     * Doubly linked LRU queue through the nodes themselves, eldest first.
+     */
+    private static final class Queue<K> {
+        private final Node<K> sentinel = new Node<K>(null);
+        int size;
+
+        Queue() {
+            sentinel.prev = sentinel;
+            sentinel.next = sentinel;
+        }
+
+        Node<K> peek() {
+            return sentinel.next == sentinel ? null : sentinel.next;
+        }
+
+        Node<K> poll() {
+            Node<K> eldest = peek();
+            if (eldest != null) {
+                remove(eldest);
+            }
+            return eldest;
+        }
+
+        void add(Node<K> node) {
+            node.queue = this;
+            node.prev = sentinel.prev;
+            node.next = sentinel;
+            sentinel.prev.next = node;
+            sentinel.prev = node;
+            size++;
+        }
+
+        void remove(Node<K> node) {
+            node.prev.next = node.next;
+            node.next.prev = node.prev;
+            node.prev = null;
+            node.next = null;
+            node.queue = null;
+            size--;
+        }
+
+        void moveToTail(Node<K> node) {
+            remove(node);
+            add(node);
+        }
+    }
+}
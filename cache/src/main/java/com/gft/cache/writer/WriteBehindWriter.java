@@ -0,0 +1,289 @@
+package com.gft.cache.writer;
+
+import com.gft.cache.CacheWriter;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * {@link CacheWriter} queueing the changes and passing them to the store on a background thread.
+ * <p>
+ * Only the latest change of every key is kept, so a key written many times before the next flush
+ * reaches the store once. A batch is flushed once {@code batchSize} keys are queued or the oldest
+ * queued change waited for {@code maxDelay}. When {@code maxPending} keys are queued, a change of
+ * a further key blocks until the store caught up; the caches call the writer outside their lock,
+ * so only the threads changing keys wait. A change of a key already queued never blocks.
+ * <p>
+ * A batch the store rejects is queued again, changes made to its keys in the meantime win.
+ * Until a change is flushed the store returns the previous value, the cache in front of it the new one.
+ */
+public class WriteBehindWriter<K, V> implements CacheWriter<K, V>, Closeable {
+
+    private final CacheWriter<K, V> store;
+
+    private final int maxPending;
+
+    private final int batchSize;
+
+    private final long maxDelayNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition notFull = lock.newCondition();
+
+    private final Condition notEmpty = lock.newCondition();
+
+    private final Condition flushed = lock.newCondition();
+
+    // insertion ordered, a coalesced change keeps the position of the first one
+    private final LinkedHashMap<K, Change<V>> pending = new LinkedHashMap<K, Change<V>>();
+
+    private final Thread flusher;
+
+    private int inFlight;
+
+    private boolean flushRequested;
+
+    private boolean closed;
+
+    private RuntimeException lastFailure;
+
+    private WriteBehindWriter(CacheWriter<K, V> store, int maxPending, int batchSize, long maxDelay, TimeUnit unit) {
+        if (batchSize <= 0 || maxPending < batchSize) {
+            throw new IllegalArgumentException("Need 0 < batchSize <= maxPending but got " + batchSize + " and " + maxPending);
+        }
+        this.store = store;
+        this.maxPending = maxPending;
+        this.batchSize = batchSize;
+        this.maxDelayNanos = unit.toNanos(maxDelay);
+        this.flusher = new Thread(this::flushLoop, "write-behind-" + store.getClass().getSimpleName());
+        flusher.setDaemon(true);
+    }
+
+    /**
+     * @return writer flushing to {@code store} on a background thread that is already running
+     */
+    public static <K, V> WriteBehindWriter<K, V> start(CacheWriter<K, V> store, int maxPending, int batchSize, long maxDelay, TimeUnit unit) {
+        WriteBehindWriter<K, V> writer = new WriteBehindWriter<K, V>(store, maxPending, batchSize, maxDelay, unit);
+        writer.flusher.start();
+        return writer;
+    }
+
+    public void write(K key, V value) {
+        enqueue(key, new Change<V>(value, false));
+    }
+
+    public void delete(K key) {
+        enqueue(key, new Change<V>(null, true));
+    }
+
+    public void writeAll(Map<? extends K, ? extends V> entries) {
+        for (Map.Entry<? extends K, ? extends V> entry : entries.entrySet()) {
+            write(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * @return the number of keys waiting to be flushed
+     */
+    public int pendingCount() {
+        lock.lock();
+        try {
+            return pending.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the exception of the last batch the store rejected, null when every batch succeeded
+     */
+    public RuntimeException getLastFailure() {
+        lock.lock();
+        try {
+            return lastFailure;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Blocks until every change queued so far reached the store, retrying rejected batches.
+     */
+    public void flush() throws InterruptedException {
+        lock.lock();
+        try {
+            while (!pending.isEmpty() || inFlight > 0) {
+                flushRequested = true;
+                notEmpty.signal();
+                flushed.await();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Flushes the queued changes and stops the background thread. Changes of a store that keeps
+     * failing are dropped.
+     */
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            notEmpty.signal();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void enqueue(K key, Change<V> change) {
+        lock.lock();
+        try {
+            // coalescing into a queued key never grows the queue
+            while (pending.size() >= maxPending && !pending.containsKey(key) && !closed) {
+                notFull.awaitUninterruptibly();
+            }
+            if (closed) {
+                throw new IllegalStateException("Write-behind writer is closed");
+            }
+            Change<V> previous = pending.get(key);
+            if (previous != null) {
+                change.queuedAt = previous.queuedAt;
+            } else {
+                change.queuedAt = System.nanoTime();
+            }
+            pending.put(key, change);
+            if (pending.size() == 1 || pending.size() >= batchSize) {
+                notEmpty.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void flushLoop() {
+        while (true) {
+            Map<K, Change<V>> batch = nextBatch();
+            if (batch == null) {
+                return;
+            }
+            writeBatch(batch);
+        }
+    }
+
+    /**
+     * @return the changes to flush next, null once closed and drained
+     */
+    private Map<K, Change<V>> nextBatch() {
+        lock.lock();
+        try {
+            while (true) {
+                if (pending.isEmpty()) {
+                    flushRequested = false;
+                    flushed.signalAll();
+                    if (closed) {
+                        return null;
+                    }
+                    notEmpty.awaitUninterruptibly();
+                    continue;
+                }
+                long waited = System.nanoTime() - pending.values().iterator().next().queuedAt;
+                if (pending.size() >= batchSize || waited >= maxDelayNanos || flushRequested || closed) {
+                    break;
+                }
+                try {
+                    notEmpty.awaitNanos(maxDelayNanos - waited);
+                } catch (InterruptedException e) {
+                    // the flusher thread is private, nobody is meant to interrupt it
+                }
+            }
+            Map<K, Change<V>> batch = new LinkedHashMap<K, Change<V>>();
+            Iterator<Map.Entry<K, Change<V>>> oldest = pending.entrySet().iterator();
+            while (oldest.hasNext() && batch.size() < batchSize) {
+                Map.Entry<K, Change<V>> entry = oldest.next();
+                batch.put(entry.getKey(), entry.getValue());
+                oldest.remove();
+            }
+            inFlight = batch.size();
+            notFull.signalAll();
+            return batch;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void writeBatch(Map<K, Change<V>> batch) {
+        Map<K, V> writes = new LinkedHashMap<K, V>();
+        List<K> deletes = new ArrayList<K>();
+        for (Map.Entry<K, Change<V>> entry : batch.entrySet()) {
+            if (entry.getValue().delete) {
+                deletes.add(entry.getKey());
+            } else {
+                writes.put(entry.getKey(), entry.getValue().value);
+            }
+        }
+        RuntimeException failure = null;
+        try {
+            if (!writes.isEmpty()) {
+                store.writeAll(writes);
+            }
+            if (!deletes.isEmpty()) {
+                store.deleteAll(deletes);
+            }
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+        lock.lock();
+        try {
+            inFlight = 0;
+            if (failure != null) {
+                lastFailure = failure;
+                if (!closed) {
+                    requeue(batch);
+                }
+            }
+            if (pending.isEmpty()) {
+                flushed.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (failure != null && !closed) {
+            // give the store a moment before the retry
+            LockSupport.parkNanos(maxDelayNanos);
+        }
+    }
+
+    private void requeue(Map<K, Change<V>> batch) {
+        LinkedHashMap<K, Change<V>> newer = new LinkedHashMap<K, Change<V>>(pending);
+        pending.clear();
+        pending.putAll(batch);
+        pending.putAll(newer);
+    }
+
+    private static final class Change<V> {
+        private final V value;
+        private final boolean delete;
+        private long queuedAt;
+
+        Change(V value, boolean delete) {
+            this.value = value;
+            this.delete = delete;
+        }
+    }
+}
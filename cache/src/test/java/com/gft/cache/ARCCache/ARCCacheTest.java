@@ -0,0 +1,155 @@
+package com.gft.cache.ARCCache;
+
+import com.gft.cache.Cache;
+import com.gft.cache.arc.ARCCache;
+import com.gft.cache.lfu.LFUCache;
+import com.gft.cache.lru.LRUCache;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+public class ARCCacheTest {
+
+    @Test
+    public void simpleAddTest() {
+        Cache<Integer, String> cache = new ARCCache<Integer, String>(4);
+        for (int i = 1; i <= 4; i++) {
+            cache.put(i, "test" + i);
+        }
+        Assert.assertEquals(4, cache.size());
+        Assert.assertEquals("test1", cache.get(1));
+        cache.put(5, "test5");
+        Assert.assertEquals(4, cache.size());
+        // 2 was seen once and is the eldest of the recency list
+        Assert.assertNull(cache.get(2));
+        Assert.assertEquals("test1", cache.get(1));
+        Assert.assertEquals("test5", cache.get(5));
+        cache.put(5, "updated5");
+        Assert.assertEquals("updated5", cache.get(5));
+        cache.evict(5);
+        Assert.assertNull(cache.get(5));
+        Assert.assertEquals(3, cache.size());
+    }
+
+    @Test
+    public void frequentKeysSurviveAScan() {
+        Cache<Integer, String> cache = new ARCCache<Integer, String>(100);
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 50; i++) {
+                cache.put(i, "test" + i);
+                cache.get(i);
+            }
+        }
+        for (int i = 1000; i < 11000; i++) {
+            cache.put(i, "test" + i);
+        }
+        for (int i = 0; i < 50; i++) {
+            Assert.assertEquals("test" + i, cache.get(i));
+        }
+        Assert.assertEquals(100, cache.size());
+    }
+
+    @Test
+    public void ghostHitsMoveTheTarget() {
+        ARCCache<Integer, String> cache = new ARCCache<Integer, String>(10);
+        for (int i = 0; i < 10; i++) {
+            cache.put(i, "test" + i);
+        }
+        for (int i = 5; i < 10; i++) {
+            cache.get(i);
+        }
+        cache.put(10, "test10");
+        Assert.assertEquals(0, cache.recencyTarget());
+        // 0 was evicted from the recency list, seeing it again asks for a longer one
+        cache.put(0, "test0");
+        Assert.assertEquals(1, cache.recencyTarget());
+        Assert.assertEquals("test0", cache.get(0));
+        Assert.assertEquals(10, cache.size());
+    }
+
+    @Test
+    public void adaptsToRecencyAndFrequencyPhases() {
+        int[] trace = phasedTrace(new Random(42));
+        double arc = hitRatio(new ARCCache<Integer, String>(100), trace);
+        double lru = hitRatio(new LRUCache<Integer, String>(100), trace);
+        double lfu = hitRatio(new LFUCache<Integer, String>(100), trace);
+        Assert.assertTrue("ARC " + arc + " LRU " + lru, arc >= lru);
+        Assert.assertTrue("ARC " + arc + " LFU " + lfu, arc >= lfu);
+    }
+
+    @Test
+    public void bulkOperations() {
+        Cache<Integer, String> cache = new ARCCache<Integer, String>(100);
+        Map<Integer, String> entries = new LinkedHashMap<Integer, String>();
+        for (int i = 0; i < 50; i++) {
+            entries.put(i, "test" + i);
+        }
+        cache.putAll(entries);
+        Map<Integer, String> found = cache.getAll(Arrays.asList(0, 10, 77));
+        Assert.assertEquals(2, found.size());
+        cache.evictAll(Arrays.asList(0, 1, 77));
+        Assert.assertEquals(48, cache.size());
+    }
+
+    @Test
+    public void multiThreaded() throws InterruptedException {
+        final Cache<Integer, String> cache = new ARCCache<Integer, String>(64);
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        final AssertionError[] failure = new AssertionError[1];
+        for (int t = 0; t < 16; t++) {
+            executor.submit(() -> {
+                Random rand = new Random();
+                for (int i = 0; i < 10000; i++) {
+                    int key = rand.nextInt(200);
+                    cache.put(key, "test" + key);
+                    String fromCache = cache.get(key);
+                    if (fromCache != null && !fromCache.equals("test" + key)) {
+                        failure[0] = new AssertionError("Wrong value " + fromCache + " for " + key);
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        Assert.assertTrue(executor.awaitTermination(100, TimeUnit.SECONDS));
+        if (failure[0] != null) {
+            throw failure[0];
+        }
+        Assert.assertTrue(cache.size() <= 64);
+    }
+
+    /**
+     * A stable hot set read throughout, interrupted by a phase looping over a working set a bit
+     * larger than the hot set and by one-off scans.
+     */
+    private static int[] phasedTrace(Random random) {
+        int[] trace = new int[60000];
+        for (int i = 0; i < trace.length; i++) {
+            int phase = i / 10000;
+            if (phase % 2 == 0) {
+                trace[i] = random.nextInt(10) < 7 ? random.nextInt(60) : 100000 + i;
+            } else {
+                trace[i] = random.nextInt(10) < 3 ? random.nextInt(60) : 1000 + (i % 80);
+            }
+        }
+        return trace;
+    }
+
+    private static double hitRatio(Cache<Integer, String> cache, int[] trace) {
+        int hits = 0;
+        for (int key : trace) {
+            if (cache.get(key) != null) {
+                hits++;
+            } else {
+                cache.put(key, "test" + key);
+            }
+        }
+        return (double) hits / trace.length;
+    }
+}
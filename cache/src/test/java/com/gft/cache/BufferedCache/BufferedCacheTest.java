@@ -0,0 +1,111 @@
+package com.gft.cache.BufferedCache;
+
+import com.gft.cache.Cache;
+import com.gft.cache.buffered.BufferedCache;
+import com.gft.cache.buffered.LfuAccessPolicy;
+import com.gft.cache.buffered.LruAccessPolicy;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+public class BufferedCacheTest {
+
+    @Test
+    public void lruOrderIsReplayedBeforeEviction() {
+        Cache<Integer, String> cache = new BufferedCache<Integer, String>(4, new LruAccessPolicy<Integer>());
+        cache.put(1, "test1");
+        cache.put(2, "test2");
+        cache.put(3, "test3");
+        cache.put(4, "test4");
+        Assert.assertEquals("test1", cache.get(1));
+        Assert.assertEquals("test2", cache.get(2));
+        cache.put(5, "test5");
+        Assert.assertEquals(4, cache.size());
+        Assert.assertNull(cache.get(3));
+        cache.put(6, "test6");
+        Assert.assertNull(cache.get(4));
+        Assert.assertEquals("test1", cache.get(1));
+        Assert.assertEquals("test2", cache.get(2));
+        Assert.assertEquals("test5", cache.get(5));
+        Assert.assertEquals("test6", cache.get(6));
+    }
+
+    @Test
+    public void lfuOrderIsReplayedBeforeEviction() {
+        Cache<Integer, String> cache = new BufferedCache<Integer, String>(3, new LfuAccessPolicy<Integer>());
+        cache.put(1, "test1");
+        cache.put(2, "test2");
+        cache.put(3, "test3");
+        for (int i = 0; i < 3; i++) {
+            cache.get(1);
+            cache.get(3);
+        }
+        cache.get(2);
+        cache.put(4, "test4");
+        Assert.assertNull(cache.get(2));
+        Assert.assertEquals("test4", cache.get(4));
+        Assert.assertEquals("test1", cache.get(1));
+        Assert.assertEquals("test3", cache.get(3));
+        cache.evict(1);
+        Assert.assertNull(cache.get(1));
+        Assert.assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void bulkOperations() {
+        Cache<Integer, String> cache = new BufferedCache<Integer, String>(100, new LruAccessPolicy<Integer>());
+        Map<Integer, String> entries = new LinkedHashMap<Integer, String>();
+        for (int i = 0; i < 50; i++) {
+            entries.put(i, "test" + i);
+        }
+        cache.putAll(entries);
+        Assert.assertEquals(50, cache.size());
+        Map<Integer, String> found = cache.getAll(Arrays.asList(0, 10, 49, 77));
+        Assert.assertEquals(3, found.size());
+        Assert.assertEquals("test10", found.get(10));
+        Assert.assertFalse(found.containsKey(77));
+        cache.evictAll(Arrays.asList(0, 1, 2, 77));
+        Assert.assertEquals(47, cache.size());
+        Assert.assertNull(cache.get(1));
+        Assert.assertEquals("test3", cache.get(3));
+    }
+
+    @Test
+    public void multiThreaded() throws InterruptedException {
+        final Cache<Integer, String> cache = new BufferedCache<Integer, String>(100, new LfuAccessPolicy<Integer>());
+        ExecutorService executor = Executors.newFixedThreadPool(50);
+        final AssertionError[] failure = new AssertionError[1];
+        for (int i = 0; i < 50; i++) {
+            final boolean writer = i % 3 == 0;
+            executor.submit(new Runnable() {
+                public void run() {
+                    Random rand = new Random();
+                    for (int i = 0; i < 20000; i++) {
+                        int randValue = rand.nextInt(300);
+                        if (writer) {
+                            cache.put(randValue, "test" + randValue);
+                        } else {
+                            String fromCache = cache.get(randValue);
+                            if (fromCache != null && !fromCache.equals("test" + randValue)) {
+                                failure[0] = new AssertionError("Wrong value " + fromCache + " for " + randValue);
+                            }
+                        }
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        Assert.assertTrue(executor.awaitTermination(100, TimeUnit.SECONDS));
+        if (failure[0] != null) {
+            throw failure[0];
+        }
+        Assert.assertTrue(cache.size() <= 100);
+    }
+}
@@ -0,0 +1,122 @@
+package com.gft.cache.CacheSnapshot;
+
+import com.gft.cache.codec.IntegerCodec;
+import com.gft.cache.codec.StringCodec;
+import com.gft.cache.lfu.LFUCache;
+import com.gft.cache.snapshot.CacheSnapshot;
+import com.gft.cache.snapshot.MappedSnapshot;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+public class CacheSnapshotTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final CacheSnapshot<Integer, String> snapshot =
+            new CacheSnapshot<Integer, String>(new IntegerCodec(), new StringCodec());
+
+    @Test
+    public void restoresEntriesWithTheirFrequencies() throws IOException {
+        LFUCache<Integer, String> cache = new LFUCache<Integer, String>(10);
+        for (int i = 0; i < 10; i++) {
+            cache.put(i, "test" + i);
+            for (int hit = 0; hit < i; hit++) {
+                cache.get(i);
+            }
+        }
+        Path file = folder.getRoot().toPath().resolve("cache.snapshot");
+        Assert.assertEquals(10, snapshot.write(cache, file));
+
+        LFUCache<Integer, String> restored = new LFUCache<Integer, String>(10);
+        MappedSnapshot<Integer, String> mapped = snapshot.open(file);
+        Assert.assertEquals(10, mapped.entryCount());
+        Assert.assertEquals(10, mapped.restoreInto(restored));
+
+        List<Integer> frequencies = new ArrayList<Integer>();
+        restored.forEachByFrequency((key, value, frequency) -> {
+            Assert.assertEquals("test" + key, value);
+            frequencies.add(frequency);
+        });
+        for (int i = 0; i < 10; i++) {
+            Assert.assertEquals(Integer.valueOf(9 - i), frequencies.get(i));
+        }
+
+        // the restored counts decide the victim, not the order of insertion
+        restored.put(10, "test10");
+        Assert.assertNull(restored.get(0));
+        Assert.assertEquals("test1", restored.get(1));
+    }
+
+    @Test
+    public void smallerCacheKeepsTheHottestEntries() throws IOException {
+        LFUCache<Integer, String> cache = new LFUCache<Integer, String>(100);
+        for (int i = 0; i < 100; i++) {
+            cache.put(i, "test" + i);
+            for (int hit = 0; hit < i % 10; hit++) {
+                cache.get(i);
+            }
+        }
+        Path file = folder.getRoot().toPath().resolve("cache.snapshot");
+        snapshot.write(cache, file);
+
+        LFUCache<Integer, String> restored = new LFUCache<Integer, String>(10);
+        Assert.assertEquals(10, snapshot.open(file).restoreInto(restored));
+        for (int i = 9; i < 100; i += 10) {
+            Assert.assertEquals("test" + i, restored.get(i));
+        }
+    }
+
+    @Test
+    public void warmUpNeverOverwritesNewerValues() throws Exception {
+        LFUCache<Integer, String> cache = new LFUCache<Integer, String>(10);
+        cache.put(1, "old1");
+        cache.put(2, "old2");
+        Path file = folder.getRoot().toPath().resolve("cache.snapshot");
+        snapshot.write(cache, file);
+
+        LFUCache<Integer, String> restored = new LFUCache<Integer, String>(10);
+        restored.put(1, "new1");
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Assert.assertEquals(Integer.valueOf(1), snapshot.open(file).warmUp(restored, executor).get(10, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdown();
+        }
+        Assert.assertEquals("new1", restored.get(1));
+        Assert.assertEquals("old2", restored.get(2));
+    }
+
+    @Test
+    public void rewritingReplacesTheSnapshot() throws IOException {
+        LFUCache<Integer, String> cache = new LFUCache<Integer, String>(10);
+        cache.put(1, "test1");
+        Path file = folder.getRoot().toPath().resolve("cache.snapshot");
+        snapshot.write(cache, file);
+        cache.evict(1);
+        Assert.assertEquals(0, snapshot.write(cache, file));
+        Assert.assertEquals(0, snapshot.open(file).entryCount());
+        try (Stream<Path> files = Files.list(folder.getRoot().toPath())) {
+            Assert.assertEquals(1, files.count());
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsOtherFiles() throws IOException {
+        Path file = folder.newFile("not.snapshot").toPath();
+        Files.write(file, "definitely not a snapshot".getBytes());
+        snapshot.open(file);
+    }
+}
@@ -0,0 +1,154 @@
+package com.gft.cache.CacheStats;
+
+import com.gft.cache.CacheBuilder;
+import com.gft.cache.LoadingCache;
+import com.gft.cache.lfu.LFUCache;
+import com.gft.cache.loading.CoalescingLoadingCache;
+import com.gft.cache.lru.LRUCache;
+import com.gft.cache.stats.CacheOperation;
+import com.gft.cache.stats.CacheStats;
+import com.gft.cache.stats.CacheStatsMBeans;
+import com.gft.cache.stats.ConcurrentStatsCounter;
+import com.gft.cache.stats.LatencyHistogram;
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.TabularData;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+public class CacheStatsTest {
+
+    @Test
+    public void lfuCountsHitsMissesAndEvictions() {
+        LFUCache<Integer, String> cache = CacheBuilder.<Integer, String>newBuilder()
+                .maximumSize(2)
+                .recordStats()
+                .buildLFU();
+        cache.put(1, "test1");
+        cache.put(2, "test2");
+        cache.get(1);
+        cache.put(3, "test3");
+        cache.get(2);
+        cache.getAll(Arrays.asList(1, 3, 4));
+
+        CacheStats stats = cache.stats();
+        Assert.assertEquals(3, stats.getHitCount());
+        Assert.assertEquals(2, stats.getMissCount());
+        Assert.assertEquals(0.6, stats.getHitRate(), 0.0001);
+        Assert.assertEquals(1, stats.getEvictionCount());
+        Assert.assertEquals(3, cache.statsCounter().latency(CacheOperation.GET).getCount());
+        Assert.assertEquals(3, cache.statsCounter().latency(CacheOperation.PUT).getCount());
+        Assert.assertTrue(cache.statsCounter().latency(CacheOperation.LOCK_WAIT).getCount() >= 3);
+    }
+
+    @Test
+    public void lruCountsHitsMissesAndEvictions() {
+        LRUCache<Integer, String> cache = CacheBuilder.<Integer, String>newBuilder()
+                .maximumSize(2)
+                .recordStats()
+                .buildLRU();
+        cache.put(1, "test1");
+        cache.put(2, "test2");
+        cache.get(1);
+        cache.put(3, "test3");
+        cache.get(2);
+        cache.evict(3);
+        cache.getAll(Arrays.asList(1, 3, 4));
+
+        CacheStats stats = cache.stats();
+        Assert.assertEquals(2, stats.getHitCount());
+        Assert.assertEquals(3, stats.getMissCount());
+        Assert.assertEquals(1, stats.getEvictionCount());
+        Assert.assertEquals(1, cache.statsCounter().latency(CacheOperation.REMOVE).getCount());
+        Assert.assertEquals(7, cache.statsCounter().latency(CacheOperation.LOCK_WAIT).getCount());
+    }
+
+    @Test
+    public void statsAreOffByDefault() {
+        LFUCache<Integer, String> cache = new LFUCache<Integer, String>(2);
+        cache.put(1, "test1");
+        cache.get(1);
+        cache.get(2);
+        Assert.assertEquals(0, cache.stats().getRequestCount());
+        Assert.assertNull(cache.statsCounter().latency(CacheOperation.GET));
+    }
+
+    @Test
+    public void loadingCacheCountsLoads() {
+        LoadingCache<Integer, String> cache = new CoalescingLoadingCache<Integer, String>(
+                new LFUCache<Integer, String>(10),
+                key -> {
+                    if (key < 0) {
+                        throw new IllegalArgumentException("negative " + key);
+                    }
+                    return "test" + key;
+                },
+                new ConcurrentStatsCounter());
+        Assert.assertEquals("test1", cache.get(1));
+        Assert.assertEquals("test1", cache.get(1));
+        try {
+            cache.get(-1);
+            Assert.fail();
+        } catch (IllegalArgumentException expected) {
+        }
+        cache.getAll(Arrays.asList(1, 2, 3));
+
+        CacheStats stats = ((CoalescingLoadingCache<Integer, String>) cache).stats();
+        Assert.assertEquals(2, stats.getHitCount());
+        Assert.assertEquals(4, stats.getMissCount());
+        Assert.assertEquals(2, stats.getLoadSuccessCount());
+        Assert.assertEquals(1, stats.getLoadFailureCount());
+        Assert.assertTrue(stats.getTotalLoadTime() > 0);
+        Assert.assertEquals(stats.getTotalLoadTime() / 3.0, stats.getAverageLoadPenalty(), 0.0001);
+    }
+
+    @Test
+    public void histogramPercentilesStayWithinTheBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 10000; i++) {
+            histogram.recordValue(i);
+        }
+        Assert.assertEquals(10000, histogram.getCount());
+        Assert.assertEquals(10000, histogram.getMax());
+        Assert.assertEquals(5000.5, histogram.getMean(), 0.0001);
+        assertWithinPrecision(5000, histogram.getValueAtPercentile(50));
+        assertWithinPrecision(9900, histogram.getValueAtPercentile(99));
+        Assert.assertEquals(10000, histogram.getValueAtPercentile(100));
+
+        histogram.recordValue(Long.MAX_VALUE);
+        Assert.assertEquals(LatencyHistogram.MAX_TRACKABLE_VALUE, histogram.getMax());
+    }
+
+    @Test
+    public void publishedOverJmx() throws JMException {
+        LFUCache<Integer, String> cache = CacheBuilder.<Integer, String>newBuilder()
+                .maximumSize(2)
+                .recordStats()
+                .buildLFU();
+        cache.put(1, "test1");
+        cache.get(1);
+        cache.get(2);
+
+        ObjectName objectName = CacheStatsMBeans.register("test cache", cache.statsCounter());
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            Assert.assertEquals(1L, server.getAttribute(objectName, "HitCount"));
+            Assert.assertEquals(1L, server.getAttribute(objectName, "MissCount"));
+            Assert.assertEquals(0.5, server.getAttribute(objectName, "HitRate"));
+            TabularData latencies = (TabularData) server.getAttribute(objectName, "Latencies");
+            Assert.assertEquals(CacheOperation.values().length * 4, latencies.size());
+        } finally {
+            CacheStatsMBeans.unregister("test cache");
+        }
+        Assert.assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(objectName));
+    }
+
+    private static void assertWithinPrecision(long expected, long actual) {
+        Assert.assertTrue("expected about " + expected + " but was " + actual,
+                Math.abs(actual - expected) <= expected / 16);
+    }
+}
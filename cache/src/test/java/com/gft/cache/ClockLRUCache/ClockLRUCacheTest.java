@@ -0,0 +1,143 @@
+package com.gft.cache.ClockLRUCache;
+
+import com.gft.cache.Cache;
+import com.gft.cache.lru.ClockLRUCache;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class ClockLRUCacheTest {
+
+    @Test
+    public void simpleAddTest() {
+        Cache<Integer, String> cache = new ClockLRUCache<Integer, String>(3);
+        cache.put(1, "test1");
+        cache.put(2, "test2");
+        cache.put(3, "test3");
+        Assert.assertEquals(3, cache.size());
+        Assert.assertEquals("test2", cache.get(2));
+        cache.put(2, "updated2");
+        Assert.assertEquals("updated2", cache.get(2));
+        cache.evict(2);
+        Assert.assertNull(cache.get(2));
+        Assert.assertEquals(2, cache.size());
+        Assert.assertEquals("test1", cache.get(1));
+        Assert.assertEquals("test3", cache.get(3));
+    }
+
+    @Test
+    public void secondChance() {
+        Cache<Integer, String> cache = new ClockLRUCache<Integer, String>(4);
+        for (int i = 1; i <= 4; i++) {
+            cache.put(i, "test" + i);
+        }
+        // the first sweep clears every bit and takes the first entry it finds
+        cache.put(5, "test5");
+        Assert.assertEquals(4, cache.size());
+        int survivors = 0;
+        for (int i = 1; i <= 4; i++) {
+            if (cache.get(i) != null) {
+                survivors++;
+            }
+        }
+        Assert.assertEquals(3, survivors);
+        Assert.assertEquals("test5", cache.get(5));
+
+        // the sweep for 100 cleared every bit, so reading half the entries protects exactly those
+        Cache<Integer, String> readHeavy = new ClockLRUCache<Integer, String>(100);
+        for (int i = 0; i < 100; i++) {
+            readHeavy.put(i, "test" + i);
+        }
+        readHeavy.put(100, "test100");
+        List<Integer> read = new ArrayList<Integer>();
+        for (int i = 0; i < 50; i++) {
+            if (readHeavy.get(i) != null) {
+                read.add(i);
+            }
+        }
+        Assert.assertTrue(read.size() >= 49);
+        // fewer than the 49 unread entries, so the hand never needs a second lap
+        for (int i = 1000; i < 1040; i++) {
+            readHeavy.put(i, "test" + i);
+        }
+        Assert.assertEquals(100, readHeavy.size());
+        for (Integer key : read) {
+            Assert.assertEquals("test" + key, readHeavy.get(key));
+        }
+    }
+
+    @Test
+    public void matchesMapWhileNotFull() {
+        // keys colliding in the table exercise the backward shift on removal
+        Cache<Integer, Integer> cache = new ClockLRUCache<Integer, Integer>(512);
+        Map<Integer, Integer> model = new HashMap<Integer, Integer>();
+        Random random = new Random(7);
+        for (int i = 0; i < 100000; i++) {
+            int key = random.nextInt(500);
+            switch (random.nextInt(3)) {
+                case 0:
+                    cache.put(key, i);
+                    model.put(key, i);
+                    break;
+                case 1:
+                    cache.evict(key);
+                    model.remove(key);
+                    break;
+                default:
+                    Assert.assertEquals(model.get(key), cache.get(key));
+            }
+            Assert.assertEquals(model.size(), cache.size());
+        }
+    }
+
+    @Test
+    public void neverExceedsMaxSize() {
+        Cache<Integer, Integer> cache = new ClockLRUCache<Integer, Integer>(100);
+        Random random = new Random(3);
+        for (int i = 0; i < 100000; i++) {
+            int key = random.nextInt(1000);
+            if (cache.get(key) == null) {
+                cache.put(key, key);
+            }
+            Assert.assertTrue(cache.size() <= 100);
+        }
+        Assert.assertEquals(100, cache.size());
+    }
+
+    @Test
+    public void multiThreaded() throws Exception {
+        final Cache<Integer, Integer> cache = new ClockLRUCache<Integer, Integer>(1000);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        Future<?>[] futures = new Future<?>[8];
+        for (int t = 0; t < futures.length; t++) {
+            final int seed = t;
+            futures[t] = executor.submit(() -> {
+                Random random = new Random(seed);
+                for (int i = 0; i < 200000; i++) {
+                    int key = random.nextInt(2000);
+                    Integer value = cache.get(key);
+                    if (value == null) {
+                        cache.put(key, key);
+                    } else {
+                        Assert.assertEquals(key, value.intValue());
+                    }
+                }
+            });
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        Assert.assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        Assert.assertEquals(1000, cache.size());
+    }
+}
@@ -0,0 +1,290 @@
+package com.gft.cache.CoalescingLoadingCache;
+
+import com.gft.cache.Cache;
+import com.gft.cache.CacheLoader;
+import com.gft.cache.LoadingCache;
+import com.gft.cache.lfu.LFUCache;
+import com.gft.cache.loading.CoalescingLoadingCache;
+import com.gft.cache.lru.LRUCache;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class CoalescingLoadingCacheTest {
+
+    @Test
+    public void loadsOnMissOnly() {
+        final AtomicInteger loads = new AtomicInteger();
+        LoadingCache<Integer, String> cache = new CoalescingLoadingCache<Integer, String>(
+                new LFUCache<Integer, String>(10), key -> {
+                    loads.incrementAndGet();
+                    return "test" + key;
+                });
+        Assert.assertNull(cache.getIfPresent(1));
+        Assert.assertEquals("test1", cache.get(1));
+        Assert.assertEquals("test1", cache.get(1));
+        Assert.assertEquals("test1", cache.getIfPresent(1));
+        Assert.assertEquals(1, loads.get());
+        Assert.assertEquals("other2", cache.get(2, key -> "other" + key));
+        Assert.assertEquals(1, loads.get());
+        Assert.assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void nullIsNotCached() {
+        LoadingCache<Integer, String> cache = new CoalescingLoadingCache<Integer, String>(
+                new LRUCache<Integer, String>(10), key -> null);
+        Assert.assertNull(cache.get(1));
+        Assert.assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void checkedLoaderFailureIsWrapped() {
+        LoadingCache<Integer, String> cache = new CoalescingLoadingCache<Integer, String>(
+                new LRUCache<Integer, String>(10), key -> {
+                    throw new IOException("backend down");
+                });
+        try {
+            cache.get(1);
+            Assert.fail();
+        } catch (CompletionException e) {
+            Assert.assertTrue(e.getCause() instanceof IOException);
+        }
+        Assert.assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void getAllLoadsMissesInOneBatch() {
+        final List<Set<? extends Integer>> batches = new ArrayList<Set<? extends Integer>>();
+        LoadingCache<Integer, String> cache = new CoalescingLoadingCache<Integer, String>(
+                new LFUCache<Integer, String>(100), new CacheLoader<Integer, String>() {
+                    public String load(Integer key) {
+                        throw new AssertionError("single load of " + key);
+                    }
+
+                    public Map<Integer, String> loadAll(Set<? extends Integer> keys) {
+                        batches.add(keys);
+                        Map<Integer, String> result = new HashMap<Integer, String>();
+                        for (Integer key : keys) {
+                            if (key != 3) {
+                                result.put(key, "test" + key);
+                            }
+                        }
+                        return result;
+                    }
+                });
+        cache.put(1, "cached1");
+        Map<Integer, String> values = cache.getAll(Arrays.asList(1, 2, 3, 4));
+        Assert.assertEquals(1, batches.size());
+        Assert.assertEquals(new HashSet<Integer>(Arrays.asList(2, 3, 4)), batches.get(0));
+        Assert.assertEquals("cached1", values.get(1));
+        Assert.assertEquals("test2", values.get(2));
+        Assert.assertFalse(values.containsKey(3));
+        Assert.assertEquals("test4", cache.getIfPresent(4));
+        Assert.assertEquals(3, cache.size());
+    }
+
+    @Test
+    public void putAndEvictSupersedeALoadInFlight() throws Exception {
+        final CountDownLatch loading = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        LoadingCache<Integer, String> cache = new CoalescingLoadingCache<Integer, String>(
+                new LRUCache<Integer, String>(10), key -> {
+                    loading.countDown();
+                    release.await();
+                    return "stale" + key;
+                });
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            executor.submit(() -> cache.get(1));
+            loading.await();
+            cache.put(1, "fresh1");
+            release.countDown();
+            executor.shutdown();
+            Assert.assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+            Assert.assertEquals("fresh1", cache.getIfPresent(1));
+        } finally {
+            executor.shutdownNow();
+        }
+
+        final CountDownLatch loading2 = new CountDownLatch(1);
+        final CountDownLatch release2 = new CountDownLatch(1);
+        LoadingCache<Integer, String> evicted = new CoalescingLoadingCache<Integer, String>(
+                new LRUCache<Integer, String>(10), key -> {
+                    loading2.countDown();
+                    release2.await();
+                    return "stale" + key;
+                });
+        executor = Executors.newSingleThreadExecutor();
+        try {
+            executor.submit(() -> evicted.get(1));
+            loading2.await();
+            evicted.evict(1);
+            release2.countDown();
+            executor.shutdown();
+            Assert.assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+            Assert.assertNull(evicted.getIfPresent(1));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void installDoesNotBlockOtherKeys() throws Exception {
+        final CountDownLatch installing = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        Cache<Integer, String> slow = new LRUCache<Integer, String>(10) {
+            public void put(Integer key, String value) {
+                if (key == 1) {
+                    installing.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+                super.put(key, value);
+            }
+        };
+        LoadingCache<Integer, String> cache = new CoalescingLoadingCache<Integer, String>(slow, key -> "test" + key);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> load = executor.submit(() -> cache.get(1));
+            Assert.assertTrue(installing.await(5, TimeUnit.SECONDS));
+            // 17 shares the bin of 1 in a small ConcurrentHashMap, the slow install must not hold it
+            cache.put(17, "test17");
+            cache.evict(17);
+            Assert.assertEquals("test33", cache.get(33));
+            release.countDown();
+            Assert.assertEquals("test1", load.get(5, TimeUnit.SECONDS));
+            Assert.assertEquals("test1", cache.getIfPresent(1));
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void putRacingWithAnInstallWins() throws Exception {
+        final CountDownLatch installing = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        Cache<Integer, String> slow = new LRUCache<Integer, String>(10) {
+            public void put(Integer key, String value) {
+                if (value.startsWith("stale")) {
+                    installing.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+                super.put(key, value);
+            }
+        };
+        LoadingCache<Integer, String> cache = new CoalescingLoadingCache<Integer, String>(slow, key -> "stale" + key);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> load = executor.submit(() -> cache.get(1));
+            Assert.assertTrue(installing.await(5, TimeUnit.SECONDS));
+            Future<?> put = executor.submit(() -> cache.put(1, "fresh1"));
+            Thread.sleep(50);
+            release.countDown();
+            put.get(5, TimeUnit.SECONDS);
+            load.get(5, TimeUnit.SECONDS);
+            Assert.assertEquals("fresh1", cache.getIfPresent(1));
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void recursiveLoadFails() {
+        final AtomicReference<LoadingCache<Integer, String>> self = new AtomicReference<LoadingCache<Integer, String>>();
+        self.set(new CoalescingLoadingCache<Integer, String>(
+                new LRUCache<Integer, String>(10), key -> self.get().get(key)));
+        try {
+            self.get().get(1);
+            Assert.fail();
+        } catch (IllegalStateException expected) {
+            // instead of waiting for itself forever
+        }
+        Assert.assertEquals("test1", self.get().get(1, key -> "test" + key));
+    }
+
+    @Test
+    public void getAllWalksTheKeysOnce() {
+        LoadingCache<Integer, String> cache = new CoalescingLoadingCache<Integer, String>(
+                new LRUCache<Integer, String>(10), key -> "test" + key);
+        cache.put(1, "cached1");
+        final Iterable<Integer> oneShot = new Iterable<Integer>() {
+            private boolean iterated;
+
+            public Iterator<Integer> iterator() {
+                Assert.assertFalse(iterated);
+                iterated = true;
+                return Arrays.asList(1, 2, 3).iterator();
+            }
+        };
+        Map<Integer, String> values = cache.getAll(oneShot);
+        Assert.assertEquals(3, values.size());
+        Assert.assertEquals("cached1", values.get(1));
+        Assert.assertEquals("test3", values.get(3));
+    }
+
+    @Test
+    public void concurrentMissesShareOneLoadLFU() throws InterruptedException {
+        concurrentMissesShareOneLoad(new LFUCache<Integer, String>(100));
+    }
+
+    @Test
+    public void concurrentMissesShareOneLoadLRU() throws InterruptedException {
+        concurrentMissesShareOneLoad(new LRUCache<Integer, String>(100));
+    }
+
+    private void concurrentMissesShareOneLoad(Cache<Integer, String> backing) throws InterruptedException {
+        final AtomicInteger loads = new AtomicInteger();
+        final LoadingCache<Integer, String> cache = new CoalescingLoadingCache<Integer, String>(backing, key -> {
+            loads.incrementAndGet();
+            TimeUnit.MILLISECONDS.sleep(200);
+            return "test" + key;
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(50);
+        final CountDownLatch start = new CountDownLatch(1);
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        for (int i = 0; i < 50; i++) {
+            executor.submit(new Runnable() {
+                public void run() {
+                    try {
+                        start.await();
+                        Assert.assertEquals("test7", cache.get(7));
+                    } catch (Throwable e) {
+                        failure.compareAndSet(null, e);
+                    }
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        Assert.assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        Assert.assertNull(failure.get());
+        Assert.assertEquals(1, loads.get());
+    }
+}
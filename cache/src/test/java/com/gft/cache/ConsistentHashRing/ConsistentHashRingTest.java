@@ -0,0 +1,73 @@
+package com.gft.cache.ConsistentHashRing;
+
+import com.gft.cache.codec.IntegerCodec;
+import com.gft.cache.partitioned.ConsistentHashRing;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class ConsistentHashRingTest {
+
+    private static final int KEYS = 100000;
+
+    private final IntegerCodec codec = new IntegerCodec();
+
+    @Test
+    public void emptyRing() {
+        ConsistentHashRing ring = new ConsistentHashRing();
+        Assert.assertNull(ring.nodeFor(codec.encode(1)));
+        Assert.assertTrue(ring.nodes().isEmpty());
+    }
+
+    @Test
+    public void spreadsKeysEvenly() {
+        ConsistentHashRing ring = new ConsistentHashRing(ConsistentHashRing.DEFAULT_VIRTUAL_NODES, "a", "b", "c", "d");
+        Map<String, Integer> counts = new HashMap<String, Integer>();
+        for (int i = 0; i < KEYS; i++) {
+            counts.merge(ring.nodeFor(codec.encode(i)), 1, Integer::sum);
+        }
+        Assert.assertEquals(4, counts.size());
+        for (int count : counts.values()) {
+            Assert.assertTrue("unbalanced: " + counts, Math.abs(count - KEYS / 4) < KEYS / 4 * 0.2);
+        }
+    }
+
+    @Test
+    public void addingANodeMovesItsShareOnly() {
+        ConsistentHashRing ring = new ConsistentHashRing(ConsistentHashRing.DEFAULT_VIRTUAL_NODES, "a", "b", "c");
+        String[] before = new String[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            before[i] = ring.nodeFor(codec.encode(i));
+        }
+        ring.addNode("d");
+        int moved = 0;
+        for (int i = 0; i < KEYS; i++) {
+            String owner = ring.nodeFor(codec.encode(i));
+            if (!owner.equals(before[i])) {
+                // keys only ever move to the new node
+                Assert.assertEquals("d", owner);
+                moved++;
+            }
+        }
+        Assert.assertTrue("moved " + moved, Math.abs(moved - KEYS / 4) < KEYS / 4 * 0.2);
+
+        ring.removeNode("d");
+        for (int i = 0; i < KEYS; i++) {
+            Assert.assertEquals(before[i], ring.nodeFor(codec.encode(i)));
+        }
+    }
+
+    @Test
+    public void sameOwnersOnEveryInstance() {
+        ConsistentHashRing first = new ConsistentHashRing(ConsistentHashRing.DEFAULT_VIRTUAL_NODES, "a", "b", "c");
+        ConsistentHashRing second = new ConsistentHashRing();
+        second.addNode("c");
+        second.addNode("a");
+        second.addNode("b");
+        for (int i = 0; i < 10000; i++) {
+            Assert.assertEquals(first.nodeFor(codec.encode(i)), second.nodeFor(codec.encode(i)));
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.gft.cache.IntLRUCache;
+
+import com.gft.cache.Cache;
+import com.gft.cache.primitive.IntLRUCache;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+public class IntLRUCacheTest {
+
+    @Test
+    public void simpleAddTest() {
+        IntLRUCache<String> cache = new IntLRUCache<String>(4);
+        cache.put(1, "test1");
+        cache.put(2, "test2");
+        cache.put(3, "test3");
+        cache.put(4, "test4");
+        Assert.assertEquals(4, cache.size());
+        Assert.assertEquals("test1", cache.get(1));
+        cache.put(5, "test5");
+        Assert.assertEquals(4, cache.size());
+        Assert.assertNull(cache.get(2));
+        Assert.assertEquals("test1", cache.get(1));
+        cache.evict(1);
+        Assert.assertNull(cache.get(1));
+        Assert.assertEquals(3, cache.size());
+
+        Cache<Integer, String> boxed = cache;
+        boxed.put(6, "test6");
+        Assert.assertEquals("test6", boxed.get(6));
+        Assert.assertEquals(4, boxed.size());
+    }
+
+    @Test
+    public void behavesLikeLinkedHashMap() {
+        final int maxSize = 64;
+        IntLRUCache<String> cache = new IntLRUCache<String>(maxSize);
+        Map<Integer, String> model = new LinkedHashMap<Integer, String>(16, 0.75f, true) {
+            protected boolean removeEldestEntry(Map.Entry<Integer, String> eldest) {
+                return size() > maxSize;
+            }
+        };
+        Random rand = new Random(42);
+        for (int i = 0; i < 200000; i++) {
+            // multiples of the table size collide on purpose to exercise the probe runs
+            int key = rand.nextBoolean() ? rand.nextInt(200) : rand.nextInt(50) * 128;
+            int op = rand.nextInt(10);
+            if (op < 4) {
+                cache.put(key, "test" + i);
+                model.put(key, "test" + i);
+            } else if (op < 5) {
+                cache.evict(key);
+                model.remove(key);
+            } else {
+                Assert.assertEquals(model.get(key), cache.get(key));
+            }
+            Assert.assertEquals(model.size(), cache.size());
+        }
+    }
+
+    @Test
+    public void multiThreaded() throws InterruptedException {
+        final IntLRUCache<String> cache = new IntLRUCache<String>(100);
+        ExecutorService executor = Executors.newFixedThreadPool(20);
+        final AssertionError[] failure = new AssertionError[1];
+        for (int i = 0; i < 20; i++) {
+            executor.submit(new Runnable() {
+                public void run() {
+                    Random rand = new Random();
+                    for (int i = 0; i < 20000; i++) {
+                        int randValue = rand.nextInt(300);
+                        if (rand.nextBoolean()) {
+                            cache.put(randValue, "test" + randValue);
+                        } else {
+                            String fromCache = cache.get(randValue);
+                            if (fromCache != null && !fromCache.equals("test" + randValue)) {
+                                failure[0] = new AssertionError("Wrong value " + fromCache + " for " + randValue);
+                            }
+                        }
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        Assert.assertTrue(executor.awaitTermination(100, TimeUnit.SECONDS));
+        if (failure[0] != null) {
+            throw failure[0];
+        }
+        Assert.assertEquals(100, cache.size());
+    }
+}
@@ -1,8 +1,11 @@
 package com.gft.cache;
 
 
+import com.gft.cache.arc.ARCCache;
 import com.gft.cache.lfu.LFUCache;
 import com.gft.cache.lru.LRUCache;
+import com.gft.cache.lru.SegmentedLRUCache;
+import com.gft.cache.primitive.IntLRUCache;
 import org.junit.Test;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.Mode;
@@ -32,6 +35,24 @@ public class JMHLFUCacheTest {
 
     private Cache<Integer, String> lruCache = new LRUCache(cacheSize);
 
+
+    private Cache<Integer, String> segmentedLruCache = new SegmentedLRUCache(cacheSize);
+
+
+    private IntLRUCache<String> intLruCache = new IntLRUCache<String>(cacheSize);
+
+
+    private Cache<Integer, String> arcCache = new ARCCache<Integer, String>(cacheSize);
+
+    // small caches facing a workload that keeps evicting, to compare the policies under churn
+    private final static int smallCacheSize = 1000;
+
+    private Cache<Integer, String> smallLfuCache = new LFUCache<Integer, String>(smallCacheSize);
+
+    private Cache<Integer, String> smallLruCache = new LRUCache<Integer, String>(smallCacheSize);
+
+    private Cache<Integer, String> smallArcCache = new ARCCache<Integer, String>(smallCacheSize);
+
     @Test
     public void
     launchBenchmarkRead() throws Exception {
@@ -201,6 +222,113 @@ public class JMHLFUCacheTest {
         return lruCache.get(rand);
     }
 
+    @Benchmark
+    public String readWriteSegmentedLRU() {
+        int rand = getRand();
+        segmentedLruCache.put(rand, getValue(rand));
+        int rand2 = getRand();
+        return segmentedLruCache.get(rand2);
+    }
+
+    @Benchmark
+    public String read10WriteSegmentedLRU() {
+        for (int i = 0; i <= 9; i++) {
+            int rand = getRand();
+            segmentedLruCache.get(rand);
+        }
+        int rand = getRand();
+        segmentedLruCache.put(rand, getValue(rand));
+        int rand2 = getRand();
+        return segmentedLruCache.get(rand2);
+    }
+
+    @Benchmark
+    public void putToCacheSegmentedLRU() {
+        int rand = getRand();
+        segmentedLruCache.put(rand, getValue(rand));
+    }
+
+    @Benchmark
+    public String getFromCacheSegmentedLRU() {
+        int rand = getRand();
+        return segmentedLruCache.get(rand);
+    }
+
+    @Benchmark
+    public void putToCacheIntLRU() {
+        int rand = ThreadLocalRandom.current().nextInt(0, 1000);
+        intLruCache.put(rand, getValue(rand));
+    }
+
+    @Benchmark
+    public String getFromCacheIntLRU() {
+        return intLruCache.get(ThreadLocalRandom.current().nextInt(0, 1000));
+    }
+
+    @Benchmark
+    public String readWriteARC() {
+        int rand = getRand();
+        arcCache.put(rand, getValue(rand));
+        int rand2 = getRand();
+        return arcCache.get(rand2);
+    }
+
+    @Benchmark
+    public String read10WriteARC() {
+        for (int i = 0; i <= 9; i++) {
+            int rand = getRand();
+            arcCache.get(rand);
+        }
+        int rand = getRand();
+        arcCache.put(rand, getValue(rand));
+        int rand2 = getRand();
+        return arcCache.get(rand2);
+    }
+
+    @Benchmark
+    public void putToCacheARC() {
+        int rand = getRand();
+        arcCache.put(rand, getValue(rand));
+    }
+
+    @Benchmark
+    public String getFromCacheARC() {
+        int rand = getRand();
+        return arcCache.get(rand);
+    }
+
+    @Benchmark
+    public String churnLFU() {
+        return getOrPut(smallLfuCache, getChurnKey());
+    }
+
+    @Benchmark
+    public String churnLRU() {
+        return getOrPut(smallLruCache, getChurnKey());
+    }
+
+    @Benchmark
+    public String churnARC() {
+        return getOrPut(smallArcCache, getChurnKey());
+    }
+
+    private String getOrPut(Cache<Integer, String> cache, int key) {
+        String value = cache.get(key);
+        if (value == null) {
+            value = getValue(key);
+            cache.put(key, value);
+        }
+        return value;
+    }
+
+    /**
+     * @return a key of a hot set half the size of the small caches or, one time in three, a rarely repeated key
+     */
+    private int getChurnKey() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return random.nextInt(3) == 0 ? random.nextInt(smallCacheSize, radnUpTo) : random.nextInt(smallCacheSize / 2);
+    }
+
     private Integer getRand() {
 //        Random random=new Random();
 //        return random.nextInt(1000);
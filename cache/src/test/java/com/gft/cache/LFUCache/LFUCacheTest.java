@@ -0,0 +1,415 @@
+package com.gft.cache.LFUCache;
+
+import com.gft.cache.Cache;
+import com.gft.cache.CacheBuilder;
+import com.gft.cache.CacheWriter;
+import com.gft.cache.lfu.LFUCache;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+
+
+/**
+ * Created by e-papz on 7/26/2016.
+ */
+public class LFUCacheTest {
+
+    @Test
+    public void simpleAddTest() {
+        Cache<Integer, String> cache = new LFUCache(4);
+        cache.put(1, "test1");
+        cache.put(2, "test2");
+        Assert.assertEquals(2, cache.size());
+        Assert.assertEquals("test1", cache.get(1));
+        Assert.assertEquals("test2", cache.get(2));
+        cache.put(3, "test3");
+        cache.put(4, "test4");
+        Assert.assertEquals(4, cache.size());
+        Assert.assertEquals("test1", cache.get(1));
+        Assert.assertEquals("test2", cache.get(2));
+        Assert.assertEquals("test4", cache.get(4));
+        cache.put(5, "test5");
+        Assert.assertEquals(4, cache.size());
+        Assert.assertNull(cache.get(3));
+        Assert.assertEquals("test5", cache.get(5));
+        Assert.assertEquals("test5", cache.get(5));
+        Assert.assertEquals("test5", cache.get(5));
+        Assert.assertEquals("test5", cache.get(5));
+
+        cache.put(6, "test6");
+        Assert.assertEquals(4, cache.size());
+        Assert.assertNull(cache.get(4));
+        Assert.assertEquals("test6", cache.get(6));
+        Assert.assertEquals("test1", cache.get(1));
+        Assert.assertEquals("test2", cache.get(2));
+        Assert.assertEquals("test5", cache.get(5));
+        cache.put(3, "test3");
+        Assert.assertEquals(4, cache.size());
+    }
+
+
+
+
+    @Test
+    public void bulkOperations() {
+        Cache<Integer, String> cache = new LFUCache<Integer, String>(100);
+        Map<Integer, String> entries = new LinkedHashMap<Integer, String>();
+        for (int i = 0; i < 50; i++) {
+            entries.put(i, "test" + i);
+        }
+        cache.putAll(entries);
+        Assert.assertEquals(50, cache.size());
+        Map<Integer, String> found = cache.getAll(Arrays.asList(0, 10, 49, 77));
+        Assert.assertEquals(3, found.size());
+        Assert.assertEquals("test10", found.get(10));
+        Assert.assertFalse(found.containsKey(77));
+        cache.evictAll(Arrays.asList(0, 1, 2, 77));
+        Assert.assertEquals(47, cache.size());
+        Assert.assertNull(cache.get(1));
+        Assert.assertEquals("test3", cache.get(3));
+    }
+
+    @Test
+    public void evictAndUpdate() {
+        Cache<Integer, String> cache = new LFUCache<Integer, String>(2);
+        cache.evict(1);
+        cache.put(1, "test1");
+        cache.put(1, "test1b");
+        Assert.assertEquals(1, cache.size());
+        Assert.assertEquals("test1b", cache.get(1));
+        cache.evict(1);
+        Assert.assertNull(cache.get(1));
+        Assert.assertEquals(0, cache.size());
+        cache.put(2, "test2");
+        cache.put(3, "test3");
+        cache.put(4, "test4");
+        Assert.assertEquals(2, cache.size());
+        Assert.assertNull(cache.get(2));
+    }
+
+    @Test
+    public void agingLetsNewHotKeysIn() {
+        Assert.assertNull(runStaleHotKeys(new LFUCache<Integer, String>(3)).get(4));
+
+        Cache<Integer, String> aged = runStaleHotKeys(new LFUCache<Integer, String>(3, 8));
+        Assert.assertEquals("test4", aged.get(4));
+        Assert.assertEquals("test5", aged.get(5));
+        Assert.assertEquals(3, aged.size());
+    }
+
+    private Cache<Integer, String> runStaleHotKeys(Cache<Integer, String> cache) {
+        cache.put(1, "test1");
+        cache.put(2, "test2");
+        cache.put(3, "test3");
+        for (int i = 0; i < 100; i++) {
+            cache.get(1);
+            cache.get(2);
+        }
+        cache.put(4, "test4");
+        for (int i = 0; i < 40; i++) {
+            cache.get(4);
+        }
+        cache.put(5, "test5");
+        return cache;
+    }
+
+    @Test
+    public void maximumWeight() {
+        LFUCache<Integer, String> cache = CacheBuilder.<Integer, String>newBuilder()
+                .maximumWeight(100)
+                .weigher((Integer key, String value) -> value.length())
+                .buildLFU();
+        cache.put(1, "0123456789");
+        cache.put(2, "0123456789012345678901234567890123456789");
+        Assert.assertEquals(50, cache.weightedSize());
+        cache.put(3, "01234567890123456789012345678901234567890123456789");
+        Assert.assertEquals(100, cache.weightedSize());
+        Assert.assertEquals(3, cache.size());
+        cache.put(4, "0123456789");
+        Assert.assertTrue(cache.weightedSize() <= 100);
+        Assert.assertEquals("0123456789", cache.get(4));
+        cache.put(4, "012345678901234567890123456789012345678901234567890123456789012345678901234567890123456789");
+        Assert.assertTrue(cache.weightedSize() <= 100);
+        Assert.assertEquals(1, cache.size());
+        cache.evict(4);
+        Assert.assertEquals(0, cache.weightedSize());
+        cache.put(5, "01234567890123456789012345678901234567890123456789012345678901234567890123456789012345678901234567890");
+        Assert.assertEquals(0, cache.weightedSize());
+        Assert.assertNull(cache.get(5));
+    }
+
+    @Test
+    public void oversizedEntryLeavesTheRestAlone() {
+        LFUCache<Integer, String> cache = CacheBuilder.<Integer, String>newBuilder()
+                .maximumWeight(30)
+                .weigher((Integer key, String value) -> value.length())
+                .buildLFU();
+        cache.put(1, "0123456789");
+        cache.put(2, "0123456789");
+        cache.put(3, "0123456789");
+        cache.put(4, "0123456789012345678901234567890123456789");
+        Assert.assertEquals(3, cache.size());
+        Assert.assertEquals(30, cache.weightedSize());
+        Assert.assertNull(cache.get(4));
+        // an update that cannot fit drops the old value instead of the other entries
+        cache.put(1, "0123456789012345678901234567890123456789");
+        Assert.assertNull(cache.get(1));
+        Assert.assertEquals(2, cache.size());
+        Assert.assertEquals(20, cache.weightedSize());
+        Assert.assertEquals("0123456789", cache.get(2));
+        Assert.assertEquals("0123456789", cache.get(3));
+    }
+
+    @Test
+    public void expireAfterWrite() {
+        final AtomicLong time = new AtomicLong();
+        LFUCache<Integer, String> cache = CacheBuilder.<Integer, String>newBuilder()
+                .maximumSize(10)
+                .expireAfterWrite(10, TimeUnit.SECONDS)
+                .ticker(time::get)
+                .buildLFU();
+        cache.put(1, "test1");
+        time.addAndGet(TimeUnit.SECONDS.toNanos(5));
+        cache.put(2, "test2");
+        Assert.assertEquals("test1", cache.get(1));
+        time.addAndGet(TimeUnit.SECONDS.toNanos(6));
+        Assert.assertNull(cache.get(1));
+        Assert.assertEquals("test2", cache.get(2));
+        cache.cleanUp();
+        Assert.assertEquals(1, cache.size());
+        time.addAndGet(TimeUnit.SECONDS.toNanos(5));
+        cache.cleanUp();
+        Assert.assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void expireAfterAccess() {
+        final AtomicLong time = new AtomicLong();
+        LFUCache<Integer, String> cache = CacheBuilder.<Integer, String>newBuilder()
+                .maximumSize(10)
+                .expireAfterAccess(10, TimeUnit.SECONDS)
+                .ticker(time::get)
+                .buildLFU();
+        cache.put(1, "test1");
+        time.addAndGet(TimeUnit.SECONDS.toNanos(8));
+        Assert.assertEquals("test1", cache.get(1));
+        time.addAndGet(TimeUnit.SECONDS.toNanos(8));
+        cache.cleanUp();
+        Assert.assertEquals("test1", cache.get(1));
+        time.addAndGet(TimeUnit.SECONDS.toNanos(13));
+        Assert.assertNull(cache.get(1));
+        cache.cleanUp();
+        Assert.assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void timerWheelReclaimsEveryExpiredEntry() {
+        final AtomicLong time = new AtomicLong(-TimeUnit.DAYS.toNanos(1));
+        LFUCache<Integer, String> cache = CacheBuilder.<Integer, String>newBuilder()
+                .maximumSize(10000)
+                .expireAfterWrite(2, TimeUnit.HOURS)
+                .ticker(time::get)
+                .buildLFU();
+        Random rand = new Random();
+        for (int i = 0; i < 5000; i++) {
+            time.addAndGet(rand.nextInt(1000000));
+            cache.put(i, "test" + i);
+        }
+        time.addAndGet(TimeUnit.MINUTES.toNanos(119));
+        cache.cleanUp();
+        Assert.assertEquals(5000, cache.size());
+        time.addAndGet(TimeUnit.MINUTES.toNanos(2));
+        cache.cleanUp();
+        Assert.assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void replacingExpiredEntryReportsExpired() {
+        final AtomicLong time = new AtomicLong();
+        final List<String> removals = new ArrayList<String>();
+        LFUCache<Integer, String> cache = CacheBuilder.<Integer, String>newBuilder()
+                .maximumSize(2)
+                .expireAfterWrite(10, TimeUnit.SECONDS)
+                .ticker(time::get)
+                .removalListener((key, value, cause) -> removals.add(key + "=" + value + " " + cause))
+                .executor(Runnable::run)
+                .buildLFU();
+        cache.put(1, "test1");
+        time.addAndGet(TimeUnit.SECONDS.toNanos(11));
+        cache.put(1, "updated1");
+        Assert.assertEquals("updated1", cache.get(1));
+        Assert.assertEquals(Arrays.asList("1=test1 EXPIRED"), removals);
+    }
+
+    @Test
+    public void removalListener() {
+        final AtomicLong time = new AtomicLong();
+        final List<String> removals = new ArrayList<String>();
+        LFUCache<Integer, String> cache = CacheBuilder.<Integer, String>newBuilder()
+                .maximumSize(2)
+                .expireAfterWrite(10, TimeUnit.SECONDS)
+                .ticker(time::get)
+                .removalListener((key, value, cause) -> removals.add(key + "=" + value + " " + cause))
+                .executor(Runnable::run)
+                .buildLFU();
+        cache.put(1, "test1");
+        cache.put(1, "updated1");
+        cache.put(2, "test2");
+        Assert.assertEquals("updated1", cache.get(1));
+        cache.put(3, "test3");
+        cache.evict(3);
+        time.addAndGet(TimeUnit.SECONDS.toNanos(11));
+        cache.cleanUp();
+        Assert.assertEquals(Arrays.asList("1=test1 REPLACED", "2=test2 SIZE", "3=test3 EXPLICIT", "1=updated1 EXPIRED"), removals);
+    }
+
+    @Test
+    public void writeThrough() {
+        final Map<Integer, String> store = new HashMap<Integer, String>();
+        Cache<Integer, String> cache = CacheBuilder.<Integer, String>newBuilder()
+                .maximumSize(2)
+                .writer(new CacheWriter<Integer, String>() {
+                    public void write(Integer key, String value) {
+                        store.put(key, value);
+                    }
+
+                    public void delete(Integer key) {
+                        store.remove(key);
+                    }
+                })
+                .buildLFU();
+        cache.put(1, "test1");
+        cache.put(2, "test2");
+        cache.put(3, "test3");
+        Assert.assertEquals(3, store.size());
+        cache.evict(3);
+        Assert.assertFalse(store.containsKey(3));
+        Map<Integer, String> entries = new LinkedHashMap<Integer, String>();
+        entries.put(1, "updated1");
+        entries.put(4, "test4");
+        cache.putAll(entries);
+        Assert.assertEquals("updated1", store.get(1));
+        Assert.assertEquals("test4", store.get(4));
+        cache.evictAll(Arrays.asList(1, 2));
+        Assert.assertEquals(1, store.size());
+    }
+
+    @Test
+    public void multiThreadedMixed() throws InterruptedException {
+        final Cache<Integer, String> cache = new LFUCache<Integer, String>(100);
+        ExecutorService executor = Executors.newFixedThreadPool(40);
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        for (int i = 0; i < 40; i++) {
+            executor.submit(new Runnable() {
+                public void run() {
+                    try {
+                        Random rand = new Random();
+                        for (int i = 0; i < 20000; i++) {
+                            int randValue = rand.nextInt(300);
+                            int op = rand.nextInt(10);
+                            if (op == 0) {
+                                cache.put(randValue, "test" + randValue);
+                            } else if (op == 1) {
+                                cache.evict(randValue);
+                            } else {
+                                String fromCache = cache.get(randValue);
+                                if (fromCache != null) {
+                                    Assert.assertEquals("test" + randValue, fromCache);
+                                }
+                            }
+                        }
+                    } catch (Throwable e) {
+                        failure.compareAndSet(null, e);
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        Assert.assertTrue(executor.awaitTermination(100, TimeUnit.SECONDS));
+        Assert.assertNull(failure.get());
+        Assert.assertTrue(cache.size() <= 100);
+    }
+
+
+    @Test
+
+    public void multiThreaded() throws InterruptedException {
+        final Cache<Integer, String> cache = new LFUCache(100);
+        ExecutorService executor = Executors.newFixedThreadPool(50);
+        final CountDownLatch latch=new CountDownLatch(50);
+        for (int i = 0; i < 15; i++) {
+            executor.submit(new Runnable() {
+                public void run() {
+                    try {
+                        Random rand = new Random();
+                        for (int i = 0; i < 10000; i++) {
+                            int randValue = rand.nextInt(200);
+                            cache.put(randValue, "test" + randValue);
+                            try {
+                                TimeUnit.MICROSECONDS.sleep(20);
+                            } catch (InterruptedException e) {
+                                e.printStackTrace();
+                            }
+
+                         //   String fromCache = cache.get(randValue);
+
+                        }
+                    } catch (Exception e) {
+                        e.printStackTrace();
+                    }
+
+                    latch.countDown();
+              //      System.out.println("End");
+                }
+            });
+        }
+
+        for (int i = 0; i < 35; i++) {
+            executor.submit(new Runnable() {
+                public void run() {
+                    try {
+                        Random rand = new Random();
+                        for (int i = 0; i < 10000; i++) {
+                            int randValue = rand.nextInt(10);
+                         //   cache.put(randValue, "test" + randValue);
+                            try {
+                                TimeUnit.MICROSECONDS.sleep(20);
+                            } catch (InterruptedException e) {
+                                e.printStackTrace();
+                            }
+
+                            String fromCache = cache.get(randValue);
+
+                        }
+                    } catch (Exception e) {
+                        e.printStackTrace();
+                    }
+
+                    latch.countDown();
+                    //      System.out.println("End");
+                }
+            });
+        }
+
+
+        executor.shutdown();
+        latch.await();
+        Assert.assertEquals(0,latch.getCount());
+
+
+    }
+}
@@ -0,0 +1,55 @@
+package com.gft.cache.LongLRUCache;
+
+import com.gft.cache.Cache;
+import com.gft.cache.primitive.LongLRUCache;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+public class LongLRUCacheTest {
+
+    @Test
+    public void simpleAddTest() {
+        LongLRUCache<String> cache = new LongLRUCache<String>(2);
+        cache.put(1L << 40, "test1");
+        cache.put(2L << 40, "test2");
+        Assert.assertEquals("test1", cache.get(1L << 40));
+        cache.put(3L << 40, "test3");
+        Assert.assertNull(cache.get(2L << 40));
+        Assert.assertEquals(2, cache.size());
+
+        Cache<Long, String> boxed = cache;
+        Assert.assertEquals("test3", boxed.get(3L << 40));
+        boxed.evict(3L << 40);
+        Assert.assertEquals(1, boxed.size());
+    }
+
+    @Test
+    public void behavesLikeLinkedHashMap() {
+        final int maxSize = 50;
+        LongLRUCache<String> cache = new LongLRUCache<String>(maxSize);
+        Map<Long, String> model = new LinkedHashMap<Long, String>(16, 0.75f, true) {
+            protected boolean removeEldestEntry(Map.Entry<Long, String> eldest) {
+                return size() > maxSize;
+            }
+        };
+        Random rand = new Random(7);
+        for (int i = 0; i < 200000; i++) {
+            long key = rand.nextInt(150) * 0x100000000L + rand.nextInt(2);
+            int op = rand.nextInt(10);
+            if (op < 4) {
+                cache.put(key, "test" + i);
+                model.put(key, "test" + i);
+            } else if (op < 5) {
+                cache.evict(key);
+                model.remove(key);
+            } else {
+                Assert.assertEquals(model.get(key), cache.get(key));
+            }
+            Assert.assertEquals(model.size(), cache.size());
+        }
+    }
+}
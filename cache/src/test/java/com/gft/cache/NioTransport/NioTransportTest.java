@@ -0,0 +1,150 @@
+package com.gft.cache.NioTransport;
+
+import com.gft.cache.codec.IntegerCodec;
+import com.gft.cache.codec.StringCodec;
+import com.gft.cache.lru.LRUCache;
+import com.gft.cache.partitioned.ConsistentHashRing;
+import com.gft.cache.partitioned.NioTransport;
+import com.gft.cache.partitioned.PartitionedCache;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+public class NioTransportTest {
+
+    private static InetSocketAddress anyPort() {
+        return new InetSocketAddress(InetAddress.getLoopbackAddress(), 0);
+    }
+
+    @Test
+    public void roundTrip() throws Exception {
+        try (NioTransport server = new NioTransport(); NioTransport client = new NioTransport()) {
+            InetSocketAddress address = server.listen(anyPort(), request -> {
+                byte[] response = Arrays.copyOf(request, request.length + 1);
+                response[request.length] = 42;
+                return response;
+            });
+            client.addPeer("server", address);
+            byte[] response = client.send("server", new byte[]{1, 2, 3}).get(5, TimeUnit.SECONDS);
+            Assert.assertArrayEquals(new byte[]{1, 2, 3, 42}, response);
+            // larger than the read buffer
+            byte[] large = new byte[1024 * 1024];
+            large[large.length - 1] = 7;
+            Assert.assertEquals(large.length + 1, client.send("server", large).get(5, TimeUnit.SECONDS).length);
+        }
+    }
+
+    @Test
+    public void pipelinesConcurrentRequests() throws Exception {
+        try (NioTransport server = new NioTransport(); NioTransport client = new NioTransport()) {
+            client.addPeer("server", server.listen(anyPort(), request -> {
+                int value = ByteBuffer.wrap(request).getInt();
+                return ByteBuffer.allocate(4).putInt(value * 2).array();
+            }));
+            List<CompletableFuture<byte[]>> responses = new ArrayList<CompletableFuture<byte[]>>();
+            for (int i = 0; i < 10000; i++) {
+                responses.add(client.send("server", ByteBuffer.allocate(4).putInt(i).array()));
+            }
+            for (int i = 0; i < responses.size(); i++) {
+                Assert.assertEquals(i * 2, ByteBuffer.wrap(responses.get(i).get(10, TimeUnit.SECONDS)).getInt());
+            }
+        }
+    }
+
+    @Test
+    public void handlerFailureFailsTheRequest() throws Exception {
+        try (NioTransport server = new NioTransport(); NioTransport client = new NioTransport()) {
+            client.addPeer("server", server.listen(anyPort(), request -> {
+                if (request.length == 0) {
+                    throw new IllegalArgumentException("empty");
+                }
+                return request;
+            }));
+            try {
+                client.send("server", new byte[0]).get(5, TimeUnit.SECONDS);
+                Assert.fail();
+            } catch (ExecutionException e) {
+                Assert.assertTrue(e.getCause() instanceof IOException);
+                Assert.assertTrue(e.getCause().getMessage().contains("empty"));
+            }
+            // the connection is still usable
+            Assert.assertArrayEquals(new byte[]{1}, client.send("server", new byte[]{1}).get(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void unreachableNode() throws Exception {
+        try (NioTransport client = new NioTransport()) {
+            try {
+                client.send("unknown", new byte[]{1}).get(5, TimeUnit.SECONDS);
+                Assert.fail();
+            } catch (ExecutionException e) {
+                Assert.assertTrue(e.getCause() instanceof IOException);
+            }
+            InetSocketAddress closedPort;
+            try (NioTransport server = new NioTransport()) {
+                closedPort = server.listen(anyPort(), request -> request);
+            }
+            client.addPeer("gone", closedPort);
+            try {
+                client.send("gone", new byte[]{1}).get(5, TimeUnit.SECONDS);
+                Assert.fail();
+            } catch (ExecutionException e) {
+                Assert.assertTrue(e.getCause() instanceof IOException);
+            }
+        }
+    }
+
+    @Test
+    public void partitionedCacheOverTcp() throws Exception {
+        String[] names = {"a", "b", "c"};
+        List<NioTransport> transports = new ArrayList<NioTransport>();
+        List<PartitionedCache<Integer, String>> nodes = new ArrayList<PartitionedCache<Integer, String>>();
+        try {
+            List<InetSocketAddress> addresses = new ArrayList<InetSocketAddress>();
+            for (String name : names) {
+                NioTransport transport = new NioTransport();
+                transports.add(transport);
+                PartitionedCache<Integer, String> cache = new PartitionedCache<Integer, String>(name,
+                        new ConsistentHashRing(ConsistentHashRing.DEFAULT_VIRTUAL_NODES, names), transport,
+                        new IntegerCodec(), new StringCodec(), new LRUCache<Integer, String>(1000),
+                        new LRUCache<Integer, String>(100));
+                nodes.add(cache);
+                addresses.add(transport.listen(anyPort(), cache));
+            }
+            for (NioTransport transport : transports) {
+                for (int i = 0; i < names.length; i++) {
+                    transport.addPeer(names[i], addresses.get(i));
+                }
+            }
+            for (int i = 0; i < 300; i++) {
+                nodes.get(i % 3).put(i, "test" + i);
+            }
+            List<Integer> keys = new ArrayList<Integer>();
+            for (int i = 0; i < 300; i++) {
+                keys.add(i);
+            }
+            for (PartitionedCache<Integer, String> node : nodes) {
+                Assert.assertEquals(300, node.getAll(keys).size());
+                for (int i = 0; i < 300; i++) {
+                    Assert.assertEquals("test" + i, node.get(i));
+                }
+            }
+            Assert.assertEquals(300, nodes.get(0).size() + nodes.get(1).size() + nodes.get(2).size());
+        } finally {
+            for (NioTransport transport : transports) {
+                transport.close();
+            }
+        }
+    }
+}
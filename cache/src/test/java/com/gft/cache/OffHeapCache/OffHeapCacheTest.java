@@ -0,0 +1,168 @@
+package com.gft.cache.OffHeapCache;
+
+import com.gft.cache.Cache;
+import com.gft.cache.codec.SerializableCodec;
+import com.gft.cache.codec.StringCodec;
+import com.gft.cache.offheap.OffHeapCache;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+public class OffHeapCacheTest {
+
+    @Test
+    public void simpleAddTest() {
+        Cache<Integer, String> cache = new OffHeapCache<Integer, String>(1 << 16, 1 << 12, new StringCodec());
+        cache.put(1, "test1");
+        cache.put(2, "test2");
+        Assert.assertEquals("test1", cache.get(1));
+        cache.put(1, "a much longer replacement of test1");
+        Assert.assertEquals("a much longer replacement of test1", cache.get(1));
+        Assert.assertEquals(2, cache.size());
+        cache.evict(2);
+        Assert.assertNull(cache.get(2));
+        Assert.assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedWhenMemoryRunsOut() {
+        // 4 slabs of 1KB, each value takes a 128 byte chunk: 32 entries fit
+        OffHeapCache<Integer, String> cache = new OffHeapCache<Integer, String>(4096, 1024, new StringCodec());
+        char[] filler = new char[100];
+        Arrays.fill(filler, 'x');
+        String value = new String(filler);
+        for (int i = 0; i < 32; i++) {
+            cache.put(i, value + i);
+        }
+        Assert.assertEquals(32, cache.size());
+        Assert.assertEquals(value + 0, cache.get(0));
+        cache.put(32, value + 32);
+        Assert.assertEquals(32, cache.size());
+        Assert.assertNull(cache.get(1));
+        Assert.assertEquals(value + 0, cache.get(0));
+        Assert.assertEquals(value + 32, cache.get(32));
+        Assert.assertEquals(4096, cache.usedMemory());
+    }
+
+    @Test
+    public void indexGrowsAndKeepsEveryKey() {
+        Cache<Integer, String> cache = new OffHeapCache<Integer, String>(1 << 22, 1 << 12, new StringCodec());
+        for (int i = 0; i < 10000; i++) {
+            cache.put(i, "test" + i);
+        }
+        for (int i = 0; i < 10000; i += 2) {
+            cache.evict(i);
+        }
+        Assert.assertEquals(5000, cache.size());
+        for (int i = 0; i < 10000; i++) {
+            Assert.assertEquals(i % 2 == 0 ? null : "test" + i, cache.get(i));
+        }
+        for (int i = 0; i < 10000; i += 2) {
+            cache.put(i, "updated" + i);
+        }
+        Assert.assertEquals(10000, cache.size());
+        Assert.assertEquals("updated9998", cache.get(9998));
+        Assert.assertEquals("test9999", cache.get(9999));
+    }
+
+    @Test
+    public void freedSlabsAreReusedForOtherSizes() {
+        OffHeapCache<Integer, String> cache = new OffHeapCache<Integer, String>(4096, 1024, new StringCodec());
+        for (int i = 0; i < 200; i++) {
+            cache.put(i, "v" + i);
+        }
+        char[] filler = new char[1000];
+        Arrays.fill(filler, 'x');
+        String large = new String(filler);
+        for (int i = 0; i < 4; i++) {
+            cache.put(1000 + i, large);
+        }
+        for (int i = 0; i < 4; i++) {
+            Assert.assertEquals(large, cache.get(1000 + i));
+        }
+        Assert.assertEquals(4, cache.size());
+
+        cache.put(2000, new String(new char[2000]));
+        Assert.assertNull(cache.get(2000));
+    }
+
+    @Test
+    public void oversizedValueLeavesTheRestAlone() {
+        OffHeapCache<Integer, String> cache = new OffHeapCache<Integer, String>(4096, 1024, new StringCodec());
+        for (int i = 0; i < 200; i++) {
+            cache.put(i, "v" + i);
+        }
+        cache.put(1, new String(new char[2000]));
+        Assert.assertNull(cache.get(1));
+        Assert.assertEquals(199, cache.size());
+        Assert.assertEquals("v0", cache.get(0));
+    }
+
+    @Test
+    public void largeValueEvictsOneSlabAtMost() {
+        // 16 slabs of 1KB holding 64 small values each
+        OffHeapCache<Integer, String> cache = new OffHeapCache<Integer, String>(16 * 1024, 1024, new StringCodec());
+        for (int i = 0; i < 1024; i++) {
+            cache.put(i, "v" + i);
+        }
+        Assert.assertEquals(1024, cache.size());
+        char[] filler = new char[500];
+        Arrays.fill(filler, 'x');
+        String large = new String(filler);
+        cache.put(5000, large);
+        Assert.assertEquals(large, cache.get(5000));
+        Assert.assertTrue("size " + cache.size(), cache.size() >= 1024 + 1 - 64);
+        Assert.assertEquals("v1023", cache.get(1023));
+        // the moved slab has room for a second value of that size
+        cache.put(5001, large);
+        Assert.assertEquals(large, cache.get(5001));
+        Assert.assertEquals(large, cache.get(5000));
+    }
+
+    @Test
+    public void serializableValues() {
+        Cache<String, ArrayList<Integer>> cache = new OffHeapCache<String, ArrayList<Integer>>(
+                1 << 20, new SerializableCodec<ArrayList<Integer>>());
+        cache.put("list", new ArrayList<Integer>(Arrays.asList(1, 2, 3)));
+        List<Integer> copy = cache.get("list");
+        Assert.assertEquals(Arrays.asList(1, 2, 3), copy);
+        Assert.assertNotSame(copy, cache.get("list"));
+    }
+
+    @Test
+    public void multiThreaded() throws InterruptedException {
+        final Cache<Integer, String> cache = new OffHeapCache<Integer, String>(1 << 14, 1 << 10, new StringCodec());
+        ExecutorService executor = Executors.newFixedThreadPool(20);
+        final AssertionError[] failure = new AssertionError[1];
+        for (int i = 0; i < 20; i++) {
+            executor.submit(new Runnable() {
+                public void run() {
+                    Random rand = new Random();
+                    for (int i = 0; i < 20000; i++) {
+                        int randValue = rand.nextInt(1000);
+                        if (rand.nextBoolean()) {
+                            cache.put(randValue, "test" + randValue);
+                        } else {
+                            String fromCache = cache.get(randValue);
+                            if (fromCache != null && !fromCache.equals("test" + randValue)) {
+                                failure[0] = new AssertionError("Wrong value " + fromCache + " for " + randValue);
+                            }
+                        }
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        Assert.assertTrue(executor.awaitTermination(100, TimeUnit.SECONDS));
+        if (failure[0] != null) {
+            throw failure[0];
+        }
+    }
+}
@@ -0,0 +1,417 @@
+package com.gft.cache.PartitionedCache;
+
+import com.gft.cache.Cache;
+import com.gft.cache.codec.IntegerCodec;
+import com.gft.cache.codec.StringCodec;
+import com.gft.cache.lru.LRUCache;
+import com.gft.cache.partitioned.ConsistentHashRing;
+import com.gft.cache.partitioned.LoopbackTransport;
+import com.gft.cache.partitioned.PartitionedCache;
+import com.gft.cache.partitioned.Transport;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+public class PartitionedCacheTest {
+
+    private static final String[] NODES = {"a", "b", "c"};
+
+    private final List<Cache<Integer, String>> stores = new ArrayList<Cache<Integer, String>>();
+
+    private List<PartitionedCache<Integer, String>> cluster(LoopbackTransport transport, boolean nearCache) {
+        return cluster(transport, transport, nearCache);
+    }
+
+    /**
+     * @param transport what the nodes send through, e.g. a wrapper around {@code network}
+     */
+    private List<PartitionedCache<Integer, String>> cluster(Transport transport, LoopbackTransport network, boolean nearCache) {
+        List<PartitionedCache<Integer, String>> nodes = new ArrayList<PartitionedCache<Integer, String>>();
+        for (String node : NODES) {
+            Cache<Integer, String> store = new LRUCache<Integer, String>(1000);
+            stores.add(store);
+            PartitionedCache<Integer, String> cache = new PartitionedCache<Integer, String>(node,
+                    new ConsistentHashRing(ConsistentHashRing.DEFAULT_VIRTUAL_NODES, NODES), transport,
+                    new IntegerCodec(), new StringCodec(), store,
+                    nearCache ? new LRUCache<Integer, String>(100) : null);
+            network.register(node, cache);
+            nodes.add(cache);
+        }
+        return nodes;
+    }
+
+    private static int keyOwnedBy(PartitionedCache<Integer, String> cache, String node, int from) {
+        int key = from;
+        while (!cache.nodeFor(key).equals(node)) {
+            key++;
+        }
+        return key;
+    }
+
+    @Test
+    public void everyNodeSeesTheSameValues() {
+        List<PartitionedCache<Integer, String>> nodes = cluster(new LoopbackTransport(), false);
+        for (int i = 0; i < 300; i++) {
+            nodes.get(i % 3).put(i, "test" + i);
+        }
+        for (PartitionedCache<Integer, String> node : nodes) {
+            for (int i = 0; i < 300; i++) {
+                Assert.assertEquals("test" + i, node.get(i));
+            }
+            Assert.assertNull(node.get(1000));
+        }
+    }
+
+    @Test
+    public void storesEachKeyOnItsOwnerOnly() {
+        List<PartitionedCache<Integer, String>> nodes = cluster(new LoopbackTransport(), true);
+        for (int i = 0; i < 300; i++) {
+            nodes.get(0).put(i, "test" + i);
+        }
+        int total = 0;
+        for (int n = 0; n < NODES.length; n++) {
+            Assert.assertTrue(nodes.get(n).size() > 50);
+            total += nodes.get(n).size();
+        }
+        Assert.assertEquals(300, total);
+        for (int i = 0; i < 300; i++) {
+            String owner = nodes.get(0).nodeFor(i);
+            for (int n = 0; n < NODES.length; n++) {
+                Assert.assertEquals(NODES[n].equals(owner) ? "test" + i : null, stores.get(n).get(i));
+            }
+        }
+    }
+
+    @Test
+    public void nearCacheServesHotRemoteKeys() {
+        LoopbackTransport transport = new LoopbackTransport();
+        List<PartitionedCache<Integer, String>> nodes = cluster(transport, true);
+        int key = keyOwnedBy(nodes.get(0), "b", 0);
+        nodes.get(1).put(key, "hot");
+
+        Assert.assertEquals("hot", nodes.get(0).get(key));
+        long requests = transport.getRequestCount();
+        for (int i = 0; i < 100; i++) {
+            Assert.assertEquals("hot", nodes.get(0).get(key));
+        }
+        Assert.assertEquals(requests, transport.getRequestCount());
+
+        // writes through this node refresh its near cache
+        nodes.get(0).put(key, "updated");
+        Assert.assertEquals("updated", nodes.get(0).get(key));
+        Assert.assertEquals("updated", nodes.get(2).get(key));
+    }
+
+    @Test
+    public void getAllSendsOneRequestPerNode() {
+        LoopbackTransport transport = new LoopbackTransport();
+        List<PartitionedCache<Integer, String>> nodes = cluster(transport, false);
+        List<Integer> keys = new ArrayList<Integer>();
+        for (int i = 0; i < 200; i++) {
+            nodes.get(0).put(i, "test" + i);
+            keys.add(i);
+        }
+        keys.add(1000);
+        long requests = transport.getRequestCount();
+        Map<Integer, String> values = nodes.get(0).getAll(keys);
+        Assert.assertEquals(2, transport.getRequestCount() - requests);
+        Assert.assertEquals(200, values.size());
+        for (int i = 0; i < 200; i++) {
+            Assert.assertEquals("test" + i, values.get(i));
+        }
+    }
+
+    @Test
+    public void batchesReadsWhileARequestIsInFlight() throws Exception {
+        HeldExecutor executor = new HeldExecutor();
+        LoopbackTransport transport = new LoopbackTransport(executor);
+        List<PartitionedCache<Integer, String>> nodes = cluster(transport, false);
+        PartitionedCache<Integer, String> reader = nodes.get(0);
+        int[] keys = new int[4];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = keyOwnedBy(reader, "b", i == 0 ? 0 : keys[i - 1] + 1);
+            stores.get(1).put(keys[i], "test" + keys[i]);
+        }
+
+        ExecutorService readers = Executors.newFixedThreadPool(keys.length + 1);
+        try {
+            List<Future<String>> results = new ArrayList<Future<String>>();
+            results.add(readers.submit(() -> reader.get(keys[0])));
+            executor.awaitHeld(1);
+            for (int i = 1; i < keys.length; i++) {
+                int key = keys[i];
+                results.add(readers.submit(() -> reader.get(key)));
+            }
+            // the same key again is not asked twice
+            results.add(readers.submit(() -> reader.get(keys[1])));
+            awaitBlocked(readers, 5);
+            executor.release();
+            for (int i = 0; i < keys.length; i++) {
+                Assert.assertEquals("test" + keys[i], results.get(i).get(5, TimeUnit.SECONDS));
+            }
+            Assert.assertEquals("test" + keys[1], results.get(keys.length).get(5, TimeUnit.SECONDS));
+            Assert.assertEquals(2, transport.getRequestCount());
+        } finally {
+            readers.shutdownNow();
+        }
+    }
+
+    @Test
+    public void nearCacheSkipsReadsOverlappingALocalWrite() throws Exception {
+        LoopbackTransport network = new LoopbackTransport(Runnable::run);
+        CompletableFuture<Void> answerRead = new CompletableFuture<Void>();
+        CountDownLatch readSent = new CountDownLatch(1);
+        // the first request, the read, is served at once but its answer is held back
+        Transport transport = new Transport() {
+            public CompletableFuture<byte[]> send(String node, byte[] request) {
+                CompletableFuture<byte[]> response = network.send(node, request);
+                if (readSent.getCount() == 0) {
+                    return response;
+                }
+                readSent.countDown();
+                return response.thenCombine(answerRead, (bytes, ignored) -> bytes);
+            }
+
+            public void close() {
+            }
+        };
+        List<PartitionedCache<Integer, String>> nodes = cluster(transport, network, true);
+        PartitionedCache<Integer, String> reader = nodes.get(0);
+        int key = keyOwnedBy(reader, "b", 0);
+        stores.get(1).put(key, "test");
+
+        ExecutorService readers = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> read = readers.submit(() -> reader.get(key));
+            Assert.assertTrue(readSent.await(5, TimeUnit.SECONDS));
+            reader.put(key, "updated");
+            answerRead.complete(null);
+            Assert.assertEquals("test", read.get(5, TimeUnit.SECONDS));
+            Assert.assertEquals("updated", reader.get(key));
+        } finally {
+            readers.shutdownNow();
+        }
+    }
+
+    @Test
+    public void readAfterALocalWriteDoesNotJoinAnOlderRead() throws Exception {
+        LoopbackTransport network = new LoopbackTransport(Runnable::run);
+        CompletableFuture<Void> answerRead = new CompletableFuture<Void>();
+        CountDownLatch readSent = new CountDownLatch(1);
+        // the first request, the read, is served at once but its answer is held back
+        Transport transport = new Transport() {
+            public CompletableFuture<byte[]> send(String node, byte[] request) {
+                CompletableFuture<byte[]> response = network.send(node, request);
+                if (readSent.getCount() == 0) {
+                    return response;
+                }
+                readSent.countDown();
+                return response.thenCombine(answerRead, (bytes, ignored) -> bytes);
+            }
+
+            public void close() {
+            }
+        };
+        List<PartitionedCache<Integer, String>> nodes = cluster(transport, network, false);
+        PartitionedCache<Integer, String> reader = nodes.get(0);
+        int key = keyOwnedBy(reader, "b", 0);
+        stores.get(1).put(key, "test");
+
+        ExecutorService readers = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> read = readers.submit(() -> reader.get(key));
+            Assert.assertTrue(readSent.await(5, TimeUnit.SECONDS));
+            reader.put(key, "updated");
+            Future<String> reread = readers.submit(() -> reader.get(key));
+            awaitBlocked(readers, 2);
+            answerRead.complete(null);
+            Assert.assertEquals("test", read.get(5, TimeUnit.SECONDS));
+            Assert.assertEquals("updated", reread.get(5, TimeUnit.SECONDS));
+        } finally {
+            readers.shutdownNow();
+        }
+    }
+
+    @Test
+    public void answersAreHandledOffTheTransportThread() throws Exception {
+        LoopbackTransport network = new LoopbackTransport(Runnable::run);
+        ScheduledExecutorService io = Executors.newSingleThreadScheduledExecutor(runnable -> new Thread(runnable, "transport-io"));
+        // completes every answer a little later on its own thread, like the selector thread of NioTransport
+        Executor later = task -> io.schedule(task, 100, TimeUnit.MILLISECONDS);
+        Transport transport = new Transport() {
+            public CompletableFuture<byte[]> send(String node, byte[] request) {
+                return network.send(node, request).thenApplyAsync(bytes -> bytes, later);
+            }
+
+            public void close() {
+            }
+        };
+        List<String> fillingThreads = new CopyOnWriteArrayList<String>();
+        Cache<Integer, String> nearCache = new LRUCache<Integer, String>(100) {
+            public void put(Integer key, String value) {
+                fillingThreads.add(Thread.currentThread().getName());
+                super.put(key, value);
+            }
+        };
+        PartitionedCache<Integer, String> reader = null;
+        for (String node : NODES) {
+            Cache<Integer, String> store = new LRUCache<Integer, String>(1000);
+            stores.add(store);
+            PartitionedCache<Integer, String> cache = new PartitionedCache<Integer, String>(node,
+                    new ConsistentHashRing(ConsistentHashRing.DEFAULT_VIRTUAL_NODES, NODES), transport,
+                    new IntegerCodec(), new StringCodec(), store, node.equals("a") ? nearCache : null);
+            network.register(node, cache);
+            if (node.equals("a")) {
+                reader = cache;
+            }
+        }
+        int key = keyOwnedBy(reader, "b", 0);
+        stores.get(1).put(key, "test");
+        try {
+            Assert.assertEquals("test", reader.get(key));
+            Assert.assertEquals(1, fillingThreads.size());
+            Assert.assertNotEquals("transport-io", fillingThreads.get(0));
+        } finally {
+            io.shutdownNow();
+        }
+    }
+
+    @Test
+    public void unansweredBatchMakesWayForTheNextOne() throws Exception {
+        HeldExecutor executor = new HeldExecutor();
+        LoopbackTransport transport = new LoopbackTransport(executor);
+        List<PartitionedCache<Integer, String>> nodes = cluster(transport, false);
+        PartitionedCache<Integer, String> reader = nodes.get(0);
+        int key = keyOwnedBy(reader, "b", 0);
+        stores.get(1).put(key, "test");
+        try {
+            reader.get(key);
+            Assert.fail();
+        } catch (UncheckedIOException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("No answer from node b"));
+        }
+
+        ExecutorService readers = Executors.newSingleThreadExecutor();
+        try {
+            // the timed out read neither cancelled the key for later readers nor kept its batch in flight
+            Future<String> read = readers.submit(() -> reader.get(key));
+            executor.awaitHeld(2);
+            executor.release();
+            Assert.assertEquals("test", read.get(5, TimeUnit.SECONDS));
+        } finally {
+            readers.shutdownNow();
+        }
+    }
+
+    @Test
+    public void evictReachesTheOwner() {
+        List<PartitionedCache<Integer, String>> nodes = cluster(new LoopbackTransport(), true);
+        int key = keyOwnedBy(nodes.get(0), "c", 0);
+        nodes.get(0).put(key, "test");
+        Assert.assertEquals("test", nodes.get(0).get(key));
+        nodes.get(0).evict(key);
+        Assert.assertNull(nodes.get(0).get(key));
+        Assert.assertNull(nodes.get(2).get(key));
+        Assert.assertEquals(0, nodes.get(2).size());
+    }
+
+    @Test
+    public void failsWhenTheOwnerIsUnreachable() {
+        LoopbackTransport transport = new LoopbackTransport();
+        List<PartitionedCache<Integer, String>> nodes = cluster(transport, false);
+        int key = keyOwnedBy(nodes.get(0), "b", 0);
+        transport.unregister("b");
+        try {
+            nodes.get(0).get(key);
+            Assert.fail();
+        } catch (UncheckedIOException e) {
+            Assert.assertTrue(e.getMessage().contains("b"));
+        }
+        try {
+            nodes.get(0).put(key, "test");
+            Assert.fail();
+        } catch (UncheckedIOException expected) {
+            // owner is gone
+        }
+        // other owners still work
+        int other = keyOwnedBy(nodes.get(0), "c", 0);
+        nodes.get(0).put(other, "test");
+        Assert.assertEquals(Arrays.asList("test"), new ArrayList<String>(nodes.get(0).getAll(Arrays.asList(other)).values()));
+    }
+
+    /**
+     * Waits until the pool's threads all wait for an answer.
+     */
+    private static void awaitBlocked(ExecutorService pool, int threads) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (System.currentTimeMillis() < deadline) {
+            int blocked = 0;
+            for (Thread thread : Thread.getAllStackTraces().keySet()) {
+                if (thread.getName().startsWith("pool-") && thread.getState() == Thread.State.TIMED_WAITING) {
+                    for (StackTraceElement frame : thread.getStackTrace()) {
+                        if (frame.getClassName().equals(PartitionedCache.class.getName())) {
+                            blocked++;
+                            break;
+                        }
+                    }
+                }
+            }
+            if (blocked >= threads) {
+                return;
+            }
+            Thread.sleep(10);
+        }
+        Assert.fail("readers did not block");
+    }
+
+    /**
+     * Keeps the requests until released, then runs everything right away.
+     */
+    private static final class HeldExecutor implements Executor {
+        private final List<Runnable> held = new ArrayList<Runnable>();
+        private boolean released;
+
+        public void execute(Runnable command) {
+            synchronized (this) {
+                if (!released) {
+                    held.add(command);
+                    notifyAll();
+                    return;
+                }
+            }
+            command.run();
+        }
+
+        synchronized void awaitHeld(int count) throws InterruptedException {
+            while (held.size() < count) {
+                wait();
+            }
+        }
+
+        void release() {
+            List<Runnable> commands;
+            synchronized (this) {
+                released = true;
+                commands = new ArrayList<Runnable>(held);
+                held.clear();
+            }
+            for (Runnable command : commands) {
+                command.run();
+            }
+        }
+    }
+}
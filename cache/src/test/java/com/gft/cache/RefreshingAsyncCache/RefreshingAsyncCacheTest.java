@@ -0,0 +1,121 @@
+package com.gft.cache.RefreshingAsyncCache;
+
+import com.gft.cache.AsyncCache;
+import com.gft.cache.async.RefreshingAsyncCache;
+import com.gft.cache.lfu.LFUCache;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class RefreshingAsyncCacheTest {
+
+    private final AtomicLong time = new AtomicLong();
+
+    private final List<CompletableFuture<String>> loads = new ArrayList<CompletableFuture<String>>();
+
+    private final AsyncCache<Integer, String> cache = new RefreshingAsyncCache<Integer, String>(
+            new LFUCache<Integer, CompletableFuture<String>>(10),
+            (key, executor) -> {
+                CompletableFuture<String> load = new CompletableFuture<String>();
+                loads.add(load);
+                return load;
+            },
+            Runnable::run, 1, TimeUnit.MINUTES, time::get);
+
+    @Test
+    public void concurrentMissesShareTheFuture() {
+        CompletableFuture<String> first = cache.get(1);
+        CompletableFuture<String> second = cache.get(1);
+        Assert.assertFalse(first.isDone());
+        Assert.assertFalse(second.isDone());
+        Assert.assertEquals(1, loads.size());
+
+        loads.get(0).complete("test1");
+        Assert.assertEquals("test1", first.join());
+        Assert.assertEquals("test1", second.join());
+        Assert.assertEquals("test1", cache.getIfPresent(1).join());
+    }
+
+    @Test
+    public void failedLoadIsNotCached() {
+        CompletableFuture<String> first = cache.get(1);
+        loads.get(0).completeExceptionally(new IllegalStateException("backend down"));
+        Assert.assertTrue(first.isCompletedExceptionally());
+        Assert.assertNull(cache.getIfPresent(1));
+        Assert.assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void refreshServesOldValueUntilReloaded() {
+        cache.put(1, "old");
+        time.addAndGet(TimeUnit.SECONDS.toNanos(30));
+        Assert.assertEquals("old", cache.get(1).join());
+        Assert.assertTrue(loads.isEmpty());
+
+        time.addAndGet(TimeUnit.SECONDS.toNanos(31));
+        Assert.assertEquals("old", cache.get(1).join());
+        Assert.assertEquals("old", cache.get(1).join());
+        Assert.assertEquals(1, loads.size());
+
+        loads.get(0).complete("new");
+        Assert.assertEquals("new", cache.get(1).join());
+        Assert.assertEquals(1, loads.size());
+    }
+
+    @Test
+    public void failedRefreshKeepsOldValue() {
+        cache.put(1, "old");
+        time.addAndGet(TimeUnit.MINUTES.toNanos(2));
+        Assert.assertEquals("old", cache.get(1).join());
+        loads.get(0).completeExceptionally(new IllegalStateException("backend down"));
+        Assert.assertEquals("old", cache.get(1).join());
+        Assert.assertEquals(2, loads.size());
+    }
+
+    @Test
+    public void callersCannotCompleteTheCachedFuture() {
+        CompletableFuture<String> first = cache.get(1);
+        first.complete("forged");
+        Assert.assertFalse(cache.getIfPresent(1).isDone());
+        loads.get(0).complete("test1");
+        Assert.assertEquals("test1", cache.get(1).join());
+
+        cache.getIfPresent(1).obtrudeValue("forged");
+        Assert.assertEquals("test1", cache.get(1).join());
+    }
+
+    @Test
+    public void refreshDoesNotOverwriteANewerWrite() {
+        cache.put(1, "old");
+        time.addAndGet(TimeUnit.MINUTES.toNanos(2));
+        Assert.assertEquals("old", cache.get(1).join());
+        cache.put(1, "newer");
+        loads.get(0).complete("refreshed");
+        Assert.assertEquals("newer", cache.get(1).join());
+
+        time.addAndGet(TimeUnit.MINUTES.toNanos(2));
+        Assert.assertEquals("newer", cache.get(1).join());
+        cache.evict(1);
+        loads.get(1).complete("refreshed");
+        Assert.assertNull(cache.getIfPresent(1));
+    }
+
+    @Test
+    public void nullLoaderFutureMeansNoValue() {
+        AsyncCache<Integer, String> nullLoading = new RefreshingAsyncCache<Integer, String>(
+                new LFUCache<Integer, CompletableFuture<String>>(10), (key, executor) -> null,
+                Runnable::run, 1, TimeUnit.MINUTES, time::get);
+        Assert.assertNull(nullLoading.get(1).join());
+        Assert.assertEquals(0, nullLoading.size());
+
+        nullLoading.put(1, "old");
+        time.addAndGet(TimeUnit.MINUTES.toNanos(2));
+        Assert.assertEquals("old", nullLoading.get(1).join());
+        Assert.assertEquals("old", nullLoading.get(1).join());
+    }
+}
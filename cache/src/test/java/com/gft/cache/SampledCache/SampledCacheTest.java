@@ -0,0 +1,150 @@
+package com.gft.cache.SampledCache;
+
+import com.gft.cache.Cache;
+import com.gft.cache.sampled.SampledCache;
+import com.gft.cache.sampled.SamplingPolicy;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class SampledCacheTest {
+
+    @Test
+    public void simpleAddTest() {
+        for (SamplingPolicy policy : SamplingPolicy.values()) {
+            Cache<Integer, String> cache = new SampledCache<Integer, String>(3, policy);
+            cache.put(1, "test1");
+            cache.put(2, "test2");
+            cache.put(3, "test3");
+            Assert.assertEquals(3, cache.size());
+            Assert.assertEquals("test2", cache.get(2));
+            cache.put(2, "updated2");
+            Assert.assertEquals("updated2", cache.get(2));
+            cache.evict(2);
+            Assert.assertNull(cache.get(2));
+            Assert.assertEquals(2, cache.size());
+            cache.put(4, "test4");
+            cache.put(5, "test5");
+            Assert.assertEquals(3, cache.size());
+        }
+    }
+
+    @Test
+    public void lruEvictsTheLeastRecentlyUsedSample() {
+        // with that many samples every entry is looked at
+        Cache<Integer, String> cache = new SampledCache<Integer, String>(10, SamplingPolicy.LRU, 200, 10);
+        for (int i = 0; i < 10; i++) {
+            cache.put(i, "test" + i);
+        }
+        for (int i = 1; i < 10; i++) {
+            cache.get(i);
+        }
+        cache.put(10, "test10");
+        Assert.assertNull(cache.get(0));
+        // 1 to 9 were last read before 10 was inserted, so one of them goes next
+        cache.put(11, "test11");
+        Assert.assertEquals(10, cache.size());
+        Assert.assertEquals("test10", cache.get(10));
+    }
+
+    @Test
+    public void lfuEvictsTheLeastFrequentlyUsedSample() {
+        Cache<Integer, String> cache = new SampledCache<Integer, String>(10, SamplingPolicy.LFU, 200, 1000);
+        for (int i = 0; i < 10; i++) {
+            cache.put(i, "test" + i);
+        }
+        // the first hit above the initial count is certain
+        for (int i = 0; i < 10; i++) {
+            if (i != 3) {
+                cache.get(i);
+            }
+        }
+        cache.put(10, "test10");
+        Assert.assertNull(cache.get(3));
+        for (int i = 0; i < 10; i++) {
+            if (i != 3) {
+                Assert.assertEquals("test" + i, cache.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void lfuCountersDecay() {
+        Cache<Integer, String> cache = new SampledCache<Integer, String>(2, SamplingPolicy.LFU, 100, 1);
+        cache.put(0, "test0");
+        for (int i = 0; i < 100; i++) {
+            cache.get(0);
+        }
+        // every insertion ticks the clock and takes one off the idle counter of 0
+        for (int i = 1; i < 50; i++) {
+            cache.put(i, "test" + i);
+        }
+        Assert.assertNull(cache.get(0));
+        Assert.assertEquals("test49", cache.get(49));
+    }
+
+    @Test
+    public void matchesMapWhileNotFull() {
+        for (SamplingPolicy policy : SamplingPolicy.values()) {
+            Cache<Integer, Integer> cache = new SampledCache<Integer, Integer>(512, policy);
+            Map<Integer, Integer> model = new HashMap<Integer, Integer>();
+            Random random = new Random(7);
+            for (int i = 0; i < 50000; i++) {
+                int key = random.nextInt(500);
+                switch (random.nextInt(3)) {
+                    case 0:
+                        cache.put(key, i);
+                        model.put(key, i);
+                        break;
+                    case 1:
+                        cache.evict(key);
+                        model.remove(key);
+                        break;
+                    default:
+                        Assert.assertEquals(model.get(key), cache.get(key));
+                }
+                Assert.assertEquals(model.size(), cache.size());
+            }
+        }
+    }
+
+    @Test
+    public void multiThreaded() throws Exception {
+        for (SamplingPolicy policy : SamplingPolicy.values()) {
+            final Cache<Integer, Integer> cache = new SampledCache<Integer, Integer>(1000, policy);
+            ExecutorService executor = Executors.newFixedThreadPool(8);
+            Future<?>[] futures = new Future<?>[8];
+            for (int t = 0; t < futures.length; t++) {
+                final int seed = t;
+                futures[t] = executor.submit(() -> {
+                    Random random = new Random(seed);
+                    for (int i = 0; i < 100000; i++) {
+                        int key = random.nextInt(3000);
+                        Integer value = cache.get(key);
+                        if (value == null) {
+                            cache.put(key, key);
+                        } else {
+                            Assert.assertEquals(key, value.intValue());
+                        }
+                        if (i % 100 == 0) {
+                            cache.evict(random.nextInt(3000));
+                        }
+                    }
+                });
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            executor.shutdown();
+            Assert.assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+            Assert.assertTrue(cache.size() <= 1000);
+        }
+    }
+}
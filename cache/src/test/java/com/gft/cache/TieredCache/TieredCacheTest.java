@@ -0,0 +1,258 @@
+package com.gft.cache.TieredCache;
+
+import com.gft.cache.CacheBuilder;
+import com.gft.cache.CacheWriter;
+import com.gft.cache.codec.StringCodec;
+import com.gft.cache.tiered.LogStore;
+import com.gft.cache.tiered.TieredCache;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TieredCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void evictedEntriesSpillAndArePromoted() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("cold.log");
+        try (TieredCache<Integer, String> cache = new TieredCache<Integer, String>(
+                CacheBuilder.<Integer, String>newBuilder().maximumSize(10), 1000, new StringCodec(), file)) {
+            for (int i = 0; i < 100; i++) {
+                cache.put(i, "test" + i);
+            }
+            Assert.assertEquals(10, cache.hotSize());
+            Assert.assertEquals(90, cache.coldSize());
+            Assert.assertEquals(100, cache.size());
+
+            for (int i = 0; i < 100; i++) {
+                Assert.assertEquals("test" + i, cache.get(i));
+            }
+            Assert.assertEquals(10, cache.hotSize());
+            Assert.assertEquals(100, cache.size());
+
+            cache.put(0, "updated");
+            Assert.assertEquals("updated", cache.get(0));
+            cache.evict(0);
+            cache.evict(1);
+            Assert.assertNull(cache.get(0));
+            Assert.assertNull(cache.get(1));
+            Assert.assertEquals(98, cache.size());
+        }
+        Assert.assertFalse(Files.exists(file));
+    }
+
+    @Test
+    public void promotionsDoNotReachTheWriter() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("cold.log");
+        final AtomicInteger writes = new AtomicInteger();
+        CacheWriter<Integer, String> writer = new CacheWriter<Integer, String>() {
+            public void write(Integer key, String value) {
+                writes.incrementAndGet();
+            }
+
+            public void delete(Integer key) {
+            }
+        };
+        try (TieredCache<Integer, String> cache = new TieredCache<Integer, String>(
+                CacheBuilder.<Integer, String>newBuilder().maximumSize(10).writer(writer), 1000, new StringCodec(), file)) {
+            for (int i = 0; i < 100; i++) {
+                cache.put(i, "test" + i);
+            }
+            for (int i = 0; i < 100; i++) {
+                Assert.assertEquals("test" + i, cache.get(i));
+            }
+            Assert.assertEquals(100, writes.get());
+        }
+    }
+
+    @Test
+    public void slowSpillDoesNotBlockTheHotTier() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("cold.log");
+        final CountDownLatch spilling = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        LogStore<Integer, String> slow = new LogStore<Integer, String>(file, new StringCodec(), 1000, Long.MAX_VALUE, Runnable::run) {
+            public void put(Integer key, String value) {
+                if (key != 1) {
+                    super.put(key, value);
+                    return;
+                }
+                spilling.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.put(key, value);
+            }
+        };
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (TieredCache<Integer, String> cache = new TieredCache<Integer, String>(
+                CacheBuilder.<Integer, String>newBuilder().maximumSize(2), slow)) {
+            cache.put(1, "test1");
+            cache.put(2, "test2");
+            cache.get(2);
+            Future<?> spill = executor.submit(() -> cache.put(3, "test3"));
+            Assert.assertTrue(spilling.await(5, TimeUnit.SECONDS));
+            // the spill of 1 is stuck on the disk, the hot tier is not
+            Assert.assertEquals("test2", cache.get(2));
+            cache.put(4, "test4");
+            release.countDown();
+            spill.get(5, TimeUnit.SECONDS);
+            Assert.assertEquals("test1", cache.get(1));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void evictedKeysDoNotComeBack() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("cold.log");
+        try (TieredCache<Integer, String> cache = new TieredCache<Integer, String>(
+                CacheBuilder.<Integer, String>newBuilder().maximumSize(10), 1000, new StringCodec(), file)) {
+            ExecutorService executor = Executors.newFixedThreadPool(4);
+            final AssertionError[] failure = new AssertionError[1];
+            for (int t = 0; t < 4; t++) {
+                final int thread = t;
+                executor.submit(() -> {
+                    Random rand = new Random();
+                    for (int i = 0; i < 5000; i++) {
+                        // every thread owns its keys, so once it evicted a key nobody may see it again
+                        int key = rand.nextInt(50) * 4 + thread;
+                        if (rand.nextBoolean()) {
+                            cache.put(key, "test" + key);
+                        } else {
+                            cache.evict(key);
+                            if (cache.get(key) != null) {
+                                failure[0] = new AssertionError("Evicted key " + key + " came back");
+                            }
+                        }
+                        cache.get(rand.nextInt(200));
+                    }
+                });
+            }
+            executor.shutdown();
+            try {
+                Assert.assertTrue(executor.awaitTermination(100, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+                throw new AssertionError(e);
+            }
+            if (failure[0] != null) {
+                throw failure[0];
+            }
+        }
+    }
+
+    @Test
+    public void coldTierDropsTheEldestEntries() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("cold.log");
+        try (LogStore<Integer, String> store = new LogStore<Integer, String>(file, new StringCodec(), 3, Long.MAX_VALUE, Runnable::run)) {
+            for (int i = 0; i < 5; i++) {
+                store.put(i, "test" + i);
+            }
+            store.put(2, "rewritten");
+            Assert.assertEquals(3, store.size());
+            Assert.assertNull(store.get(0));
+            Assert.assertNull(store.get(1));
+            Assert.assertEquals("test3", store.get(3));
+            Assert.assertEquals("test4", store.get(4));
+            Assert.assertEquals("rewritten", store.take(2));
+            Assert.assertNull(store.get(2));
+        }
+    }
+
+    @Test
+    public void compactionReclaimsGarbage() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("cold.log");
+        try (LogStore<Integer, String> store = new LogStore<Integer, String>(file, new StringCodec(), 1000, 100, Runnable::run)) {
+            for (int round = 0; round < 10; round++) {
+                for (int i = 0; i < 100; i++) {
+                    store.put(i, "round" + round + "key" + i);
+                }
+            }
+            // every key is 4 bytes of length and 10 or 11 bytes of value, compaction keeps the size near one round
+            Assert.assertTrue("log of " + store.fileSize() + " bytes", store.fileSize() < 2 * 100 * 15);
+            Assert.assertEquals(store.fileSize(), Files.size(file));
+            for (int i = 0; i < 100; i++) {
+                Assert.assertEquals("round9key" + i, store.get(i));
+            }
+            store.compact();
+            Assert.assertEquals(100 * 4 + 10 * 10 + 90 * 11, store.fileSize());
+        }
+    }
+
+    @Test
+    public void writesDuringCompactionAreKept() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("cold.log");
+        char[] filler = new char[1000];
+        Arrays.fill(filler, 'x');
+        final String large = new String(filler);
+        try (final LogStore<Integer, String> store = new LogStore<Integer, String>(file, new StringCodec(), 10000, Long.MAX_VALUE, Runnable::run)) {
+            for (int i = 0; i < 2000; i++) {
+                store.put(i, large + i);
+            }
+            Thread compaction = new Thread(store::compact);
+            compaction.start();
+            for (int i = 0; i < 2000; i += 3) {
+                store.put(i, "updated" + i);
+                store.remove(i + 1);
+            }
+            compaction.join();
+            for (int i = 0; i < 2000; i++) {
+                Assert.assertEquals(i % 3 == 0 ? "updated" + i : i % 3 == 1 ? null : large + i, store.get(i));
+            }
+            long live = store.fileSize();
+            store.compact();
+            Assert.assertTrue(store.fileSize() <= live);
+            Assert.assertEquals(store.fileSize(), Files.size(file));
+            Assert.assertEquals(large + 2, store.get(2));
+        }
+    }
+
+    @Test
+    public void multiThreaded() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("cold.log");
+        ExecutorService compaction = Executors.newSingleThreadExecutor();
+        try (TieredCache<Integer, String> cache = new TieredCache<Integer, String>(
+                CacheBuilder.<Integer, String>newBuilder().maximumSize(20), 100, new StringCodec(), file, compaction)) {
+            ExecutorService executor = Executors.newFixedThreadPool(8);
+            final AssertionError[] failure = new AssertionError[1];
+            for (int t = 0; t < 8; t++) {
+                executor.submit(() -> {
+                    Random rand = new Random();
+                    for (int i = 0; i < 5000; i++) {
+                        int key = rand.nextInt(200);
+                        cache.put(key, "test" + key);
+                        String fromCache = cache.get(key);
+                        if (fromCache != null && !fromCache.equals("test" + key)) {
+                            failure[0] = new AssertionError("Wrong value " + fromCache + " for " + key);
+                        }
+                    }
+                });
+            }
+            executor.shutdown();
+            Assert.assertTrue(executor.awaitTermination(100, TimeUnit.SECONDS));
+            if (failure[0] != null) {
+                throw failure[0];
+            }
+            Assert.assertTrue(cache.hotSize() <= 20);
+            Assert.assertTrue(cache.coldSize() <= 100);
+        } finally {
+            compaction.shutdown();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.gft.cache.TinyLFUCache;
+
+import com.gft.cache.Cache;
+import com.gft.cache.tinylfu.FrequencySketch;
+import com.gft.cache.tinylfu.TinyLFUCache;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+public class TinyLFUCacheTest {
+
+    @Test
+    public void sketchCountsAndAges() {
+        FrequencySketch<Integer> sketch = new FrequencySketch<Integer>(64);
+        for (int i = 0; i < 10; i++) {
+            sketch.increment(1);
+        }
+        sketch.increment(2);
+        Assert.assertTrue(sketch.frequency(1) >= 10);
+        Assert.assertTrue(sketch.frequency(2) >= 1);
+        Assert.assertTrue(sketch.frequency(1) > sketch.frequency(2));
+
+        for (int i = 0; i < 20; i++) {
+            sketch.increment(1);
+        }
+        Assert.assertEquals(15, sketch.frequency(1));
+
+        // 640 increments trigger the halving of every counter
+        for (int i = 1000; i < 1640; i++) {
+            sketch.increment(i);
+        }
+        Assert.assertTrue(sketch.frequency(1) < 15);
+    }
+
+    @Test
+    public void scanDoesNotFlushHotEntries() {
+        Cache<Integer, String> cache = new TinyLFUCache<Integer, String>(100);
+        for (int i = 0; i < 100; i++) {
+            cache.put(i, "test" + i);
+        }
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 100; i++) {
+                cache.get(i);
+            }
+        }
+        for (int i = 1000; i < 1500; i++) {
+            cache.put(i, "test" + i);
+            Assert.assertTrue(cache.size() <= 100);
+        }
+        int hits = 0;
+        for (int i = 0; i < 100; i++) {
+            if (cache.get(i) != null) {
+                hits++;
+            }
+        }
+        Assert.assertTrue("only " + hits + " hot entries survived the scan", hits >= 90);
+    }
+
+    @Test
+    public void evictRemovesFromEveryRegion() {
+        Cache<Integer, String> cache = new TinyLFUCache<Integer, String>(10);
+        for (int i = 0; i < 10; i++) {
+            cache.put(i, "test" + i);
+            cache.get(i);
+        }
+        for (int i = 0; i < 10; i++) {
+            cache.evict(i);
+        }
+        Assert.assertEquals(0, cache.size());
+        for (int i = 0; i < 20; i++) {
+            cache.put(i, "test" + i);
+        }
+        Assert.assertEquals(10, cache.size());
+    }
+
+    @Test
+    public void multiThreaded() throws InterruptedException {
+        final Cache<Integer, String> cache = new TinyLFUCache<Integer, String>(100);
+        ExecutorService executor = Executors.newFixedThreadPool(40);
+        final AssertionError[] failure = new AssertionError[1];
+        for (int i = 0; i < 40; i++) {
+            executor.submit(new Runnable() {
+                public void run() {
+                    Random rand = new Random();
+                    for (int i = 0; i < 20000; i++) {
+                        int randValue = rand.nextInt(500);
+                        if (rand.nextInt(4) == 0) {
+                            cache.put(randValue, "test" + randValue);
+                        } else {
+                            String fromCache = cache.get(randValue);
+                            if (fromCache != null && !fromCache.equals("test" + randValue)) {
+                                failure[0] = new AssertionError("Wrong value " + fromCache + " for " + randValue);
+                            }
+                        }
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        Assert.assertTrue(executor.awaitTermination(100, TimeUnit.SECONDS));
+        if (failure[0] != null) {
+            throw failure[0];
+        }
+        Assert.assertTrue(cache.size() <= 100);
+    }
+}
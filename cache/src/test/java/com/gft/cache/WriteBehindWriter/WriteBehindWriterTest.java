@@ -0,0 +1,233 @@
+package com.gft.cache.WriteBehindWriter;
+
+import com.gft.cache.Cache;
+import com.gft.cache.CacheBuilder;
+import com.gft.cache.CacheWriter;
+import com.gft.cache.writer.WriteBehindWriter;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class WriteBehindWriterTest {
+
+    @Test
+    public void coalescesRepeatedWritesIntoOneBatch() throws InterruptedException {
+        FakeStore store = new FakeStore();
+        try (WriteBehindWriter<Integer, String> writer = WriteBehindWriter.start(store, 100, 10, 1, TimeUnit.HOURS)) {
+            for (int key = 0; key < 10; key++) {
+                for (int version = 0; version < 5; version++) {
+                    writer.write(key, "test" + key + "v" + version);
+                }
+            }
+            writer.flush();
+            Assert.assertEquals(1, store.batches.size());
+            Assert.assertEquals(10, store.batches.get(0).intValue());
+            for (int key = 0; key < 10; key++) {
+                Assert.assertEquals("test" + key + "v4", store.data.get(key));
+            }
+        }
+    }
+
+    @Test
+    public void flushesAfterMaxDelay() throws InterruptedException {
+        FakeStore store = new FakeStore();
+        try (WriteBehindWriter<Integer, String> writer = WriteBehindWriter.start(store, 100, 100, 20, TimeUnit.MILLISECONDS)) {
+            writer.write(1, "test1");
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (!store.data.containsKey(1) && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            Assert.assertEquals("test1", store.data.get(1));
+            Assert.assertEquals(0, writer.pendingCount());
+        }
+    }
+
+    @Test
+    public void blocksWritersWhenTheQueueIsFull() throws InterruptedException {
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch storeBusy = new CountDownLatch(1);
+        FakeStore store = new FakeStore() {
+            public void writeAll(Map<? extends Integer, ? extends String> entries) {
+                storeBusy.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                super.writeAll(entries);
+            }
+        };
+        try (WriteBehindWriter<Integer, String> writer = WriteBehindWriter.start(store, 2, 1, 1, TimeUnit.HOURS)) {
+            final Cache<Integer, String> cache = CacheBuilder.<Integer, String>newBuilder()
+                    .maximumSize(10)
+                    .writer(writer)
+                    .buildLRU();
+            cache.put(1, "test1");
+            Assert.assertTrue(storeBusy.await(10, TimeUnit.SECONDS));
+            cache.put(2, "test2");
+            cache.put(3, "test3");
+            // coalescing into a queued key does not need room
+            cache.put(3, "updated3");
+
+            Thread blocked = new Thread(() -> cache.put(4, "test4"));
+            blocked.start();
+            blocked.join(200);
+            Assert.assertTrue(blocked.isAlive());
+            // the blocked writer waits outside the cache lock
+            Assert.assertEquals("test2", cache.get(2));
+            cache.put(2, "updated2");
+
+            release.countDown();
+            blocked.join(10000);
+            Assert.assertFalse(blocked.isAlive());
+            writer.flush();
+            Assert.assertEquals(4, store.data.size());
+            Assert.assertEquals("updated2", store.data.get(2));
+            Assert.assertEquals("updated3", store.data.get(3));
+        }
+    }
+
+    @Test
+    public void retriesRejectedBatches() throws InterruptedException {
+        final AtomicInteger failures = new AtomicInteger(2);
+        FakeStore store = new FakeStore() {
+            public void writeAll(Map<? extends Integer, ? extends String> entries) {
+                if (failures.getAndDecrement() > 0) {
+                    throw new IllegalStateException("store unavailable");
+                }
+                super.writeAll(entries);
+            }
+        };
+        store.data.put(2, "stale2");
+        try (WriteBehindWriter<Integer, String> writer = WriteBehindWriter.start(store, 100, 10, 1, TimeUnit.MILLISECONDS)) {
+            writer.write(1, "test1");
+            writer.delete(2);
+            writer.flush();
+            Assert.assertEquals("test1", store.data.get(1));
+            Assert.assertFalse(store.data.containsKey(2));
+            Assert.assertEquals("store unavailable", writer.getLastFailure().getMessage());
+        }
+    }
+
+    @Test
+    public void writeBehindCache() throws InterruptedException {
+        FakeStore store = new FakeStore();
+        try (WriteBehindWriter<Integer, String> writer = WriteBehindWriter.start(store, 100, 100, 1, TimeUnit.HOURS)) {
+            Cache<Integer, String> cache = CacheBuilder.<Integer, String>newBuilder()
+                    .maximumSize(10)
+                    .writer(writer)
+                    .buildLFU();
+            for (int i = 0; i < 20; i++) {
+                cache.put(i, "test" + i);
+            }
+            cache.put(0, "updated0");
+            cache.evict(19);
+            Assert.assertTrue(store.data.isEmpty());
+            Assert.assertEquals(20, writer.pendingCount());
+
+            writer.flush();
+            // evicted entries stay in the store
+            Assert.assertEquals(19, store.data.size());
+            Assert.assertEquals("updated0", store.data.get(0));
+            Assert.assertFalse(store.data.containsKey(19));
+        }
+    }
+
+    @Test
+    public void writeThroughKeepsTheLRUCacheAndTheStoreInStep() throws InterruptedException {
+        assertStoreFollowsCache(false);
+    }
+
+    @Test
+    public void writeThroughKeepsTheLFUCacheAndTheStoreInStep() throws InterruptedException {
+        assertStoreFollowsCache(true);
+    }
+
+    /**
+     * Threads put, evict and batch-change a few keys through a plain synchronous store that yields
+     * in the middle of every write. The store only ends up equal to the cache when it saw the
+     * changes of every key in the order the cache applied them.
+     */
+    private void assertStoreFollowsCache(boolean lfu) throws InterruptedException {
+        final FakeStore store = new FakeStore() {
+            public void write(Integer key, String value) {
+                Thread.yield();
+                super.write(key, value);
+            }
+        };
+        CacheBuilder<Integer, String> builder = CacheBuilder.<Integer, String>newBuilder()
+                .maximumSize(100)
+                .writer(store);
+        final Cache<Integer, String> cache = lfu ? builder.buildLFU() : builder.buildLRU();
+        final CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int t = 0; t < 8; t++) {
+            final int thread = t;
+            threads.add(new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                Random random = new Random(thread);
+                for (int i = 0; i < 2000; i++) {
+                    int key = random.nextInt(8);
+                    int operation = random.nextInt(4);
+                    if (operation == 0) {
+                        cache.evict(key);
+                    } else if (operation == 1) {
+                        Map<Integer, String> entries = new HashMap<Integer, String>();
+                        entries.put(key, "batch" + thread + "-" + i);
+                        entries.put((key + 1) % 8, "batch" + thread + "-" + i);
+                        cache.putAll(entries);
+                    } else {
+                        cache.put(key, "test" + thread + "-" + i);
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        for (int key = 0; key < 8; key++) {
+            Assert.assertEquals("key " + key, cache.get(key), store.data.get(key));
+        }
+    }
+
+    private static class FakeStore implements CacheWriter<Integer, String> {
+        final Map<Integer, String> data = new ConcurrentHashMap<Integer, String>();
+        final List<Integer> batches = Collections.synchronizedList(new ArrayList<Integer>());
+
+        public void write(Integer key, String value) {
+            data.put(key, value);
+        }
+
+        public void delete(Integer key) {
+            data.remove(key);
+        }
+
+        public void writeAll(Map<? extends Integer, ? extends String> entries) {
+            batches.add(entries.size());
+            data.putAll(entries);
+        }
+
+        public void deleteAll(Collection<? extends Integer> keys) {
+            data.keySet().removeAll(keys);
+        }
+    }
+}
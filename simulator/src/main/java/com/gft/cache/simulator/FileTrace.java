@@ -0,0 +1,79 @@
+package com.gft.cache.simulator;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.LongConsumer;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Trace read line by line from a file, plain or gzip compressed.
+ * <p>
+ * The first whitespace separated token of every line is the key; further tokens such as
+ * timestamps or sizes are ignored, as are blank lines and lines starting with {@code #}.
+ * Numeric keys are used as they are, any other key is hashed to a {@code long}.
+ */
+public class FileTrace implements Trace {
+
+    private static final int GZIP_MAGIC = 0x8b1f;
+
+    private final Path file;
+
+    public FileTrace(Path file) {
+        this.file = file;
+    }
+
+    public void replay(LongConsumer consumer) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(open(), StandardCharsets.UTF_8), 1 << 16)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int start = 0;
+                while (start < line.length() && Character.isWhitespace(line.charAt(start))) {
+                    start++;
+                }
+                if (start == line.length() || line.charAt(start) == '#') {
+                    continue;
+                }
+                int end = start;
+                while (end < line.length() && !Character.isWhitespace(line.charAt(end))) {
+                    end++;
+                }
+                consumer.accept(parseKey(line.substring(start, end)));
+            }
+        }
+    }
+
+    public String toString() {
+        return file.toString();
+    }
+
+    static long parseKey(String token) {
+        try {
+            return Long.parseLong(token);
+        } catch (NumberFormatException e) {
+            // FNV-1a, stable between runs unlike String.hashCode spread over 32 bits only
+            long hash = 0xcbf29ce484222325L;
+            for (int i = 0; i < token.length(); i++) {
+                hash ^= token.charAt(i);
+                hash *= 0x100000001b3L;
+            }
+            return hash;
+        }
+    }
+
+    /**
+     * Recognises compressed files by their content, whatever their name.
+     */
+    private InputStream open() throws IOException {
+        InputStream in = new BufferedInputStream(Files.newInputStream(file), 1 << 16);
+        in.mark(2);
+        int magic = in.read() | (in.read() << 8);
+        in.reset();
+        return magic == GZIP_MAGIC ? new GZIPInputStream(in, 1 << 16) : in;
+    }
+}
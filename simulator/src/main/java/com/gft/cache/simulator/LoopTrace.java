@@ -0,0 +1,35 @@
+package com.gft.cache.simulator;
+
+import java.util.function.LongConsumer;
+
+/**
+ * Synthetic trace cycling over the keys {@code firstKey} to {@code firstKey + loopSize - 1}.
+ * Recency based policies get no hit at all once the loop is larger than the cache.
+ */
+public class LoopTrace implements Trace {
+
+    private final long firstKey;
+
+    private final int loopSize;
+
+    private final long length;
+
+    public LoopTrace(long firstKey, int loopSize, long length) {
+        if (loopSize <= 0) {
+            throw new IllegalArgumentException("loopSize must be positive but was " + loopSize);
+        }
+        this.firstKey = firstKey;
+        this.loopSize = loopSize;
+        this.length = length;
+    }
+
+    public void replay(LongConsumer consumer) {
+        for (long i = 0; i < length; i++) {
+            consumer.accept(firstKey + i % loopSize);
+        }
+    }
+
+    public String toString() {
+        return "loop(first=" + firstKey + ", size=" + loopSize + ", length=" + length + ")";
+    }
+}
@@ -0,0 +1,32 @@
+package com.gft.cache.simulator;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.LongConsumer;
+
+/**
+ * Replays several traces one after the other, e.g. a Zipfian phase followed by a scan.
+ */
+public class PhasedTrace implements Trace {
+
+    private final List<Trace> phases;
+
+    public PhasedTrace(Trace... phases) {
+        this.phases = Arrays.asList(phases);
+    }
+
+    public PhasedTrace(List<Trace> phases) {
+        this.phases = phases;
+    }
+
+    public void replay(LongConsumer consumer) throws IOException {
+        for (Trace phase : phases) {
+            phase.replay(consumer);
+        }
+    }
+
+    public String toString() {
+        return phases.toString();
+    }
+}
@@ -0,0 +1,95 @@
+package com.gft.cache.simulator;
+
+import com.gft.cache.Cache;
+import com.gft.cache.arc.ARCCache;
+import com.gft.cache.buffered.BufferedCache;
+import com.gft.cache.buffered.LruAccessPolicy;
+import com.gft.cache.lfu.LFUCache;
+import com.gft.cache.lru.ClockLRUCache;
+import com.gft.cache.lru.LRUCache;
+import com.gft.cache.lru.SegmentedLRUCache;
+import com.gft.cache.primitive.LongLRUCache;
+import com.gft.cache.sampled.SampledCache;
+import com.gft.cache.sampled.SamplingPolicy;
+import com.gft.cache.tinylfu.TinyLFUCache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/**
+ * A named way to create a cache of a given maximum size.
+ */
+public class Policy {
+
+    private static final Map<String, Policy> ALL = new LinkedHashMap<String, Policy>();
+
+    static {
+        register(new Policy("lru", LRUCache::new));
+        register(new Policy("segmented-lru", SegmentedLRUCache::new));
+        register(new Policy("buffered-lru", maxSize -> new BufferedCache<Long, Long>(maxSize, new LruAccessPolicy<Long>())));
+        register(new Policy("long-lru", LongLRUCache::new));
+        register(new Policy("clock-lru", ClockLRUCache::new));
+        register(new Policy("lfu", LFUCache::new));
+        // halving every frequency after ten hits per entry
+        register(new Policy("lfu-aged", maxSize -> new LFUCache<Long, Long>(maxSize, 10 * maxSize)));
+        register(new Policy("tinylfu", TinyLFUCache::new));
+        register(new Policy("arc", ARCCache::new));
+        register(new Policy("sampled-lru", maxSize -> new SampledCache<Long, Long>(maxSize, SamplingPolicy.LRU)));
+        register(new Policy("sampled-lfu", maxSize -> new SampledCache<Long, Long>(maxSize, SamplingPolicy.LFU)));
+    }
+
+    private final String name;
+
+    private final IntFunction<? extends Cache<Long, Long>> factory;
+
+    public Policy(String name, IntFunction<? extends Cache<Long, Long>> factory) {
+        this.name = name;
+        this.factory = factory;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Cache<Long, Long> create(int maximumSize) {
+        return factory.apply(maximumSize);
+    }
+
+    /**
+     * @return every cache implementation of the library
+     */
+    public static List<Policy> all() {
+        return new ArrayList<Policy>(ALL.values());
+    }
+
+    /**
+     * @param names names as returned by {@link #getName()}
+     */
+    public static List<Policy> named(String... names) {
+        List<Policy> policies = new ArrayList<Policy>();
+        for (String name : names) {
+            Policy policy = ALL.get(name);
+            if (policy == null) {
+                throw new IllegalArgumentException("Unknown policy " + name + ", expected one of " + ALL.keySet());
+            }
+            policies.add(policy);
+        }
+        return policies;
+    }
+
+    public String toString() {
+        return name;
+    }
+
+    private static void register(Policy policy) {
+        ALL.put(policy.getName(), policy);
+    }
+
+    static List<String> names() {
+        return Arrays.asList(ALL.keySet().toArray(new String[0]));
+    }
+}
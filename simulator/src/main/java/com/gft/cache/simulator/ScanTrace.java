@@ -0,0 +1,29 @@
+package com.gft.cache.simulator;
+
+import java.util.function.LongConsumer;
+
+/**
+ * Synthetic trace touching {@code length} distinct keys once each, starting at {@code firstKey}.
+ * Nothing in it is ever hit again, it measures how well a policy protects its content.
+ */
+public class ScanTrace implements Trace {
+
+    private final long firstKey;
+
+    private final long length;
+
+    public ScanTrace(long firstKey, long length) {
+        this.firstKey = firstKey;
+        this.length = length;
+    }
+
+    public void replay(LongConsumer consumer) {
+        for (long i = 0; i < length; i++) {
+            consumer.accept(firstKey + i);
+        }
+    }
+
+    public String toString() {
+        return "scan(first=" + firstKey + ", length=" + length + ")";
+    }
+}
@@ -0,0 +1,186 @@
+package com.gft.cache.simulator;
+
+import com.gft.cache.Cache;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Replays a {@link Trace} through every {@link Policy} at every cache size and reports the hit ratios.
+ * <p>
+ * The trace is read once: each key is looked up in all caches before the next key is read, so
+ * traces of any length stream through in constant memory. A miss puts the key into the cache
+ * that missed it, the way a cache in front of a loader would.
+ * <p>
+ * Run from the command line with
+ * <pre>
+ * java -jar simulator/target/simulator.jar --trace &lt;file[.gz]&gt; | --zipf items,exponent,length | --scan length | --loop size,length
+ *                         [--sizes 100,1000,10000] [--policies lru,lfu,...]
+ * </pre>
+ * Several trace options are replayed one after the other as phases of a single trace.
+ */
+public class Simulator {
+
+    private final List<Policy> policies;
+
+    private final int[] sizes;
+
+    public Simulator(List<Policy> policies, int... sizes) {
+        this.policies = policies;
+        this.sizes = sizes;
+    }
+
+    public List<Result> run(Trace trace) throws IOException {
+        final List<Result> results = new ArrayList<Result>();
+        final List<Cache<Long, Long>> caches = new ArrayList<Cache<Long, Long>>();
+        for (Policy policy : policies) {
+            for (int size : sizes) {
+                results.add(new Result(policy.getName(), size));
+                caches.add(policy.create(size));
+            }
+        }
+        final Result[] resultArray = results.toArray(new Result[0]);
+        final Cache<Long, Long>[] cacheArray = toArray(caches);
+        trace.replay(key -> {
+            Long boxed = key;
+            for (int i = 0; i < cacheArray.length; i++) {
+                if (cacheArray[i].get(boxed) != null) {
+                    resultArray[i].hits++;
+                } else {
+                    resultArray[i].misses++;
+                    cacheArray[i].put(boxed, boxed);
+                }
+            }
+        });
+        return results;
+    }
+
+    /**
+     * Prints one row per policy and one column of hit ratios per cache size.
+     */
+    public void print(List<Result> results, PrintStream out) {
+        Map<String, Map<Integer, Result>> byPolicy = new LinkedHashMap<String, Map<Integer, Result>>();
+        for (Result result : results) {
+            byPolicy.computeIfAbsent(result.getPolicy(), policy -> new LinkedHashMap<Integer, Result>())
+                    .put(result.getSize(), result);
+        }
+        StringBuilder header = new StringBuilder(String.format("%-16s", "policy"));
+        for (int size : sizes) {
+            header.append(String.format("%12d", size));
+        }
+        out.println(header);
+        for (Map.Entry<String, Map<Integer, Result>> row : byPolicy.entrySet()) {
+            StringBuilder line = new StringBuilder(String.format("%-16s", row.getKey()));
+            for (int size : sizes) {
+                line.append(String.format("%11.2f%%", 100 * row.getValue().get(size).getHitRatio()));
+            }
+            out.println(line);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        List<Trace> phases = new ArrayList<Trace>();
+        int[] sizes = {100, 1000, 10000};
+        List<Policy> policies = Policy.all();
+        long nextScanKey = Long.MAX_VALUE / 2;
+        for (int i = 0; i < args.length; i++) {
+            String option = args[i];
+            if (i + 1 == args.length) {
+                usage("Missing value for " + option);
+            }
+            String[] values = args[++i].split(",");
+            switch (option) {
+                case "--trace":
+                    phases.add(new FileTrace(Paths.get(values[0])));
+                    break;
+                case "--zipf":
+                    phases.add(new ZipfianTrace(Integer.parseInt(values[0]), Double.parseDouble(values[1]),
+                            Long.parseLong(values[2]), phases.size()));
+                    break;
+                case "--scan":
+                    // scans never repeat keys of earlier phases
+                    long length = Long.parseLong(values[0]);
+                    phases.add(new ScanTrace(nextScanKey, length));
+                    nextScanKey += length;
+                    break;
+                case "--loop":
+                    phases.add(new LoopTrace(0, Integer.parseInt(values[0]), Long.parseLong(values[1])));
+                    break;
+                case "--sizes":
+                    sizes = new int[values.length];
+                    for (int j = 0; j < values.length; j++) {
+                        sizes[j] = Integer.parseInt(values[j]);
+                    }
+                    break;
+                case "--policies":
+                    policies = Policy.named(values);
+                    break;
+                default:
+                    usage("Unknown option " + option);
+            }
+        }
+        if (phases.isEmpty()) {
+            usage("No trace given");
+        }
+        Trace trace = phases.size() == 1 ? phases.get(0) : new PhasedTrace(phases);
+        Simulator simulator = new Simulator(policies, sizes);
+        long start = System.nanoTime();
+        List<Result> results = simulator.run(trace);
+        System.out.println(trace + " replayed in " + (System.nanoTime() - start) / 1000000 + " ms");
+        simulator.print(results, System.out);
+    }
+
+    private static void usage(String problem) {
+        System.err.println(problem);
+        System.err.println("Usage: --trace <file[.gz]> | --zipf items,exponent,length | --scan length | --loop size,length"
+                + " [--sizes 100,1000] [--policies " + String.join(",", Policy.names()) + "]");
+        System.exit(1);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Cache<Long, Long>[] toArray(List<Cache<Long, Long>> caches) {
+        return caches.toArray(new Cache[0]);
+    }
+
+    public static final class Result {
+        private final String policy;
+        private final int size;
+        private long hits;
+        private long misses;
+
+        Result(String policy, int size) {
+            this.policy = policy;
+            this.size = size;
+        }
+
+        public String getPolicy() {
+            return policy;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        public long getHits() {
+            return hits;
+        }
+
+        public long getMisses() {
+            return misses;
+        }
+
+        public double getHitRatio() {
+            long requests = hits + misses;
+            return requests == 0 ? 0.0 : (double) hits / requests;
+        }
+
+        public String toString() {
+            return policy + "@" + size + ": " + hits + " hits, " + misses + " misses";
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.gft.cache.simulator;
+
+import java.io.IOException;
+import java.util.function.LongConsumer;
+
+/**
+ * A sequence of accessed keys. Traces are streamed, never held in memory, and can be replayed.
+ */
+public interface Trace {
+
+    /**
+     * Passes every key of the trace to the consumer, in order.
+     */
+    void replay(LongConsumer consumer) throws IOException;
+}
@@ -0,0 +1,110 @@
+package com.gft.cache.simulator;
+
+import java.util.Random;
+import java.util.function.LongConsumer;
+
+/**
+ * Synthetic trace whose keys follow a Zipf distribution: key {@code k} out of {@code items}
+ * is accessed with a probability proportional to {@code 1 / k^exponent}, key 1 being the most popular.
+ * <p>
+ * Keys are drawn by rejection-inversion sampling (Hormann and Derflinger), which needs neither
+ * a table nor a precomputed normalisation, so any number of items costs constant memory.
+ * The same seed always produces the same trace.
+ */
+public class ZipfianTrace implements Trace {
+
+    private final int items;
+
+    private final double exponent;
+
+    private final long length;
+
+    private final long seed;
+
+    private final double hIntegralX1;
+
+    private final double hIntegralItems;
+
+    private final double s;
+
+    public ZipfianTrace(int items, double exponent, long length, long seed) {
+        if (items <= 0) {
+            throw new IllegalArgumentException("items must be positive but was " + items);
+        }
+        if (exponent <= 0) {
+            throw new IllegalArgumentException("exponent must be positive but was " + exponent);
+        }
+        this.items = items;
+        this.exponent = exponent;
+        this.length = length;
+        this.seed = seed;
+        this.hIntegralX1 = hIntegral(1.5) - 1.0;
+        this.hIntegralItems = hIntegral(items + 0.5);
+        this.s = 2.0 - hIntegralInverse(hIntegral(2.5) - h(2));
+    }
+
+    public void replay(LongConsumer consumer) {
+        Random random = new Random(seed);
+        for (long i = 0; i < length; i++) {
+            consumer.accept(sample(random));
+        }
+    }
+
+    public String toString() {
+        return "zipf(items=" + items + ", exponent=" + exponent + ", length=" + length + ")";
+    }
+
+    long sample(Random random) {
+        while (true) {
+            double u = hIntegralItems + random.nextDouble() * (hIntegralX1 - hIntegralItems);
+            double x = hIntegralInverse(u);
+            long k = (long) (x + 0.5);
+            if (k < 1) {
+                k = 1;
+            } else if (k > items) {
+                k = items;
+            }
+            if (k - x <= s || u >= hIntegral(k + 0.5) - h(k)) {
+                return k;
+            }
+        }
+    }
+
+    private double hIntegral(double x) {
+        double logX = Math.log(x);
+        return helper2((1.0 - exponent) * logX) * logX;
+    }
+
+    private double h(double x) {
+        return Math.exp(-exponent * Math.log(x));
+    }
+
+    private double hIntegralInverse(double x) {
+        double t = x * (1.0 - exponent);
+        if (t < -1.0) {
+            // numerical safety, t is never below -1 in exact arithmetic
+            t = -1.0;
+        }
+        return Math.exp(helper1(t) * x);
+    }
+
+    /**
+     * @return {@code log(1 + x) / x}, stable for x close to 0
+     */
+    private static double helper1(double x) {
+        if (Math.abs(x) > 1e-8) {
+            return Math.log1p(x) / x;
+        }
+        return 1.0 - x * (0.5 - x * (1.0 / 3.0 - 0.25 * x));
+    }
+
+    /**
+     * @return {@code (exp(x) - 1) / x}, stable for x close to 0
+     */
+    private static double helper2(double x) {
+        if (Math.abs(x) > 1e-8) {
+            return Math.expm1(x) / x;
+        }
+        return 1.0 + x * 0.5 * (1.0 + x * 1.0 / 3.0 * (1.0 + 0.25 * x));
+    }
+}
@@ -0,0 +1,112 @@
+package com.gft.cache.Simulator;
+
+import com.gft.cache.simulator.FileTrace;
+import com.gft.cache.simulator.LoopTrace;
+import com.gft.cache.simulator.PhasedTrace;
+import com.gft.cache.simulator.Policy;
+import com.gft.cache.simulator.ScanTrace;
+import com.gft.cache.simulator.Simulator;
+import com.gft.cache.simulator.ZipfianTrace;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+public class SimulatorTest {
+
+    @Test
+    public void zipfianTraceIsSkewed() throws IOException {
+        long[] counts = new long[1000];
+        new ZipfianTrace(1000, 1.0, 100000, 42).replay(key -> counts[(int) key - 1]++);
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        Assert.assertEquals(100000, total);
+        // keys start at 1, with exponent 1 the hottest key gets about 1/H(1000) = 13% of the requests
+        Assert.assertTrue(counts[0] > 10000);
+        Assert.assertTrue(counts[0] > counts[1] && counts[1] > counts[10] && counts[10] > counts[999]);
+    }
+
+    @Test
+    public void fileTraceReadsPlainAndGzippedFiles() throws IOException {
+        String content = "# comment\n1\n2 ignored columns\n\n1\nkey\n";
+        Path plain = Files.createTempFile("trace", ".txt");
+        Path gzipped = Files.createTempFile("trace", ".gz");
+        try {
+            Files.write(plain, content.getBytes(StandardCharsets.UTF_8));
+            try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(gzipped))) {
+                out.write(content.getBytes(StandardCharsets.UTF_8));
+            }
+            List<Long> plainKeys = new ArrayList<Long>();
+            List<Long> gzippedKeys = new ArrayList<Long>();
+            new FileTrace(plain).replay(plainKeys::add);
+            new FileTrace(gzipped).replay(gzippedKeys::add);
+            Assert.assertEquals(4, plainKeys.size());
+            Assert.assertEquals(Long.valueOf(1), plainKeys.get(0));
+            Assert.assertEquals(Long.valueOf(2), plainKeys.get(1));
+            Assert.assertEquals(Long.valueOf(1), plainKeys.get(2));
+            Assert.assertEquals(plainKeys, gzippedKeys);
+        } finally {
+            Files.delete(plain);
+            Files.delete(gzipped);
+        }
+    }
+
+    @Test
+    public void loopLargerThanCacheDefeatsLru() throws IOException {
+        Simulator simulator = new Simulator(Policy.named("lru", "tinylfu"), 100);
+        List<Simulator.Result> results = simulator.run(new LoopTrace(0, 101, 10100));
+        Simulator.Result lru = results.get(0);
+        Assert.assertEquals("lru", lru.getPolicy());
+        Assert.assertEquals(0, lru.getHits());
+        Assert.assertEquals(10100, lru.getMisses());
+        // TinyLFU refuses to admit a key no more frequent than its victim, so most of the loop stays cached
+        Assert.assertTrue(results.get(1).getHitRatio() > 0.9);
+    }
+
+    @Test
+    public void scanResistance() throws IOException {
+        Simulator simulator = new Simulator(Policy.named("lru", "tinylfu"), 500);
+        List<Simulator.Result> results = simulator.run(new PhasedTrace(
+                new ZipfianTrace(1000, 1.0, 50000, 1),
+                new ScanTrace(1000000, 5000),
+                new ZipfianTrace(1000, 1.0, 50000, 2)));
+        Assert.assertEquals(105000, results.get(0).getHits() + results.get(0).getMisses());
+        Assert.assertTrue(results.get(1).getHitRatio() > results.get(0).getHitRatio());
+    }
+
+    @Test
+    public void everyPolicyRunsAtEverySize() throws IOException {
+        List<Policy> policies = Policy.all();
+        Simulator simulator = new Simulator(policies, 10, 100);
+        List<Simulator.Result> results = simulator.run(new ZipfianTrace(1000, 0.8, 10000, 7));
+        Assert.assertEquals(policies.size() * 2, results.size());
+        for (Simulator.Result result : results) {
+            Assert.assertEquals(10000, result.getHits() + result.getMisses());
+            Assert.assertTrue(result.toString(), result.getHits() > 0);
+        }
+        ByteArrayOutputStream report = new ByteArrayOutputStream();
+        simulator.print(results, new PrintStream(report, true));
+        String[] lines = report.toString().split(System.lineSeparator());
+        Assert.assertEquals(policies.size() + 1, lines.length);
+        Assert.assertTrue(lines[0].startsWith("policy"));
+        Assert.assertTrue(lines[0].trim().endsWith("100"));
+        Assert.assertTrue(lines[1].startsWith("lru"));
+        Assert.assertTrue(lines[1].endsWith("%"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownPolicy() {
+        Policy.named("fifo");
+    }
+}
@@ -0,0 +1,74 @@
+package com.gft.cache.stress;
+
+/**
+ * One completed call in a stress history. {@code invoked} and {@code returned} are ticks of a
+ * clock shared by all threads, so two events are ordered in real time when one returned before
+ * the other was invoked.
+ */
+public final class Event {
+
+    /**
+     * The value standing for a missing entry, real values are never 0.
+     */
+    public static final long ABSENT = 0L;
+
+    private final int thread;
+
+    private final Operation operation;
+
+    private final long key;
+
+    private final long value;
+
+    private final long invoked;
+
+    private final long returned;
+
+    /**
+     * @param value the value put, or the value a get returned, {@link #ABSENT} for none
+     */
+    public Event(int thread, Operation operation, long key, long value, long invoked, long returned) {
+        this.thread = thread;
+        this.operation = operation;
+        this.key = key;
+        this.value = value;
+        this.invoked = invoked;
+        this.returned = returned;
+    }
+
+    public int getThread() {
+        return thread;
+    }
+
+    public Operation getOperation() {
+        return operation;
+    }
+
+    public long getKey() {
+        return key;
+    }
+
+    public long getValue() {
+        return value;
+    }
+
+    public long getInvoked() {
+        return invoked;
+    }
+
+    public long getReturned() {
+        return returned;
+    }
+
+    public String toString() {
+        String result = value == ABSENT ? "null" : Long.toHexString(value);
+        switch (operation) {
+            case GET:
+                return "T" + thread + " [" + invoked + "," + returned + "] get(" + key + ") = " + result;
+            case PUT:
+                return "T" + thread + " [" + invoked + "," + returned + "] put(" + key + ", " + result + ")";
+            default:
+                return "T" + thread + " [" + invoked + "," + returned + "] evict(" + key + ")";
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.gft.cache.stress;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Decides whether the history of a single key could have come from an atomic cache.
+ * <p>
+ * Linearizability is local, so a cache is linearizable when the history of every key is.
+ * Each key behaves like a register that is either absent or holds the last value put:
+ * a put stores its value, an evict clears it and a get returns it. A bounded cache may also
+ * drop an entry at any time, so when {@code mayEvict} is set a get returning null is always
+ * allowed and clears the register, while a get may still never return a value that was
+ * overwritten or already dropped.
+ * <p>
+ * The search tries every order of the events that respects real time, in the manner of
+ * Wing and Gong, and skips orders reaching an already explored combination of linearized
+ * events and register value, so histories of a few dozen events per key are checked quickly.
+ */
+public class LinearizabilityChecker {
+
+    private static final long INVALID = -1L;
+
+    private final boolean mayEvict;
+
+    public LinearizabilityChecker(boolean mayEvict) {
+        this.mayEvict = mayEvict;
+    }
+
+    /**
+     * @param events the history of one key, in any order
+     */
+    public boolean isLinearizable(List<Event> events) {
+        List<Event> sorted = new ArrayList<Event>(events);
+        sorted.sort(Comparator.comparingLong(Event::getInvoked));
+        return search(sorted, new BitSet(sorted.size()), Event.ABSENT, new HashSet<Configuration>());
+    }
+
+    private boolean search(List<Event> events, BitSet linearized, long state, Set<Configuration> explored) {
+        int size = events.size();
+        if (linearized.cardinality() == size) {
+            return true;
+        }
+        if (!explored.add(new Configuration((BitSet) linearized.clone(), state))) {
+            return false;
+        }
+        // only events invoked before the first pending one returned can go next
+        long frontier = Long.MAX_VALUE;
+        for (int i = linearized.nextClearBit(0); i < size; i = linearized.nextClearBit(i + 1)) {
+            frontier = Math.min(frontier, events.get(i).getReturned());
+        }
+        for (int i = linearized.nextClearBit(0); i < size; i = linearized.nextClearBit(i + 1)) {
+            Event event = events.get(i);
+            if (event.getInvoked() > frontier) {
+                break;
+            }
+            long next = apply(event, state);
+            if (next == INVALID) {
+                continue;
+            }
+            linearized.set(i);
+            if (search(events, linearized, next, explored)) {
+                return true;
+            }
+            linearized.clear(i);
+        }
+        return false;
+    }
+
+    private long apply(Event event, long state) {
+        switch (event.getOperation()) {
+            case PUT:
+                return event.getValue();
+            case EVICT:
+                return Event.ABSENT;
+            default:
+                if (event.getValue() == Event.ABSENT) {
+                    return state == Event.ABSENT || mayEvict ? Event.ABSENT : INVALID;
+                }
+                return event.getValue() == state ? state : INVALID;
+        }
+    }
+
+    private static final class Configuration {
+        private final BitSet linearized;
+        private final long state;
+
+        Configuration(BitSet linearized, long state) {
+            this.linearized = linearized;
+            this.state = state;
+        }
+
+        public boolean equals(Object o) {
+            if (!(o instanceof Configuration)) {
+                return false;
+            }
+            Configuration that = (Configuration) o;
+            return state == that.state && linearized.equals(that.linearized);
+        }
+
+        public int hashCode() {
+            return 31 * linearized.hashCode() + Long.hashCode(state);
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.gft.cache.stress;
+
+/**
+ * The {@link com.gft.cache.Cache} calls a stress history is made of.
+ */
+public enum Operation {
+    GET, PUT, EVICT
+}
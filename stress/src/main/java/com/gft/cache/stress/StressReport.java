@@ -0,0 +1,62 @@
+package com.gft.cache.stress;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Outcome of stressing one policy: the violations found and the throughput while recording.
+ */
+public final class StressReport {
+
+    private final String policy;
+
+    private final int rounds;
+
+    private final long operations;
+
+    private final long elapsedNanos;
+
+    private final List<String> violations;
+
+    StressReport(String policy, int rounds, long operations, long elapsedNanos, List<String> violations) {
+        this.policy = policy;
+        this.rounds = rounds;
+        this.operations = operations;
+        this.elapsedNanos = elapsedNanos;
+        this.violations = Collections.unmodifiableList(new ArrayList<String>(violations));
+    }
+
+    public String getPolicy() {
+        return policy;
+    }
+
+    public int getRounds() {
+        return rounds;
+    }
+
+    public long getOperations() {
+        return operations;
+    }
+
+    /**
+     * Includes the cost of recording the history, so only compare it between policies.
+     */
+    public double getOperationsPerSecond() {
+        return elapsedNanos == 0 ? 0.0 : operations * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+
+    public List<String> getViolations() {
+        return violations;
+    }
+
+    public boolean isPassed() {
+        return violations.isEmpty();
+    }
+
+    public String toString() {
+        return String.format("%-16s %6d rounds %10d ops %12.0f ops/s  %s", policy, rounds, operations,
+                getOperationsPerSecond(), isPassed() ? "OK" : violations.size() + " violations");
+    }
+}
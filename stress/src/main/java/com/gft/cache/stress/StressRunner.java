@@ -0,0 +1,210 @@
+package com.gft.cache.stress;
+
+import com.gft.cache.Cache;
+import com.gft.cache.simulator.Policy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drives a cache with randomized concurrent histories and checks every one of them.
+ * <p>
+ * Like jcstress it runs many short rounds instead of one long one: each round starts a fresh
+ * cache, releases all threads at once on a small key space and records every call, each put
+ * writing a value no other put writes. Once the threads are done every key is read once more.
+ * The round then fails when
+ * <ul>
+ * <li>a call threw, which also ends the thread that made it,</li>
+ * <li>the cache held more entries than its maximum size after a put,</li>
+ * <li>a get returned a value never put for that key,</li>
+ * <li>or the history of a key is not linearizable, see {@link LinearizabilityChecker}. When
+ * the key space fits in the cache, nothing may be evicted, so this includes lost entries.</li>
+ * </ul>
+ * Threads yield between calls now and then so that histories interleave even on a single core.
+ * <p>
+ * Run from the command line with
+ * <pre>
+ * java -jar stress/target/stress.jar [rounds] [policy...]
+ * </pre>
+ * It exits with status 1 when any policy failed.
+ */
+public class StressRunner {
+
+    private static final int MAX_REPORTED_VIOLATIONS = 10;
+
+    private final int threads;
+
+    private final int operationsPerThread;
+
+    private final int keys;
+
+    private final int maximumSize;
+
+    private final long seed;
+
+    /**
+     * @param keys number of distinct keys, more than {@code maximumSize} to exercise eviction
+     */
+    public StressRunner(int threads, int operationsPerThread, int keys, int maximumSize, long seed) {
+        this.threads = threads;
+        this.operationsPerThread = operationsPerThread;
+        this.keys = keys;
+        this.maximumSize = maximumSize;
+        this.seed = seed;
+    }
+
+    public StressReport run(Policy policy, int rounds) throws InterruptedException {
+        List<String> violations = new ArrayList<String>();
+        long operations = 0;
+        long elapsedNanos = 0;
+        LinearizabilityChecker checker = new LinearizabilityChecker(keys > maximumSize);
+        for (int round = 0; round < rounds && violations.size() < MAX_REPORTED_VIOLATIONS; round++) {
+            Cache<Long, Long> cache = policy.create(maximumSize);
+            AtomicLong clock = new AtomicLong();
+            AtomicInteger largestSize = new AtomicInteger();
+            List<List<Event>> histories = new ArrayList<List<Event>>();
+            List<String> thrown = Collections.synchronizedList(new ArrayList<String>());
+            CountDownLatch start = new CountDownLatch(1);
+            Thread[] workers = new Thread[threads];
+            for (int t = 0; t < threads; t++) {
+                List<Event> history = new ArrayList<Event>(operationsPerThread);
+                histories.add(history);
+                Random random = new Random(seed + 31L * round + t);
+                int thread = t;
+                int currentRound = round;
+                workers[t] = new Thread(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    for (int i = 0; i < operationsPerThread; i++) {
+                        try {
+                            history.add(call(cache, clock, largestSize, random, thread, i));
+                        } catch (Throwable e) {
+                            thrown.add("round " + currentRound + ", thread " + thread + ": threw " + e);
+                            return;
+                        }
+                        if (random.nextInt(8) == 0) {
+                            Thread.yield();
+                        }
+                    }
+                }, "stress-" + policy.getName() + "-" + t);
+                workers[t].start();
+            }
+            long begin = System.nanoTime();
+            start.countDown();
+            for (Thread worker : workers) {
+                worker.join();
+            }
+            elapsedNanos += System.nanoTime() - begin;
+            operations += (long) threads * operationsPerThread;
+
+            violations.addAll(thrown);
+            if (largestSize.get() > maximumSize) {
+                violations.add("round " + round + ": size " + largestSize.get() + " exceeded the maximum of " + maximumSize);
+            }
+            Map<Long, List<Event>> byKey = new HashMap<Long, List<Event>>();
+            for (List<Event> history : histories) {
+                for (Event event : history) {
+                    byKey.computeIfAbsent(event.getKey(), key -> new ArrayList<Event>()).add(event);
+                }
+            }
+            for (long key = 0; key < keys; key++) {
+                long invoked = clock.incrementAndGet();
+                Long value;
+                try {
+                    value = cache.get(key);
+                } catch (Throwable e) {
+                    violations.add("round " + round + ", key " + key + ": final get threw " + e);
+                    continue;
+                }
+                byKey.computeIfAbsent(key, k -> new ArrayList<Event>()).add(new Event(threads, Operation.GET, key,
+                        value == null ? Event.ABSENT : value, invoked, clock.incrementAndGet()));
+            }
+            for (Map.Entry<Long, List<Event>> entry : byKey.entrySet()) {
+                String violation = check(checker, entry.getValue());
+                if (violation != null) {
+                    violations.add("round " + round + ", key " + entry.getKey() + ": " + violation);
+                }
+            }
+        }
+        return new StressReport(policy.getName(), rounds, operations, elapsedNanos, violations);
+    }
+
+    private Event call(Cache<Long, Long> cache, AtomicLong clock, AtomicInteger largestSize,
+                       Random random, int thread, int sequence) {
+        long key = random.nextInt(keys);
+        int dice = random.nextInt(10);
+        long invoked = clock.incrementAndGet();
+        if (dice < 5) {
+            Long value = cache.get(key);
+            return new Event(thread, Operation.GET, key, value == null ? Event.ABSENT : value, invoked, clock.incrementAndGet());
+        }
+        if (dice < 9) {
+            // unique among all threads and never ABSENT
+            long value = ((long) (thread + 1) << 32) | sequence;
+            cache.put(key, value);
+            long returned = clock.incrementAndGet();
+            largestSize.accumulateAndGet(cache.size(), Math::max);
+            return new Event(thread, Operation.PUT, key, value, invoked, returned);
+        }
+        cache.evict(key);
+        return new Event(thread, Operation.EVICT, key, Event.ABSENT, invoked, clock.incrementAndGet());
+    }
+
+    private static String check(LinearizabilityChecker checker, List<Event> events) {
+        for (Event event : events) {
+            if (event.getOperation() == Operation.GET && event.getValue() != Event.ABSENT && !wasPut(events, event.getValue())) {
+                return "read a value that was never put: " + event;
+            }
+        }
+        if (!checker.isLinearizable(events)) {
+            return "not linearizable: " + events;
+        }
+        return null;
+    }
+
+    private static boolean wasPut(List<Event> events, long value) {
+        for (Event event : events) {
+            if (event.getOperation() == Operation.PUT && event.getValue() == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        List<Policy> policies = args.length > 1
+                ? Policy.named(Arrays.copyOfRange(args, 1, args.length)) : Policy.all();
+        int threads = Math.max(4, Runtime.getRuntime().availableProcessors());
+        StressRunner evicting = new StressRunner(threads, 100, 32, 16, 1);
+        StressRunner retaining = new StressRunner(threads, 100, 8, 1024, 2);
+        boolean passed = true;
+        for (Policy policy : policies) {
+            for (StressRunner runner : new StressRunner[]{evicting, retaining}) {
+                StressReport report = runner.run(policy, rounds);
+                System.out.println(report + "  " + runner);
+                for (String violation : report.getViolations()) {
+                    System.out.println("    " + violation);
+                }
+                passed &= report.isPassed();
+            }
+        }
+        System.exit(passed ? 0 : 1);
+    }
+
+    public String toString() {
+        return threads + " threads, " + keys + " keys, maximum size " + maximumSize;
+    }
+}
@@ -0,0 +1,94 @@
+package com.gft.cache.LinearizabilityChecker;
+
+import com.gft.cache.stress.Event;
+import com.gft.cache.stress.LinearizabilityChecker;
+import com.gft.cache.stress.Operation;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+public class LinearizabilityCheckerTest {
+
+    private final LinearizabilityChecker retaining = new LinearizabilityChecker(false);
+
+    private final LinearizabilityChecker evicting = new LinearizabilityChecker(true);
+
+    @Test
+    public void sequentialHistory() {
+        Assert.assertTrue(retaining.isLinearizable(Arrays.asList(
+                get(0, Event.ABSENT, 1, 2),
+                put(0, 10, 3, 4),
+                get(1, 10, 5, 6),
+                evict(1, 7, 8),
+                get(0, Event.ABSENT, 9, 10))));
+        Assert.assertTrue(retaining.isLinearizable(Collections.<Event>emptyList()));
+    }
+
+    @Test
+    public void staleRead() {
+        Assert.assertFalse(retaining.isLinearizable(Arrays.asList(
+                put(0, 10, 1, 2),
+                put(1, 20, 3, 4),
+                get(0, 10, 5, 6))));
+        // eviction never brings an overwritten value back
+        Assert.assertFalse(evicting.isLinearizable(Arrays.asList(
+                put(0, 10, 1, 2),
+                put(1, 20, 3, 4),
+                get(0, 10, 5, 6))));
+    }
+
+    @Test
+    public void overlappingCallsMayTakeEffectInEitherOrder() {
+        Assert.assertTrue(retaining.isLinearizable(Arrays.asList(
+                put(0, 10, 1, 4),
+                put(1, 20, 2, 5),
+                get(2, 10, 3, 8),
+                get(2, 10, 9, 10))));
+        Assert.assertTrue(retaining.isLinearizable(Arrays.asList(
+                put(0, 10, 1, 4),
+                put(1, 20, 2, 5),
+                get(2, 20, 6, 8))));
+        // both reads finished after both puts, they cannot disagree
+        Assert.assertFalse(retaining.isLinearizable(Arrays.asList(
+                put(0, 10, 1, 4),
+                put(1, 20, 2, 5),
+                get(2, 20, 6, 7),
+                get(3, 10, 8, 9))));
+    }
+
+    @Test
+    public void lostEntry() {
+        Assert.assertFalse(retaining.isLinearizable(Arrays.asList(
+                put(0, 10, 1, 2),
+                get(1, Event.ABSENT, 3, 4))));
+        Assert.assertTrue(evicting.isLinearizable(Arrays.asList(
+                put(0, 10, 1, 2),
+                get(1, Event.ABSENT, 3, 4))));
+    }
+
+    @Test
+    public void resurrectedEntry() {
+        Assert.assertFalse(evicting.isLinearizable(Arrays.asList(
+                put(0, 10, 1, 2),
+                get(1, Event.ABSENT, 3, 4),
+                get(0, 10, 5, 6))));
+        Assert.assertFalse(retaining.isLinearizable(Arrays.asList(
+                put(0, 10, 1, 2),
+                evict(1, 3, 4),
+                get(0, 10, 5, 6))));
+    }
+
+    private static Event get(int thread, long value, long invoked, long returned) {
+        return new Event(thread, Operation.GET, 1, value, invoked, returned);
+    }
+
+    private static Event put(int thread, long value, long invoked, long returned) {
+        return new Event(thread, Operation.PUT, 1, value, invoked, returned);
+    }
+
+    private static Event evict(int thread, long invoked, long returned) {
+        return new Event(thread, Operation.EVICT, 1, Event.ABSENT, invoked, returned);
+    }
+}
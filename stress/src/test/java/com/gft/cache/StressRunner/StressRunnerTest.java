@@ -0,0 +1,119 @@
+package com.gft.cache.StressRunner;
+
+import com.gft.cache.Cache;
+import com.gft.cache.lru.LRUCache;
+import com.gft.cache.simulator.Policy;
+import com.gft.cache.stress.StressReport;
+import com.gft.cache.stress.StressRunner;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class StressRunnerTest {
+
+    private final StressRunner evicting = new StressRunner(4, 100, 32, 16, 1);
+
+    private final StressRunner retaining = new StressRunner(4, 100, 8, 1024, 2);
+
+    @Test
+    public void everyPolicyPasses() throws InterruptedException {
+        for (Policy policy : Policy.all()) {
+            StressReport evictingReport = evicting.run(policy, 20);
+            Assert.assertTrue(evictingReport.getViolations().toString(), evictingReport.isPassed());
+            StressReport retainingReport = retaining.run(policy, 20);
+            Assert.assertTrue(retainingReport.getViolations().toString(), retainingReport.isPassed());
+            Assert.assertEquals(20 * 4 * 100, retainingReport.getOperations());
+            Assert.assertTrue(retainingReport.getOperationsPerSecond() > 0);
+        }
+    }
+
+    @Test
+    public void detectsLostEntries() throws InterruptedException {
+        // drops every tenth put although it has room for all keys
+        Policy lossy = new Policy("lossy", maxSize -> new MapCache(new ConcurrentHashMap<Long, Long>()) {
+            private final AtomicInteger puts = new AtomicInteger();
+
+            public void put(Long key, Long value) {
+                if (puts.incrementAndGet() % 10 != 0) {
+                    super.put(key, value);
+                }
+            }
+        });
+        StressReport report = retaining.run(lossy, 5);
+        Assert.assertFalse(report.isPassed());
+        Assert.assertTrue(report.getViolations().get(0), report.getViolations().get(0).contains("not linearizable"));
+    }
+
+    @Test
+    public void detectsSizeViolations() throws InterruptedException {
+        Policy unbounded = new Policy("unbounded", maxSize -> new MapCache(new ConcurrentHashMap<Long, Long>()));
+        StressReport report = evicting.run(unbounded, 5);
+        Assert.assertFalse(report.isPassed());
+        Assert.assertTrue(report.getViolations().get(0), report.getViolations().get(0).contains("exceeded the maximum of 16"));
+    }
+
+    @Test
+    public void detectsStaleReads() throws InterruptedException {
+        // keeps the first value put for a key
+        Policy stale = new Policy("stale", maxSize -> new MapCache(new ConcurrentHashMap<Long, Long>()) {
+            public void put(Long key, Long value) {
+                map.putIfAbsent(key, value);
+            }
+        });
+        Assert.assertFalse(retaining.run(stale, 5).isPassed());
+    }
+
+    @Test
+    public void reportsCallsThatThrow() throws InterruptedException {
+        Policy failing = new Policy("failing", maxSize -> new MapCache(new ConcurrentHashMap<Long, Long>()) {
+            public void evict(Long key) {
+                throw new IllegalStateException("evict failed");
+            }
+        });
+        StressReport report = retaining.run(failing, 5);
+        Assert.assertFalse(report.isPassed());
+        Assert.assertTrue(report.getViolations().get(0), report.getViolations().get(0).contains("threw java.lang.IllegalStateException: evict failed"));
+    }
+
+    @Test
+    public void detectsUnsynchronizedCache() throws InterruptedException {
+        // a plain map read outside the lock the writers take, the race the old LFUCache had
+        Policy racy = new Policy("racy", maxSize -> new MapCache(new HashMap<Long, Long>()) {
+            public synchronized void put(Long key, Long value) {
+                map.remove(key);
+                Thread.yield();
+                map.put(key, value);
+            }
+        });
+        Assert.assertFalse(retaining.run(racy, 50).isPassed());
+        Assert.assertTrue(retaining.run(new Policy("lru", LRUCache::new), 50).isPassed());
+    }
+
+    private static class MapCache implements Cache<Long, Long> {
+        final Map<Long, Long> map;
+
+        MapCache(Map<Long, Long> map) {
+            this.map = map;
+        }
+
+        public void put(Long key, Long value) {
+            map.put(key, value);
+        }
+
+        public Long get(Long key) {
+            return map.get(key);
+        }
+
+        public void evict(Long key) {
+            map.remove(key);
+        }
+
+        public int size() {
+            return map.size();
+        }
+    }
+}
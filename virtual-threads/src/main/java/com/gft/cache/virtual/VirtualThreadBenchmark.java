@@ -0,0 +1,106 @@
+package com.gft.cache.virtual;
+
+import com.gft.cache.Cache;
+import com.gft.cache.loading.CoalescingLoadingCache;
+import com.gft.cache.simulator.Policy;
+import com.gft.cache.simulator.ZipfianTrace;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Time for a million virtual threads, one per request, to go through a shared cache.
+ * <p>
+ * {@link #getOrPut} is the plain cache-aside path. In {@link #loadingGet} every miss is loaded
+ * by a {@link CoalescingLoadingCache} whose loader parks for a millisecond like a remote call
+ * would; the threads missing the same key wait for one load. With caches built on monitors
+ * each waiting thread would pin its carrier, with locks they all park and the carriers keep
+ * serving the others.
+ * <p>
+ * Build with {@code mvn package} on Java 21 and run e.g.
+ * <pre>
+ * java -jar virtual-threads/target/benchmarks.jar VirtualThreadBenchmark -p policy=lru,lfu
+ * </pre>
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class VirtualThreadBenchmark {
+
+    private static final long LOAD_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Param({"lru", "segmented-lru", "clock-lru", "lfu", "tinylfu", "arc"})
+    String policy;
+
+    @Param({"1000000"})
+    int threads;
+
+    @Param({"10000"})
+    int maximumSize;
+
+    private Long[] keys;
+
+    private Cache<Long, Long> cache;
+
+    private CoalescingLoadingCache<Long, Long> loadingCache;
+
+    @Setup(Level.Trial)
+    public void createKeys() {
+        int items = 4 * maximumSize;
+        Long[] canonical = new Long[items + 1];
+        for (int i = 1; i <= items; i++) {
+            canonical[i] = (long) i;
+        }
+        keys = new Long[threads];
+        int[] next = new int[1];
+        new ZipfianTrace(items, 0.99, threads, 42).replay(key -> keys[next[0]++] = canonical[(int) key]);
+    }
+
+    @Setup(Level.Iteration)
+    public void createCache() {
+        cache = Policy.named(policy).get(0).create(maximumSize);
+        loadingCache = new CoalescingLoadingCache<Long, Long>(cache, key -> {
+            LockSupport.parkNanos(LOAD_NANOS);
+            return key;
+        });
+    }
+
+    @Benchmark
+    public void getOrPut() {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Long key : keys) {
+                executor.execute(() -> {
+                    if (cache.get(key) == null) {
+                        cache.put(key, key);
+                    }
+                });
+            }
+        }
+    }
+
+    @Benchmark
+    public void loadingGet() {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Long key : keys) {
+                executor.execute(() -> loadingCache.get(key));
+            }
+        }
+    }
+}
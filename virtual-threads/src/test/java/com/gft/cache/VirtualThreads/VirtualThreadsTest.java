@@ -0,0 +1,146 @@
+package com.gft.cache.VirtualThreads;
+
+import com.gft.cache.Cache;
+import com.gft.cache.CacheBuilder;
+import com.gft.cache.CacheWriter;
+import com.gft.cache.lfu.LFUCache;
+import com.gft.cache.loading.CoalescingLoadingCache;
+import com.gft.cache.lru.LRUCache;
+import com.gft.cache.simulator.Policy;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Runs with a single carrier thread, see the surefire configuration of the module.
+ */
+public class VirtualThreadsTest {
+
+    @Test
+    public void blockedWriterDoesNotPinTheCarrierOfLRUCache() throws InterruptedException {
+        assertCarrierStaysFree(LRUCache::new);
+    }
+
+    @Test
+    public void blockedWriterDoesNotPinTheCarrierOfLFUCache() throws InterruptedException {
+        assertCarrierStaysFree(LFUCache::new);
+    }
+
+    /**
+     * A virtual thread sleeps in the loader while a second one waits for the same load, then the
+     * loaded value is installed through a writer that sleeps as well while an evict of the key
+     * waits for it. The only carrier must stay free throughout.
+     */
+    @Test
+    public void blockingLoadDoesNotPinTheCarrierOfCoalescingLoadingCache() throws InterruptedException {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch writing = new CountDownLatch(1);
+        CoalescingLoadingCache<Integer, String> cache = new CoalescingLoadingCache<Integer, String>(
+                CacheBuilder.<Integer, String>newBuilder()
+                        .maximumSize(10)
+                        .writer(sleepingWriter(writing))
+                        .buildLRU(),
+                key -> {
+                    loading.countDown();
+                    Thread.sleep(1000);
+                    return "loaded" + key;
+                });
+        String[] results = new String[2];
+        Thread loader = Thread.ofVirtual().start(() -> results[0] = cache.get(1));
+        Assert.assertTrue(loading.await(5, TimeUnit.SECONDS));
+        Thread waiter = Thread.ofVirtual().start(() -> results[1] = cache.get(1));
+        assertCarrierFree();
+
+        Assert.assertTrue(writing.await(5, TimeUnit.SECONDS));
+        Thread evicter = Thread.ofVirtual().start(() -> cache.evict(1));
+        assertCarrierFree();
+
+        loader.join();
+        waiter.join();
+        evicter.join();
+        Assert.assertEquals("loaded1", results[0]);
+        Assert.assertEquals("loaded1", results[1]);
+        Assert.assertNull(cache.getIfPresent(1));
+    }
+
+    @Test
+    public void everyPolicyServesManyVirtualThreads() {
+        for (Policy policy : Policy.all()) {
+            Cache<Long, Long> cache = policy.create(1000);
+            AtomicInteger hits = new AtomicInteger();
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < 100000; i++) {
+                    Long key = (long) (i % 100);
+                    executor.execute(() -> {
+                        if (cache.get(key) == null) {
+                            cache.put(key, key);
+                        } else {
+                            hits.incrementAndGet();
+                        }
+                    });
+                }
+            }
+            Assert.assertEquals(policy.getName(), 100, cache.size());
+            Assert.assertTrue(policy.getName(), hits.get() >= 100000 - 1000);
+        }
+    }
+
+    /**
+     * One virtual thread sleeps in the writer while holding the key's write lock and a second one
+     * changing the same key waits for it. A reader must not wait for the writer at all, and a
+     * virtual thread not using the cache must still get the only carrier right away.
+     */
+    private void assertCarrierStaysFree(Function<CacheBuilder<Integer, String>, Cache<Integer, String>> factory)
+            throws InterruptedException {
+        CountDownLatch writing = new CountDownLatch(1);
+        Cache<Integer, String> cache = factory.apply(CacheBuilder.<Integer, String>newBuilder()
+                .maximumSize(10)
+                .writer(sleepingWriter(writing)));
+        Thread writer = Thread.ofVirtual().start(() -> cache.put(1, "one"));
+        Assert.assertTrue(writing.await(5, TimeUnit.SECONDS));
+        Thread second = Thread.ofVirtual().start(() -> cache.put(1, "uno"));
+        Thread reader = Thread.ofVirtual().start(() -> cache.get(1));
+        reader.join(500);
+        Assert.assertFalse("reader waited for the writer", reader.isAlive());
+
+        assertCarrierFree();
+
+        writer.join();
+        second.join();
+        Assert.assertEquals("uno", cache.get(1));
+    }
+
+    /**
+     * A virtual thread not using the cache must get the only carrier right away.
+     */
+    private static void assertCarrierFree() throws InterruptedException {
+        CountDownLatch ran = new CountDownLatch(1);
+        Thread.ofVirtual().start(ran::countDown);
+        Assert.assertTrue("carrier pinned", ran.await(500, TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * @return writer sleeping a second in every write, counting down {@code writing} when it starts
+     */
+    private static CacheWriter<Integer, String> sleepingWriter(CountDownLatch writing) {
+        return new CacheWriter<Integer, String>() {
+            public void write(Integer key, String value) {
+                writing.countDown();
+                try {
+                    Thread.sleep(1000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            public void delete(Integer key) {
+            }
+        };
+    }
+}